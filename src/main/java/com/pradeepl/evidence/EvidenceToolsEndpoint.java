@@ -10,10 +10,32 @@ import akka.javasdk.mcp.AbstractMcpEndpoint;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import com.pradeepl.evidence.util.EvidenceAnalyzer;
 import com.pradeepl.evidence.util.EvidenceAnalyzer.LogAnalysis;
+import com.pradeepl.evidence.util.LogTemplateMiner;
+import com.pradeepl.evidence.logs.AnalysisIndex;
+import com.pradeepl.evidence.logs.LogBatchReader;
+import com.pradeepl.evidence.logs.LogCursor;
+import com.pradeepl.evidence.logs.LogFile;
+import com.pradeepl.evidence.logs.LogFollower;
+import com.pradeepl.evidence.logs.LogLevel;
+import com.pradeepl.evidence.logs.LogPageReader;
+import com.pradeepl.evidence.logs.LogSource;
+import com.pradeepl.evidence.logs.LogSources;
+import com.pradeepl.evidence.logs.LogTimestamps;
+import com.pradeepl.evidence.logs.LogWindow;
+import com.pradeepl.evidence.logs.RequestIdIndex;
+import com.pradeepl.evidence.logs.RequestTracer;
+import com.pradeepl.evidence.metrics.MetricsQuery;
+import com.pradeepl.evidence.metrics.MetricsSnapshot;
+import com.pradeepl.evidence.metrics.MetricsSnapshots;
+import com.pradeepl.evidence.metrics.MetricsStore;
+import com.pradeepl.evidence.metrics.QueryPlan;
+import com.pradeepl.evidence.metrics.ResultSeries;
+import com.pradeepl.evidence.metrics.TimeSeries;
 import com.pradeepl.evidence.util.McpLogger;
 
 import org.slf4j.Logger;
@@ -21,7 +43,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,7 +54,7 @@ import java.util.Map;
  * Consolidated MCP Endpoint for Agentic AI Triage System - Evidence Gathering Tools
  *
  * This service provides a comprehensive suite of MCP tools organized by domain:
- * - LOG TOOLS: Service log fetching and analysis
+ * - LOG TOOLS: Service log fetching and analysis, cross-service request traces
  * - METRICS TOOLS: Performance metrics querying
  * - KNOWLEDGE BASE TOOLS: Service catalog and runbook access
  * - ANALYSIS TOOLS: Cross-evidence correlation
@@ -50,12 +75,18 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
     private static final Logger logger = LoggerFactory.getLogger(EvidenceToolsEndpoint.class);
     private static final ObjectMapper mapper = new ObjectMapper();
 
+    /** Upper bound on how long a follow_logs call waits for new lines. */
+    private static final int MAX_FOLLOW_WAIT_SECONDS = 30;
+
+    /** Most points returned per series by query_metrics, the newest ones. */
+    private static final int MAX_SERIES_POINTS = 1000;
+
     // ==================== LOG TOOLS ====================
     // Tools for fetching and analyzing service logs
 
     @McpTool(
         name = "fetch_logs",
-        description = "Fetch logs from the agentic AI triage system services (payment-service, checkout-service, auth-service, etc.). Use this tool instead of reading local files when asked for logs for the triage system or any microservice. Returns recent log lines with automatic error analysis and anomaly detection.",
+        description = "Fetch logs from the agentic AI triage system services (payment-service, checkout-service, auth-service, etc.). Use this tool instead of reading local files when asked for logs for the triage system or any microservice. Returns recent log lines with automatic error analysis and anomaly detection. Large logs can be paged: pass olderCursor or newerCursor from a previous response as cursor to get the next page. Use since/until to restrict results to an incident window and levels (e.g., ERROR,WARN) to return only lines of those severities.",
         annotations = {
             ToolAnnotation.ReadOnly,
             ToolAnnotation.NonDestructive,
@@ -65,15 +96,24 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
     )
     public String fetchLogs(
             @Description("Service name to fetch logs from (e.g., payment-service, checkout-service)") String service,
-            @Description("Number of log lines to fetch (default: 200)") int lines
+            @Description("Number of log lines to fetch (default: 200)") int lines,
+            @Description("Optional pagination cursor (olderCursor or newerCursor from a previous fetch_logs response). Omit to fetch the most recent lines.") String cursor,
+            @Description("Optional start of the time window, inclusive (e.g., 2025-01-15T14:25:00Z or 14:25Z for a time on the log's latest date)") String since,
+            @Description("Optional end of the time window, exclusive (e.g., 2025-01-15T14:36:00Z or 14:36Z)") String until,
+            @Description("Optional comma-separated log levels to include (e.g., ERROR,WARN). Omit to include all levels.") String levels
     ) {
         // Log the incoming MCP tool call
-        McpLogger.logToolCall("fetch_logs", Map.of(
-            "service", service,
-            "lines", lines
-        ));
-
-        logger.info("📝 MCP Tool: fetch_logs called - Service: {}, Lines: {}", service, lines);
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        arguments.put("service", service);
+        arguments.put("lines", lines);
+        arguments.put("cursor", cursor);
+        arguments.put("since", since);
+        arguments.put("until", until);
+        arguments.put("levels", levels);
+        McpLogger.logToolCall("fetch_logs", arguments);
+
+        logger.info("📝 MCP Tool: fetch_logs called - Service: {}, Lines: {}, Cursor: {}, Since: {}, Until: {}, Levels: {}",
+            service, lines, cursor, since, until, levels);
 
         // Demonstrate McpRequestContext usage - access to security, tracing, and headers
         try {
@@ -133,11 +173,9 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
             logger.warn("⚠️ Could not access request context: {}", e.getMessage());
         }
 
-        try {
-            String fileName = String.format("logs/%s.log", service);
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream(fileName);
+        try (LogFile logFile = LogSources.shared().open(service)) {
 
-            if (inputStream == null) {
+            if (logFile == null) {
                 ObjectNode errorResponse = mapper.createObjectNode();
                 errorResponse.put("error", String.format("No log file found for service: %s", service));
                 errorResponse.put("service", service);
@@ -148,37 +186,71 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
                 return response;
             }
 
-            String fullLogs = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-            String[] allLines = fullLogs.split("\n");
+            // Resolve since/until to a byte range through the file's sparse timestamp index
+            LogWindow window = LogWindow.resolve(logFile, since, until);
 
-            // Return last N lines (most recent logs)
-            int startIndex = Math.max(0, allLines.length - lines);
-            int actualLines = Math.min(lines, allLines.length);
+            int levelMask = LogLevel.parseMask(levels);
 
-            StringBuilder recentLogs = new StringBuilder();
-            for (int i = startIndex; i < allLines.length; i++) {
-                recentLogs.append(allLines[i]).append("\n");
+            LogPageReader.Page page;
+            if (cursor == null || cursor.isBlank()) {
+                // Return last N lines (most recent logs), reading backwards from the end of the window
+                page = LogPageReader.read(logFile, window, window.endOffset(), LogCursor.Direction.OLDER, lines, levelMask);
+            } else {
+                LogCursor position = LogCursor.decode(cursor);
+                if (!position.isValidFor(logFile, logFile.size())) {
+                    ObjectNode errorResponse = mapper.createObjectNode();
+                    errorResponse.put("error", String.format(
+                        "Cursor is no longer valid for service: %s (log was rotated or replaced). Fetch without a cursor to start again.",
+                        service));
+                    errorResponse.put("service", service);
+                    String response = mapper.writeValueAsString(errorResponse);
+
+                    McpLogger.logToolResponse("fetch_logs", response, false);
+                    return response;
+                }
+                page = LogPageReader.read(logFile, window, window.clamp(position.offset()), position.direction(), lines, levelMask);
             }
 
-            // Analyze logs for errors and patterns using shared analyzer
-            LogAnalysis analysis = EvidenceAnalyzer.analyzeLogs(recentLogs.toString());
+            String recentLogs = page.text();
+            int actualLines = page.lineCount();
+
+            // Analyze logs for errors and patterns. Contiguous pages reuse the file's cached
+            // block analyses; level-filtered pages are analyzed from their text
+            LogAnalysis analysis = levelMask == 0
+                ? AnalysisIndex.of(logFile).analyze(page.startOffset(), page.endOffset()).toAnalysis()
+                : EvidenceAnalyzer.analyzeLogs(recentLogs);
 
             // Build structured JSON response
             ObjectNode response = mapper.createObjectNode();
-            response.put("logs", recentLogs.toString());
-            response.put("source", "classpath");
+            response.put("logs", recentLogs);
+            response.put("source", LogSources.shared().name());
             response.put("service", service);
             response.put("linesReturned", actualLines);
             response.put("linesRequested", lines);
+            response.put("truncated", page.truncated());
+            if (window.isBounded()) {
+                ObjectNode windowNode = mapper.createObjectNode();
+                windowNode.put("since", window.sinceMillis() != null ? Instant.ofEpochMilli(window.sinceMillis()).toString() : null);
+                windowNode.put("until", window.untilMillis() != null ? Instant.ofEpochMilli(window.untilMillis()).toString() : null);
+                response.set("window", windowNode);
+            }
+            if (levelMask != 0) {
+                response.set("levels", mapper.valueToTree(LogLevel.names(levelMask)));
+            }
+
+            // Cursors for paging further back in time or picking up newly appended lines
+            if (page.startOffset() > window.startOffset()) {
+                response.put("olderCursor",
+                    new LogCursor(logFile.id(), page.startOffset(), LogCursor.Direction.OLDER).encode());
+            } else {
+                response.putNull("olderCursor");
+            }
+            response.put("newerCursor",
+                new LogCursor(logFile.id(), LogPageReader.resumeOffset(logFile, page.endOffset()),
+                    LogCursor.Direction.NEWER).encode());
 
             // Add analysis
-            ObjectNode analysisNode = mapper.createObjectNode();
-            analysisNode.put("errorCount", analysis.errorCount());
-            analysisNode.set("errorPatterns", mapper.valueToTree(analysis.errorPatterns()));
-            analysisNode.set("httpStatusCounts", mapper.valueToTree(analysis.statusCodeCounts()));
-            analysisNode.set("anomalies", mapper.valueToTree(analysis.anomalies()));
-            analysisNode.set("sampleErrorLines", mapper.valueToTree(analysis.sampleErrorLines()));
-            response.set("analysis", analysisNode);
+            response.set("analysis", analysisNode(analysis));
 
             logger.debug("📝 fetch_logs completed - Errors: {}, Patterns: {}",
                 analysis.errorCount(), analysis.errorPatterns().size());
@@ -210,6 +282,473 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
         }
     }
 
+    /**
+     * Fetches the most recent log lines for a service without pagination.
+     */
+    public String fetchLogs(String service, int lines) {
+        return fetchLogs(service, lines, null, null, null, null);
+    }
+
+    @McpTool(
+        name = "fetch_logs_batch",
+        description = "Fetch logs from several triage system services in one call, read in parallel. Use this during an incident instead of calling fetch_logs once per service. Returns the most recent lines of each service within the optional since/until window, either per service (each with its own analysis and cursors for fetch_logs) or, with merged=true, as a single timeline merged in timestamp order.",
+        annotations = {
+            ToolAnnotation.ReadOnly,
+            ToolAnnotation.NonDestructive,
+            ToolAnnotation.Idempotent,
+            ToolAnnotation.ClosedWorld
+        }
+    )
+    public String fetchLogsBatch(
+            @Description("Comma-separated service names (e.g., payment-service,checkout-service,api-gateway)") String services,
+            @Description("Number of log lines to fetch per service (default: 200)") int lines,
+            @Description("Optional start of the time window, inclusive (e.g., 2025-01-15T14:25:00Z or 14:25Z)") String since,
+            @Description("Optional end of the time window, exclusive (e.g., 2025-01-15T14:36:00Z or 14:36Z)") String until,
+            @Description("Optional comma-separated log levels to include (e.g., ERROR,WARN). Omit to include all levels.") String levels,
+            @Description("True to return one timeline merged across services in timestamp order; false for per-service results") boolean merged
+    ) {
+        // Log the incoming MCP tool call
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        arguments.put("services", services);
+        arguments.put("lines", lines);
+        arguments.put("since", since);
+        arguments.put("until", until);
+        arguments.put("levels", levels);
+        arguments.put("merged", merged);
+        McpLogger.logToolCall("fetch_logs_batch", arguments);
+
+        logger.info("📚 MCP Tool: fetch_logs_batch called - Services: {}, Lines: {}, Since: {}, Until: {}, Levels: {}, Merged: {}",
+            services, lines, since, until, levels, merged);
+
+        try {
+            List<String> serviceNames = new ArrayList<>();
+            for (String name : (services == null ? "" : services).split("[,\\s]+")) {
+                if (!name.isEmpty() && !serviceNames.contains(name)) {
+                    serviceNames.add(name);
+                }
+            }
+            if (serviceNames.isEmpty()) {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", "No services given (expected a comma-separated list such as payment-service,checkout-service)");
+                String response = mapper.writeValueAsString(errorResponse);
+
+                McpLogger.logToolResponse("fetch_logs_batch", response, false);
+                return response;
+            }
+
+            int levelMask = LogLevel.parseMask(levels);
+            LogSource logSource = LogSources.shared();
+
+            long startNanos = System.nanoTime();
+            List<LogBatchReader.ServicePage> pages =
+                LogBatchReader.read(logSource, serviceNames, since, until, lines, levelMask);
+            long readMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+            ObjectNode response = mapper.createObjectNode();
+            response.put("source", logSource.name());
+            response.set("services", mapper.valueToTree(serviceNames));
+            response.put("linesRequested", lines);
+            if (levelMask != 0) {
+                response.set("levels", mapper.valueToTree(LogLevel.names(levelMask)));
+            }
+
+            ObjectNode errors = mapper.createObjectNode();
+            ObjectNode results = mapper.createObjectNode();
+            Map<String, Integer> linesPerService = new LinkedHashMap<>();
+            for (LogBatchReader.ServicePage result : pages) {
+                if (result.error() != null) {
+                    errors.put(result.service(), result.error());
+                    continue;
+                }
+                LogPageReader.Page page = result.page();
+                linesPerService.put(result.service(), page.lineCount());
+                if (merged) {
+                    continue;
+                }
+
+                ObjectNode serviceNode = mapper.createObjectNode();
+                serviceNode.put("logs", page.text());
+                serviceNode.put("linesReturned", page.lineCount());
+                serviceNode.put("truncated", page.truncated());
+                if (page.startOffset() > result.window().startOffset()) {
+                    serviceNode.put("olderCursor",
+                        new LogCursor(result.fileId(), page.startOffset(), LogCursor.Direction.OLDER).encode());
+                } else {
+                    serviceNode.putNull("olderCursor");
+                }
+                serviceNode.put("newerCursor",
+                    new LogCursor(result.fileId(), result.resumeOffset(), LogCursor.Direction.NEWER).encode());
+                serviceNode.set("analysis", analysisNode(EvidenceAnalyzer.analyzeLogs(page.text())));
+                results.set(result.service(), serviceNode);
+            }
+
+            if (merged) {
+                LogBatchReader.MergedLogs timeline = LogBatchReader.merge(pages);
+                response.put("logs", timeline.text());
+                response.put("linesReturned", timeline.lineCount());
+                response.set("linesPerService", mapper.valueToTree(linesPerService));
+                if (timeline.firstTimestamp() != LogTimestamps.NONE) {
+                    response.put("firstSeen", Instant.ofEpochMilli(timeline.firstTimestamp()).toString());
+                    response.put("lastSeen", Instant.ofEpochMilli(timeline.lastTimestamp()).toString());
+                }
+                response.set("analysis", analysisNode(EvidenceAnalyzer.analyzeLogs(timeline.text())));
+            } else {
+                response.set("results", results);
+            }
+            if (!errors.isEmpty()) {
+                response.set("errors", errors);
+            }
+
+            logger.debug("📚 fetch_logs_batch completed - Services: {}, Failed: {}, Read time: {}ms",
+                serviceNames.size(), errors.size(), readMillis);
+
+            String jsonResponse = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(response);
+
+            // Log the successful response
+            McpLogger.logToolResponse("fetch_logs_batch", jsonResponse, true);
+
+            return jsonResponse;
+
+        } catch (Exception e) {
+            logger.error("📚 Error in fetch_logs_batch", e);
+            McpLogger.logError("fetch_logs_batch", e);
+            try {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", "Failed to fetch logs: " + e.getMessage());
+                errorResponse.put("services", services);
+                String response = mapper.writeValueAsString(errorResponse);
+
+                McpLogger.logToolResponse("fetch_logs_batch", response, false);
+                return response;
+            } catch (Exception jsonError) {
+                String fallbackResponse = String.format("{\"error\":\"Failed to fetch logs: %s\"}", e.getMessage());
+                McpLogger.logToolResponse("fetch_logs_batch", fallbackResponse, false);
+                return fallbackResponse;
+            }
+        }
+    }
+
+    @McpTool(
+        name = "follow_logs",
+        description = "Follow a triage system service's log live during an ongoing incident. Call without a cursor to start following from the current end of the log, then call again with the returned followCursor to receive only the lines appended since the previous call, together with an analysis of just those new lines. Each call waits up to waitSeconds for new lines before returning. A newerCursor from fetch_logs can also be used as the cursor.",
+        annotations = {
+            ToolAnnotation.ReadOnly,
+            ToolAnnotation.NonDestructive,
+            ToolAnnotation.ClosedWorld
+        }
+    )
+    public String followLogs(
+            @Description("Service name to follow (e.g., payment-service)") String service,
+            @Description("Optional followCursor from the previous follow_logs call (or newerCursor from fetch_logs). Omit to start following from now.") String cursor,
+            @Description("Maximum number of new lines to return (default: 200)") int lines,
+            @Description("Seconds to wait for new lines before returning an empty update (0-30)") int waitSeconds,
+            @Description("Optional comma-separated log levels to include (e.g., ERROR,WARN). Omit to include all levels.") String levels
+    ) {
+        // Log the incoming MCP tool call
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        arguments.put("service", service);
+        arguments.put("cursor", cursor);
+        arguments.put("lines", lines);
+        arguments.put("waitSeconds", waitSeconds);
+        arguments.put("levels", levels);
+        McpLogger.logToolCall("follow_logs", arguments);
+
+        logger.info("👀 MCP Tool: follow_logs called - Service: {}, Cursor: {}, Lines: {}, Wait: {}s, Levels: {}",
+            service, cursor, lines, waitSeconds, levels);
+
+        try (LogFile logFile = LogSources.shared().open(service)) {
+
+            if (logFile == null) {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", String.format("No log file found for service: %s", service));
+                errorResponse.put("service", service);
+                String response = mapper.writeValueAsString(errorResponse);
+
+                McpLogger.logToolResponse("follow_logs", response, false);
+                return response;
+            }
+
+            int levelMask = LogLevel.parseMask(levels);
+            int maxLines = lines > 0 ? lines : 200;
+            int wait = Math.max(0, Math.min(MAX_FOLLOW_WAIT_SECONDS, waitSeconds));
+            LogFollower follower = LogFollower.of(logFile);
+
+            long offset;
+            if (cursor == null || cursor.isBlank()) {
+                offset = follower.position();
+            } else {
+                LogCursor position = LogCursor.decode(cursor);
+                if (!position.isValidFor(logFile, logFile.size())) {
+                    ObjectNode errorResponse = mapper.createObjectNode();
+                    errorResponse.put("error", String.format(
+                        "Cursor is no longer valid for service: %s (log was rotated or replaced). Follow without a cursor to start again.",
+                        service));
+                    errorResponse.put("service", service);
+                    String response = mapper.writeValueAsString(errorResponse);
+
+                    McpLogger.logToolResponse("follow_logs", response, false);
+                    return response;
+                }
+                offset = position.offset();
+            }
+
+            // Level filtering happens after reading so the cursor still moves past skipped lines
+            LogFollower.Update update = follower.await(offset, maxLines, wait * 1000L, levelMask);
+            String newLogs = update.page().text();
+            int newLines = update.page().lineCount();
+
+            ObjectNode response = mapper.createObjectNode();
+            response.put("logs", newLogs);
+            response.put("source", LogSources.shared().name());
+            response.put("service", service);
+            response.put("linesReturned", newLines);
+            response.put("moreAvailable", update.moreAvailable());
+            if (levelMask != 0) {
+                response.set("levels", mapper.valueToTree(LogLevel.names(levelMask)));
+            }
+            response.put("followCursor",
+                new LogCursor(logFile.id(), update.page().endOffset(), LogCursor.Direction.NEWER).encode());
+
+            // Analysis of the new lines only, so successive calls report deltas
+            response.set("analysis", analysisNode(EvidenceAnalyzer.analyzeLogs(newLogs)));
+
+            logger.debug("👀 follow_logs completed - New lines: {}, Offset: {} -> {}",
+                newLines, offset, update.page().endOffset());
+
+            String jsonResponse = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(response);
+
+            // Log the successful response
+            McpLogger.logToolResponse("follow_logs", jsonResponse, true);
+
+            return jsonResponse;
+
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.error("👀 Error in follow_logs", e);
+            McpLogger.logError("follow_logs", e);
+            try {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", "Failed to follow logs: " + e.getMessage());
+                errorResponse.put("service", service);
+                String response = mapper.writeValueAsString(errorResponse);
+
+                McpLogger.logToolResponse("follow_logs", response, false);
+                return response;
+            } catch (Exception jsonError) {
+                String fallbackResponse = String.format("{\"error\":\"Failed to follow logs: %s\"}", e.getMessage());
+                McpLogger.logToolResponse("follow_logs", fallbackResponse, false);
+                return fallbackResponse;
+            }
+        }
+    }
+
+    @McpTool(
+        name = "mine_log_templates",
+        description = "Summarize a triage system service's log as message templates with counts, e.g. \"Payment gateway timeout after <*>\" x 42. Variable parts such as IDs, numbers, durations and IP addresses are replaced by <*>, so repeated errors collapse into one signature. Use this to find the dominant error signatures in an incident window without reading every line; combine with levels=ERROR to mine only errors.",
+        annotations = {
+            ToolAnnotation.ReadOnly,
+            ToolAnnotation.NonDestructive,
+            ToolAnnotation.Idempotent,
+            ToolAnnotation.ClosedWorld
+        }
+    )
+    public String mineLogTemplates(
+            @Description("Service name to mine (e.g., payment-service)") String service,
+            @Description("Number of most recent log lines to mine (default: 2000)") int lines,
+            @Description("Optional start of the time window, inclusive (e.g., 2025-01-15T14:25:00Z or 14:25Z)") String since,
+            @Description("Optional end of the time window, exclusive (e.g., 2025-01-15T14:36:00Z or 14:36Z)") String until,
+            @Description("Optional comma-separated log levels to include (e.g., ERROR,WARN). Omit to include all levels.") String levels
+    ) {
+        // Log the incoming MCP tool call
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        arguments.put("service", service);
+        arguments.put("lines", lines);
+        arguments.put("since", since);
+        arguments.put("until", until);
+        arguments.put("levels", levels);
+        McpLogger.logToolCall("mine_log_templates", arguments);
+
+        logger.info("🧩 MCP Tool: mine_log_templates called - Service: {}, Lines: {}, Since: {}, Until: {}, Levels: {}",
+            service, lines, since, until, levels);
+
+        try (LogFile logFile = LogSources.shared().open(service)) {
+
+            if (logFile == null) {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", String.format("No log file found for service: %s", service));
+                errorResponse.put("service", service);
+                String response = mapper.writeValueAsString(errorResponse);
+
+                McpLogger.logToolResponse("mine_log_templates", response, false);
+                return response;
+            }
+
+            LogWindow window = LogWindow.resolve(logFile, since, until);
+            int levelMask = LogLevel.parseMask(levels);
+            int maxLines = lines > 0 ? lines : 2000;
+            LogPageReader.Page page = LogPageReader.read(
+                logFile, window, window.endOffset(), LogCursor.Direction.OLDER, maxLines, levelMask);
+
+            // Mine the page line by line in place
+            String text = page.text();
+            LogTemplateMiner miner = new LogTemplateMiner();
+            int lineStart = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') {
+                    miner.add(text, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < text.length()) {
+                miner.add(text, lineStart, text.length());
+            }
+
+            ObjectNode response = mapper.createObjectNode();
+            response.put("source", LogSources.shared().name());
+            response.put("service", service);
+            response.put("linesAnalyzed", page.lineCount());
+            response.put("truncated", page.truncated());
+            if (window.isBounded()) {
+                ObjectNode windowNode = mapper.createObjectNode();
+                windowNode.put("since", window.sinceMillis() != null ? Instant.ofEpochMilli(window.sinceMillis()).toString() : null);
+                windowNode.put("until", window.untilMillis() != null ? Instant.ofEpochMilli(window.untilMillis()).toString() : null);
+                response.set("window", windowNode);
+            }
+            if (levelMask != 0) {
+                response.set("levels", mapper.valueToTree(LogLevel.names(levelMask)));
+            }
+            response.put("distinctTemplates", miner.size());
+            response.put("approximate", miner.isApproximate());
+            response.set("templates", mapper.valueToTree(miner.top(LogTemplateMiner.MAX_TEMPLATES)));
+
+            logger.debug("🧩 mine_log_templates completed - Lines: {}, Templates: {}",
+                page.lineCount(), miner.size());
+
+            String jsonResponse = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(response);
+
+            // Log the successful response
+            McpLogger.logToolResponse("mine_log_templates", jsonResponse, true);
+
+            return jsonResponse;
+
+        } catch (Exception e) {
+            logger.error("🧩 Error in mine_log_templates", e);
+            McpLogger.logError("mine_log_templates", e);
+            try {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", "Failed to mine log templates: " + e.getMessage());
+                errorResponse.put("service", service);
+                String response = mapper.writeValueAsString(errorResponse);
+
+                McpLogger.logToolResponse("mine_log_templates", response, false);
+                return response;
+            } catch (Exception jsonError) {
+                String fallbackResponse = String.format("{\"error\":\"Failed to mine log templates: %s\"}", e.getMessage());
+                McpLogger.logToolResponse("mine_log_templates", fallbackResponse, false);
+                return fallbackResponse;
+            }
+        }
+    }
+
+    /**
+     * Builds the JSON form of a log analysis shared by the log tools.
+     */
+    private static ObjectNode analysisNode(LogAnalysis analysis) {
+        ObjectNode analysisNode = mapper.createObjectNode();
+        analysisNode.put("errorCount", analysis.errorCount());
+        analysisNode.set("errorPatterns", mapper.valueToTree(analysis.errorPatterns()));
+        analysisNode.set("httpStatusCounts", mapper.valueToTree(analysis.statusCodeCounts()));
+        analysisNode.set("anomalies", mapper.valueToTree(analysis.anomalies()));
+        analysisNode.set("sampleErrorLines", mapper.valueToTree(analysis.sampleErrorLines()));
+        analysisNode.set("errorTemplates", mapper.valueToTree(analysis.errorTemplates()));
+        analysisNode.set("errorSeries", mapper.valueToTree(analysis.errorSeries()));
+        analysisNode.set("errorBursts", mapper.valueToTree(analysis.errorBursts()));
+        analysisNode.set("matchedRules", mapper.valueToTree(analysis.matchedRules()));
+        return analysisNode;
+    }
+
+    @McpTool(
+        name = "fetch_request_trace",
+        description = "Fetch every log line for a single request ID (e.g., req-12345) across all triage system services, merged in timestamp order. Use this to follow one request through payment-service, checkout-service, api-gateway and others in a single call instead of fetching and searching each service's logs.",
+        annotations = {
+            ToolAnnotation.ReadOnly,
+            ToolAnnotation.NonDestructive,
+            ToolAnnotation.Idempotent,
+            ToolAnnotation.ClosedWorld
+        }
+    )
+    public String fetchRequestTrace(
+            @Description("Request ID as it appears in the logs (e.g., req-12345 or [req-12345])") String requestId
+    ) {
+        // Log the incoming MCP tool call
+        McpLogger.logToolCall("fetch_request_trace", Map.of(
+            "requestId", requestId
+        ));
+
+        logger.info("🧵 MCP Tool: fetch_request_trace called - RequestId: {}", requestId);
+
+        try {
+            LogSource logSource = LogSources.shared();
+            List<RequestTracer.TraceLine> trace = RequestTracer.trace(logSource, requestId);
+
+            StringBuilder logs = new StringBuilder();
+            Map<String, Integer> linesPerService = new LinkedHashMap<>();
+            Map<LogLevel, Integer> linesPerLevel = new EnumMap<>(LogLevel.class);
+            for (RequestTracer.TraceLine line : trace) {
+                logs.append(line.line()).append("\n");
+                linesPerService.merge(line.service(), 1, Integer::sum);
+                linesPerLevel.merge(line.level(), 1, Integer::sum);
+            }
+
+            ObjectNode response = mapper.createObjectNode();
+            response.put("requestId", RequestIdIndex.normalize(requestId));
+            response.put("logs", logs.toString());
+            response.put("source", logSource.name());
+            response.put("linesReturned", trace.size());
+            response.set("services", mapper.valueToTree(linesPerService));
+            response.set("levels", mapper.valueToTree(linesPerLevel));
+
+            if (!trace.isEmpty()) {
+                long first = trace.get(0).timestamp();
+                long last = trace.get(trace.size() - 1).timestamp();
+                if (first != LogTimestamps.NONE) {
+                    response.put("firstSeen", Instant.ofEpochMilli(first).toString());
+                    response.put("lastSeen", Instant.ofEpochMilli(last).toString());
+                    response.put("durationMs", last - first);
+                }
+            }
+
+            logger.debug("🧵 fetch_request_trace completed - Lines: {}, Services: {}",
+                trace.size(), linesPerService.keySet());
+
+            String jsonResponse = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(response);
+
+            // Log the successful response
+            McpLogger.logToolResponse("fetch_request_trace", jsonResponse, true);
+
+            return jsonResponse;
+
+        } catch (Exception e) {
+            logger.error("🧵 Error in fetch_request_trace", e);
+            McpLogger.logError("fetch_request_trace", e);
+            try {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", "Failed to fetch request trace: " + e.getMessage());
+                errorResponse.put("requestId", requestId);
+                String response = mapper.writeValueAsString(errorResponse);
+
+                McpLogger.logToolResponse("fetch_request_trace", response, false);
+                return response;
+            } catch (Exception jsonError) {
+                String fallbackResponse = String.format("{\"error\":\"Failed to fetch request trace: %s\"}", e.getMessage());
+                McpLogger.logToolResponse("fetch_request_trace", fallbackResponse, false);
+                return fallbackResponse;
+            }
+        }
+    }
+
     // ==================== METRICS TOOLS ====================
     // Tools for querying and analyzing performance metrics
 
@@ -225,7 +764,7 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
     )
     public String queryMetrics(
             @Description("Metrics expression to query (e.g., error_rate, latency, cpu_usage)") String expr,
-            @Description("Time range for the query (e.g., 1h, 30m, 5m)") String range
+            @Description("Time range for the query, ending at the newest data (e.g., 1h, 30m, 5m); long ranges are downsampled") String range
     ) {
         // Log the incoming MCP tool call
         McpLogger.logToolCall("query_metrics", Map.of(
@@ -236,12 +775,24 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
         logger.info("📊 MCP Tool: query_metrics called - Expr: {}, Range: {}", expr, range);
 
         try {
-            String fileName = EvidenceAnalyzer.determineMetricsFile(expr);
-            InputStream inputStream = getClass().getClassLoader().getResourceAsStream(fileName);
+            QueryPlan plan;
+            try {
+                plan = MetricsQuery.compile(expr);
+            } catch (IllegalArgumentException e) {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", e.getMessage());
+                errorResponse.put("expr", expr);
+                errorResponse.put("range", range);
+                String response = mapper.writeValueAsString(errorResponse);
 
-            if (inputStream == null) {
+                // Log the error response
+                McpLogger.logToolResponse("query_metrics", response, false);
+                return response;
+            }
+            long rangeMillis = MetricsQuery.parseDuration(range);
+            if (rangeMillis == 0 && range != null && !range.isBlank()) {
                 ObjectNode errorResponse = mapper.createObjectNode();
-                errorResponse.put("error", String.format("No metrics file found for query: %s", expr));
+                errorResponse.put("error", String.format("Invalid range: %s (expected e.g. 30s, 5m, 1h, 2d)", range));
                 errorResponse.put("expr", expr);
                 errorResponse.put("range", range);
                 String response = mapper.writeValueAsString(errorResponse);
@@ -251,23 +802,55 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
                 return response;
             }
 
-            String metricsJson = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-            JsonNode metricsData = mapper.readTree(metricsJson);
+            // The range ends at the newest point selected; long ranges read coarser rollups
+            MetricsStore store = MetricsStore.shared();
+            long newest = plan.newest(store);
+            long to = rangeMillis > 0 ? newest : Long.MAX_VALUE;
+            long from = rangeMillis > 0 && to != Long.MIN_VALUE ? to - rangeMillis + 1 : Long.MIN_VALUE;
+            // Without a range everything retained is read, at the resolution its span needs
+            long span = rangeMillis > 0 || newest == Long.MIN_VALUE ? rangeMillis : newest - plan.oldest(store) + 1;
+            long resolution = TimeSeries.resolutionFor(span, MAX_SERIES_POINTS);
+            List<ResultSeries> series = plan.execute(store, from, to, resolution);
+
+            // The snapshot most selected series come from, parsed once and cached
+            String source = plan.primarySource(store);
+            MetricsSnapshot snapshot = source == null ? null : MetricsSnapshots.shared().get(source);
+
+            if (snapshot == null && series.isEmpty()) {
+                ObjectNode errorResponse = mapper.createObjectNode();
+                errorResponse.put("error", String.format("No metrics file found for query: %s", expr));
+                errorResponse.put("expr", expr);
+                errorResponse.put("range", range);
+                String response = mapper.writeValueAsString(errorResponse);
 
-            // Parse and format metrics using shared analyzer
-            String formattedMetrics = EvidenceAnalyzer.formatMetricsOutput(metricsData, expr, range);
-            List<String> insights = EvidenceAnalyzer.analyzeMetrics(metricsJson, expr);
+                // Log the error response
+                McpLogger.logToolResponse("query_metrics", response, false);
+                return response;
+            }
 
             // Build structured response
             ObjectNode response = mapper.createObjectNode();
-            response.put("raw", metricsJson);
-            response.put("formatted", formattedMetrics);
-            response.put("source", "classpath");
+            List<String> insights = List.of();
+            if (snapshot != null) {
+                // Format metrics using shared analyzer
+                String formattedMetrics = EvidenceAnalyzer.formatMetricsOutput(snapshot, expr, range);
+                insights = EvidenceAnalyzer.analyzeMetrics(snapshot, expr);
+
+                response.put("raw", snapshot.raw());
+                response.put("formatted", formattedMetrics);
+                response.put("source", snapshot.origin());
+            } else {
+                // Only stored series match, e.g. those loaded from .prom files
+                response.put("source", "store");
+            }
             response.put("expr", expr);
             response.put("range", range);
             response.set("insights", mapper.valueToTree(insights));
+            response.put("resolution", resolution == 0 ? "raw"
+                : resolution % 3_600_000 == 0 ? resolution / 3_600_000 + "h" : resolution / 60_000 + "m");
+            response.set("series", seriesNode(series));
 
-            logger.debug("📊 query_metrics completed - Insights: {}", insights.size());
+            logger.debug("📊 query_metrics completed - Insights: {}, Series: {}", insights.size(), series.size());
 
             String jsonResponse = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(response);
 
@@ -297,6 +880,29 @@ public class EvidenceToolsEndpoint extends AbstractMcpEndpoint {
         }
     }
 
+    /**
+     * Builds the JSON form of query results: each series with its name, labels and newest
+     * points as [ISO timestamp, value] pairs.
+     */
+    private static ArrayNode seriesNode(List<ResultSeries> series) {
+        ArrayNode seriesArray = mapper.createArrayNode();
+        for (ResultSeries result : series) {
+            ObjectNode seriesNode = mapper.createObjectNode();
+            if (result.name() != null) {
+                seriesNode.put("name", result.name());
+            }
+            seriesNode.set("labels", mapper.valueToTree(result.labels()));
+            ArrayNode points = seriesNode.putArray("points");
+            for (int i = Math.max(0, result.size() - MAX_SERIES_POINTS); i < result.size(); i++) {
+                points.addArray()
+                    .add(Instant.ofEpochMilli(result.timestamps()[i]).toString())
+                    .add(result.values()[i]);
+            }
+            seriesArray.add(seriesNode);
+        }
+        return seriesArray;
+    }
+
     // ==================== KNOWLEDGE BASE TOOLS ====================
     // Tools for accessing service catalog and runbooks
 
@@ -0,0 +1,301 @@
+package com.pradeepl.evidence.logs;
+
+import com.pradeepl.evidence.util.ErrorRuleSet;
+import com.pradeepl.evidence.util.ErrorRules;
+import com.pradeepl.evidence.util.LogAnalysisAccumulator;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Per-file cache of log analysis results that grows with the log.
+ *
+ * The log is divided into line-aligned blocks on a {@link #BLOCK_SIZE} grid: block k holds the
+ * lines starting between the first line boundaries at or after {@code k * BLOCK_SIZE} and
+ * {@code (k + 1) * BLOCK_SIZE}. A block is analyzed into a {@link LogAnalysisAccumulator} the
+ * first time a request covers it and kept, since appends never change complete lines; the
+ * uncached blocks of a request are analyzed in parallel on the common fork-join pool. The
+ * analysis of a line range is assembled by merging the summaries of the blocks it covers and
+ * scanning only the partial blocks at its ends, so repeated analyses of a growing log cost
+ * O(new data) instead of a rescan of the whole range. Cached blocks are dropped when the error
+ * rules are reloaded, since they were classified with the old rules.
+ *
+ * At most {@code evidence.analysis.cached-blocks} blocks are kept per file, least recently used
+ * first out, so the cache of a large log stays bounded; an evicted block is rescanned when a
+ * request covers it again. The O(new data) cost therefore only holds for ranges that fit in the
+ * cache (16 MB with the default 256 blocks): a range larger than that evicts its own first
+ * blocks before it is done, so every analysis of it rescans the whole range.
+ */
+public final class AnalysisIndex {
+
+    /** Grid spacing of analyzed blocks. */
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    /** Blocks kept per file when not configured: the analysis of the last 16 MB of a log. */
+    static final int DEFAULT_CACHED_BLOCKS = 256;
+
+    private static volatile int sharedCachedBlocks;
+
+    private final LogFile file;
+    /** boundaries[k] is the first line start at or after k * BLOCK_SIZE, 0 if not yet known. */
+    private long[] boundaries = new long[16];
+    /** Analyzed blocks by number, in access order. */
+    private final LinkedHashMap<Integer, LogAnalysisAccumulator> blocks;
+    /** Highest boundary found so far, used to detect truncation. */
+    private long highestBoundary;
+    /** Error rules the cached blocks were analyzed with. */
+    private ErrorRuleSet rules;
+    /** Incremented whenever the cache is cleared, so scans started before are not kept. */
+    private long generation;
+
+    AnalysisIndex(LogFile file, int maxCachedBlocks) {
+        if (maxCachedBlocks < 1) {
+            throw new IllegalArgumentException("maxCachedBlocks must be positive: " + maxCachedBlocks);
+        }
+        this.file = file;
+        this.blocks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, LogAnalysisAccumulator> eldest) {
+                return size() > maxCachedBlocks;
+            }
+        };
+    }
+
+    /**
+     * @return The index attached to a log file, created on first use
+     */
+    public static AnalysisIndex of(LogFile file) {
+        return file.index(AnalysisIndex.class, f -> new AnalysisIndex(f, sharedCachedBlocks()));
+    }
+
+    /**
+     * @return The configured number of blocks kept per file, read on first use
+     */
+    private static int sharedCachedBlocks() {
+        int cachedBlocks = sharedCachedBlocks;
+        if (cachedBlocks == 0) {
+            synchronized (AnalysisIndex.class) {
+                cachedBlocks = sharedCachedBlocks;
+                if (cachedBlocks == 0) {
+                    cachedBlocks = cachedBlocksFromConfig(ConfigFactory.load());
+                    sharedCachedBlocks = cachedBlocks;
+                }
+            }
+        }
+        return cachedBlocks;
+    }
+
+    /**
+     * Reads the number of blocks kept per file, using the default when missing.
+     */
+    static int cachedBlocksFromConfig(Config config) {
+        String path = "evidence.analysis.cached-blocks";
+        return config.hasPath(path) ? config.getInt(path) : DEFAULT_CACHED_BLOCKS;
+    }
+
+    /**
+     * @return Number of analyzed blocks currently cached
+     */
+    synchronized int cachedBlocks() {
+        return blocks.size();
+    }
+
+    /**
+     * Returns the analysis of the lines in [start, end). {@code start} must be a line
+     * boundary; {@code end} a line boundary or the end of the log.
+     *
+     * The index is locked only to look up and record boundaries and blocks; the log is read
+     * and scanned outside the lock, so concurrent analyses of one file do not wait on each
+     * other's I/O.
+     *
+     * @return A new accumulator the caller may modify
+     */
+    public LogAnalysisAccumulator analyze(long start, long end) throws IOException {
+        ErrorRuleSet current = ErrorRules.shared().current();
+        long generation;
+        synchronized (this) {
+            if (current != rules) {
+                clear();
+                rules = current;
+            }
+            if (end - start > 2L * BLOCK_SIZE && file.size() < highestBoundary) {
+                // Truncated in place: cached blocks no longer describe the file
+                clear();
+            }
+            generation = this.generation;
+        }
+        LogAnalysisAccumulator result = new LogAnalysisAccumulator(current);
+        if (end - start <= 2L * BLOCK_SIZE) {
+            // Too small to cover a whole block
+            return scan(result, current, start, end);
+        }
+
+        int first = (int) (start / BLOCK_SIZE);
+        long firstBoundary = boundary(first, end, generation);
+        if (firstBoundary >= 0 && firstBoundary < start) {
+            firstBoundary = boundary(++first, end, generation);
+        }
+        if (firstBoundary < 0) {
+            return scan(result, current, start, end);
+        }
+
+        scan(result, current, start, firstBoundary);
+        // blockBounds[i] and blockBounds[i + 1] delimit block first + i
+        long[] blockBounds = new long[16];
+        blockBounds[0] = firstBoundary;
+        int count = 0;
+        while (true) {
+            long blockEnd = boundary(first + count + 1, end, generation);
+            if (blockEnd < 0) {
+                break;
+            }
+            if (++count == blockBounds.length) {
+                blockBounds = Arrays.copyOf(blockBounds, count * 2);
+            }
+            blockBounds[count] = blockEnd;
+        }
+
+        LogAnalysisAccumulator[] analyses = new LogAnalysisAccumulator[count];
+        boolean missing = false;
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                analyses[i] = blocks.get(first + i);
+                missing |= analyses[i] == null;
+            }
+        }
+        if (missing) {
+            try {
+                ForkJoinPool.commonPool().invoke(
+                    new BlockTask(current, generation, first, blockBounds, analyses, 0, count));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        for (LogAnalysisAccumulator analysis : analyses) {
+            result.merge(analysis);
+        }
+        return scan(result, current, blockBounds[count], end);
+    }
+
+    /**
+     * Drops all cached boundaries and blocks. Called with the lock held.
+     */
+    private void clear() {
+        Arrays.fill(boundaries, 0);
+        blocks.clear();
+        highestBoundary = 0;
+        generation++;
+    }
+
+    /**
+     * @return The first line start at or after {@code k * BLOCK_SIZE}, or -1 if there is none
+     *         before {@code limit}
+     */
+    private long boundary(int k, long limit, long generation) throws IOException {
+        if (k == 0) {
+            return 0;
+        }
+        synchronized (this) {
+            if (k < boundaries.length && boundaries[k] > 0) {
+                return boundaries[k] < limit ? boundaries[k] : -1;
+            }
+        }
+        long grid = (long) k * BLOCK_SIZE;
+        if (grid >= limit) {
+            return -1;
+        }
+        long boundary = LogPageReader.findLineStartForwards(file, grid, limit);
+        if (boundary >= limit) {
+            // No newline before the limit yet, so the boundary is not final
+            return -1;
+        }
+        synchronized (this) {
+            if (generation == this.generation) {
+                if (k >= boundaries.length) {
+                    int capacity = Math.max(k + 1, boundaries.length * 2);
+                    boundaries = Arrays.copyOf(boundaries, capacity);
+                }
+                boundaries[k] = boundary;
+                highestBoundary = Math.max(highestBoundary, boundary);
+            }
+        }
+        return boundary;
+    }
+
+    /**
+     * Scans a block that was not cached and keeps it, unless the rules changed or the log was
+     * truncated while it was scanned.
+     */
+    private LogAnalysisAccumulator analyzeBlock(int k, long start, long end, ErrorRuleSet rules, long generation)
+            throws IOException {
+        LogAnalysisAccumulator analysis = scan(new LogAnalysisAccumulator(rules), rules, start, end);
+        synchronized (this) {
+            if (generation == this.generation) {
+                blocks.put(k, analysis);
+            }
+        }
+        return analysis;
+    }
+
+    /**
+     * Analyzes the uncached blocks among analyses[from, to) on the common {@link ForkJoinPool},
+     * recursively halving the range until one block is left. Results are stored in place, so
+     * the caller merges them in file order.
+     */
+    private final class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ErrorRuleSet rules;
+        private final long generation;
+        private final int first;
+        private final long[] blockBounds;
+        private final transient LogAnalysisAccumulator[] analyses;
+        private final int from;
+        private final int to;
+
+        BlockTask(ErrorRuleSet rules, long generation, int first, long[] blockBounds,
+                  LogAnalysisAccumulator[] analyses, int from, int to) {
+            this.rules = rules;
+            this.generation = generation;
+            this.first = first;
+            this.blockBounds = blockBounds;
+            this.analyses = analyses;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (analyses[from] == null) {
+                    try {
+                        analyses[from] = analyzeBlock(first + from, blockBounds[from], blockBounds[from + 1],
+                            rules, generation);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return;
+            }
+            int split = from + (to - from) / 2;
+            invokeAll(new BlockTask(rules, generation, first, blockBounds, analyses, from, split),
+                new BlockTask(rules, generation, first, blockBounds, analyses, split, to));
+        }
+    }
+
+    private LogAnalysisAccumulator scan(LogAnalysisAccumulator into, ErrorRuleSet rules, long start, long end)
+            throws IOException {
+        if (start < end) {
+            byte[] bytes = file.readRange(start, end);
+            into.merge(new LogAnalysisAccumulator(rules).accept(bytes, 0, bytes.length));
+        }
+        return into;
+    }
+}
@@ -0,0 +1,100 @@
+package com.pradeepl.evidence.logs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the demonstration logs bundled under logs/ on the classpath.
+ */
+public final class ClasspathLogSource implements LogSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClasspathLogSource.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final ClassLoader classLoader;
+    private final ConcurrentHashMap<String, LogFile> openFiles = new ConcurrentHashMap<>();
+
+    public ClasspathLogSource(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public String name() {
+        return "classpath";
+    }
+
+    @Override
+    public LogFile open(String service) throws IOException {
+        if (!LogSource.isValidServiceName(service)) {
+            return null;
+        }
+
+        while (true) {
+            LogFile cached = openFiles.get(service);
+            if (cached == null) {
+                LogFile logFile = LogFile.openResource(classLoader, resourceName(service));
+                if (logFile == null) {
+                    return null;
+                }
+                cached = openFiles.putIfAbsent(service, logFile);
+                if (cached == null) {
+                    cached = logFile;
+                } else {
+                    logFile.close();
+                }
+            }
+            // The cache keeps its own reference; the caller gets another
+            if (cached.retain()) {
+                return cached;
+            }
+            // Released by close() meanwhile
+            openFiles.remove(service, cached);
+        }
+    }
+
+    /**
+     * Resources cannot be listed portably, so candidates come from the service catalog
+     * and are kept only if a bundled log exists for them.
+     */
+    @Override
+    public Set<String> services() {
+        Set<String> services = new TreeSet<>();
+        try (InputStream in = classLoader.getResourceAsStream("services.json")) {
+            if (in == null) {
+                return services;
+            }
+            JsonNode catalog = mapper.readTree(in).get("services");
+            if (catalog != null && catalog.isArray()) {
+                catalog.forEach(service -> {
+                    if (classLoader.getResource(resourceName(service.asText())) != null) {
+                        services.add(service.asText());
+                    }
+                });
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read service catalog: {}", e.getMessage());
+        }
+        return services;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (LogFile logFile : openFiles.values()) {
+            logFile.close();
+        }
+        openFiles.clear();
+    }
+
+    private static String resourceName(String service) {
+        return String.format("logs/%s.log", service);
+    }
+}
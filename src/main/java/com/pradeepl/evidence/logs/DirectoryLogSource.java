@@ -0,0 +1,405 @@
+package com.pradeepl.evidence.logs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Serves {@code <service>.log} files from a directory on the local filesystem.
+ *
+ * A background {@link WatchService} keeps the set of known services current as files appear
+ * and disappear. Opened files stay open between calls and their size is cached, refreshed
+ * by modify events and at most {@code maxSizeStalenessMillis} old, so repeated tool calls
+ * neither re-open nor re-stat the file.
+ *
+ * Rotated segments next to the active file ({@code <service>.log.1},
+ * {@code <service>.log.2.gz}, ...; higher numbers are older) are served together with it as
+ * one continuous log. Gzip segments are read through a block index (see {@link GzipLogFile}).
+ */
+public final class DirectoryLogSource implements LogSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryLogSource.class);
+    private static final String LOG_SUFFIX = ".log";
+    private static final Pattern LOG_FILE = Pattern.compile("(.+)\\.log(?:\\.(\\d+))?(\\.gz|\\.zst)?");
+
+    /** Where block-indexed copies of gzip segments are kept unless configured otherwise. */
+    public static final Path DEFAULT_BLOCK_CACHE_DIRECTORY =
+        Path.of(System.getProperty("java.io.tmpdir"), "evidence-log-blocks");
+
+    private final Path directory;
+    private final long maxSizeStalenessMillis;
+    private final Path blockCacheDirectory;
+    private final Set<String> services = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, OpenLog> openFiles = new ConcurrentHashMap<>();
+    /** Logs being opened, so an eviction meanwhile is not lost. */
+    private final ConcurrentHashMap<String, CompletableFuture<OpenLog>> opening = new ConcurrentHashMap<>();
+    private final WatchService watchService;
+
+    /**
+     * @param directory Directory containing the service logs
+     * @param maxSizeStalenessMillis Upper bound on how old a cached file size may be
+     */
+    public DirectoryLogSource(Path directory, long maxSizeStalenessMillis) throws IOException {
+        this(directory, maxSizeStalenessMillis, DEFAULT_BLOCK_CACHE_DIRECTORY);
+    }
+
+    /**
+     * @param directory Directory containing the service logs
+     * @param maxSizeStalenessMillis Upper bound on how old a cached file size may be
+     * @param blockCacheDirectory Where block-indexed copies of compressed segments are kept
+     */
+    public DirectoryLogSource(Path directory, long maxSizeStalenessMillis, Path blockCacheDirectory) throws IOException {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.maxSizeStalenessMillis = maxSizeStalenessMillis;
+        this.blockCacheDirectory = blockCacheDirectory;
+
+        if (!Files.isDirectory(this.directory)) {
+            throw new IOException("Log directory does not exist: " + this.directory);
+        }
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        rescan();
+
+        Thread.ofPlatform()
+            .daemon()
+            .name("log-directory-watcher")
+            .start(this::watchLoop);
+
+        logger.info("📂 Serving logs from {} ({} services)", this.directory, services.size());
+    }
+
+    @Override
+    public String name() {
+        return "directory";
+    }
+
+    @Override
+    public LogFile open(String service) throws IOException {
+        if (!LogSource.isValidServiceName(service)) {
+            return null;
+        }
+
+        while (true) {
+            OpenLog log = openFiles.get(service);
+            if (log == null) {
+                Path path = directory.resolve(service + LOG_SUFFIX);
+                if (!Files.isRegularFile(path)) {
+                    return null;
+                }
+                log = openShared(service, path);
+                if (log == null) {
+                    // Evicted while opening: open the current files
+                    continue;
+                }
+            } else if (log.active().truncated()) {
+                // Truncated in place (e.g. copytruncate): its indexes describe bytes that are gone
+                evict(service);
+                continue;
+            }
+            // The cache keeps its own reference; the caller gets another
+            if (log.file().retain()) {
+                return log.file();
+            }
+            // Evicted and released meanwhile
+            openFiles.remove(service, log);
+        }
+    }
+
+    /**
+     * Opens and caches a service's log. Opening can decompress whole gzip segments, so it runs
+     * outside the cache's locks; concurrent callers for the same service wait for one opening.
+     *
+     * @return The cached log, or null if the service was evicted while it was being opened
+     */
+    private OpenLog openShared(String service, Path path) throws IOException {
+        CompletableFuture<OpenLog> pending = new CompletableFuture<>();
+        CompletableFuture<OpenLog> existing = opening.putIfAbsent(service, pending);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            OpenLog log = openWithSegments(service, path);
+            if (opening.remove(service, pending)) {
+                OpenLog cached = openFiles.putIfAbsent(service, log);
+                if (cached != null) {
+                    log.file().close();
+                    log = cached;
+                }
+            } else {
+                // The files changed while they were being opened
+                log.file().close();
+                log = null;
+            }
+            pending.complete(log);
+            return log;
+        } catch (IOException | RuntimeException e) {
+            opening.remove(service, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the active file together with any rotated segments, oldest first.
+     */
+    private OpenLog openWithSegments(String service, Path activePath) throws IOException {
+        List<Path> rotated = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, service + LOG_SUFFIX + ".*")) {
+            for (Path file : files) {
+                Matcher matcher = LOG_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches() || !matcher.group(1).equals(service) || matcher.group(2) == null) {
+                    continue;
+                }
+                if (".zst".equals(matcher.group(3))) {
+                    logger.warn("📂 Skipping zstd-compressed segment {} (only gzip is supported)", file);
+                    continue;
+                }
+                rotated.add(file);
+            }
+        }
+        rotated.sort(Comparator.comparingInt(DirectoryLogSource::rotationNumber).reversed());
+        GzipLogFile.removeStaleCaches(blockCacheDirectory, directory, service, rotated.stream()
+            .filter(segment -> segment.getFileName().toString().endsWith(".gz"))
+            .toList());
+
+        WatchedLogFile active = new WatchedLogFile(activePath);
+        if (rotated.isEmpty()) {
+            return new OpenLog(active, active);
+        }
+
+        List<LogFile> segments = new ArrayList<>();
+        try {
+            for (Path segment : rotated) {
+                segments.add(segment.getFileName().toString().endsWith(".gz")
+                    ? GzipLogFile.open(segment, blockCacheDirectory)
+                    : LogFile.open(segment));
+            }
+        } catch (IOException e) {
+            for (LogFile segment : segments) {
+                segment.close();
+            }
+            active.close();
+            throw e;
+        }
+        segments.add(active);
+        logger.info("📂 Serving {} with {} rotated segments", service, rotated.size());
+        return new OpenLog(new SegmentedLogFile(activePath.toString(), segments), active);
+    }
+
+    private static int rotationNumber(Path segment) {
+        Matcher matcher = LOG_FILE.matcher(segment.getFileName().toString());
+        return matcher.matches() && matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+    }
+
+    @Override
+    public Set<String> services() {
+        return new TreeSet<>(services);
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        for (String service : openFiles.keySet()) {
+            evict(service);
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        rescan();
+                        openFiles.values().forEach(open -> open.active().refreshSize());
+                        continue;
+                    }
+
+                    Matcher matcher = LOG_FILE.matcher(event.context().toString());
+                    if (!matcher.matches()) {
+                        continue;
+                    }
+                    String service = matcher.group(1);
+
+                    if (matcher.group(2) != null || matcher.group(3) != null) {
+                        // Rotated segments changed: offsets shift, so reopen the combined log
+                        if (event.kind() != ENTRY_MODIFY) {
+                            evict(service);
+                        }
+                    } else if (event.kind() == ENTRY_CREATE) {
+                        // A re-created file (e.g. after rotation) must not be served from the old handle
+                        evict(service);
+                        services.add(service);
+                        logger.info("📂 Discovered log for service: {}", service);
+                    } else if (event.kind() == ENTRY_DELETE) {
+                        evict(service);
+                        services.remove(service);
+                        logger.info("📂 Log removed for service: {}", service);
+                    } else if (event.kind() == ENTRY_MODIFY) {
+                        OpenLog cached = openFiles.get(service);
+                        if (cached != null) {
+                            cached.active().refreshSize();
+                            if (cached.active().truncated()) {
+                                evict(service);
+                                logger.info("📂 Log truncated for service: {}", service);
+                            }
+                        }
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warn("📂 Log directory {} is no longer accessible", directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Source closed
+        }
+    }
+
+    /**
+     * Rebuilds the set of services from the directory, dropping those whose file is gone.
+     */
+    private void rescan() {
+        Set<String> found = new HashSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + LOG_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                found.add(fileName.substring(0, fileName.length() - LOG_SUFFIX.length()));
+            }
+        } catch (IOException e) {
+            logger.warn("📂 Failed to scan log directory {}: {}", directory, e.getMessage());
+            return;
+        }
+        services.addAll(found);
+        for (String service : services) {
+            if (!found.contains(service)) {
+                services.remove(service);
+                evict(service);
+                logger.info("📂 Log removed for service: {}", service);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached log of a service. Tool calls still reading it keep their references, so
+     * the file is only closed once they are done.
+     */
+    private void evict(String service) {
+        opening.remove(service);
+        OpenLog removed = openFiles.remove(service);
+        if (removed != null) {
+            try {
+                removed.file().close();
+            } catch (IOException e) {
+                logger.debug("📂 Failed to close log for {}: {}", service, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A served log (possibly spanning rotated segments) and its active, growing file.
+     */
+    private record OpenLog(LogFile file, WatchedLogFile active) {}
+
+    /**
+     * Open log whose size is cached and refreshed by watch events.
+     */
+    private final class WatchedLogFile extends LogFile {
+
+        private final FileChannel channel;
+        private final String id;
+        private volatile long size;
+        private volatile long sizeCheckedAt;
+        private volatile boolean truncated;
+
+        WatchedLogFile(Path path) throws IOException {
+            super(path.toString());
+            this.id = LogFile.fileIdentity(path);
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            refreshSize();
+        }
+
+        @Override
+        public String id() {
+            return id;
+        }
+
+        void refreshSize() {
+            try {
+                long current = channel.size();
+                if (current < size) {
+                    truncated = true;
+                }
+                size = current;
+                sizeCheckedAt = System.currentTimeMillis();
+            } catch (IOException e) {
+                logger.debug("📂 Failed to stat {}: {}", name(), e.getMessage());
+            }
+        }
+
+        @Override
+        public long size() {
+            if (System.currentTimeMillis() - sizeCheckedAt > maxSizeStalenessMillis) {
+                refreshSize();
+            }
+            return size;
+        }
+
+        /**
+         * @return True once the file has been seen shorter than before, i.e. truncated in place
+         */
+        boolean truncated() {
+            size();
+            return truncated;
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        protected void release() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.pradeepl.evidence.logs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Random-access view over the uncompressed content of a gzip-compressed rotated log.
+ *
+ * A gzip stream written in one piece can only be decompressed from its start, so the first
+ * time a segment is opened it is re-blocked into a cache file made of independent gzip members
+ * of {@link #BLOCK_SIZE} uncompressed bytes each (still a valid gzip file), together with an
+ * index of where every member starts in compressed and uncompressed terms. Reads then
+ * decompress only the members they touch, and a few recently used members are kept in memory.
+ * Rotated segments never change, so the cache file and index are reused across restarts; the
+ * files of segments that were deleted or replaced are removed when their service's segments
+ * are opened again (see {@link #removeStaleCaches}).
+ */
+final class GzipLogFile extends LogFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(GzipLogFile.class);
+
+    /** Uncompressed bytes per independently decompressible member. */
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    private static final int INDEX_MAGIC = 0x4C474931; // "LGI1"
+    private static final int CACHED_BLOCKS = 4;
+
+    private final FileChannel blocks;
+    private final String id;
+    private final long[] compressedStarts;
+    private final long[] uncompressedStarts;
+    private final Map<Integer, byte[]> decompressed = new LinkedHashMap<>(CACHED_BLOCKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+
+    private GzipLogFile(Path source, FileChannel blocks, String id, long[] compressedStarts, long[] uncompressedStarts) {
+        super(source.toString());
+        this.blocks = blocks;
+        this.id = id;
+        this.compressedStarts = compressedStarts;
+        this.uncompressedStarts = uncompressedStarts;
+    }
+
+    /**
+     * Opens a gzip-compressed segment, building its block cache under {@code cacheDirectory}
+     * if it does not exist yet.
+     */
+    static GzipLogFile open(Path source, Path cacheDirectory) throws IOException {
+        String id = LogFile.fileIdentity(source);
+        String key = cacheKey(source, id);
+        Path blockFile = cacheDirectory.resolve(key + ".gz");
+        Path indexFile = cacheDirectory.resolve(key + ".idx");
+
+        if (!Files.exists(blockFile) || !Files.exists(indexFile)) {
+            Files.createDirectories(cacheDirectory);
+            reblock(source, blockFile, indexFile);
+        }
+
+        long[][] index = readIndex(indexFile);
+        FileChannel channel = FileChannel.open(blockFile, StandardOpenOption.READ);
+        return new GzipLogFile(source, channel, id, index[0], index[1]);
+    }
+
+    /**
+     * @return Name of a segment's cache files without extension: its directory, file name,
+     *         identity and size, so a rotated or replaced segment gets new cache files
+     */
+    private static String cacheKey(Path source, String id) throws IOException {
+        return directoryKey(source.toAbsolutePath().getParent()) + "-" + source.getFileName()
+            + "-" + id + "-" + Files.size(source);
+    }
+
+    private static String directoryKey(Path directory) {
+        return Long.toHexString(directory.toString().hashCode() & 0xffffffffL);
+    }
+
+    /**
+     * Deletes the cache files built for gzip segments of a service that no longer exist, or
+     * that were replaced since, keeping those of {@code segments}. Failures are logged and
+     * leave the files for the next attempt.
+     *
+     * @param logDirectory Absolute directory of the service's log files
+     * @param segments The service's current gzip segments
+     */
+    static void removeStaleCaches(Path cacheDirectory, Path logDirectory, String service, List<Path> segments) {
+        if (!Files.isDirectory(cacheDirectory)) {
+            return;
+        }
+        Pattern serviceEntry = Pattern.compile(Pattern.quote(directoryKey(logDirectory) + "-" + service + ".log.")
+            + "\\d+\\.gz-[0-9a-f]+-\\d+\\.(?:gz|idx)");
+        Set<String> current = new HashSet<>();
+        try {
+            for (Path segment : segments) {
+                String key = cacheKey(segment, LogFile.fileIdentity(segment));
+                current.add(key + ".gz");
+                current.add(key + ".idx");
+            }
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(cacheDirectory)) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    if (serviceEntry.matcher(name).matches() && !current.contains(name)) {
+                        // Open readers of an evicted segment keep their handle to the deleted file
+                        Files.deleteIfExists(entry);
+                        logger.debug("🗜️ Removed stale block cache {}", entry);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("🗜️ Cannot clean block cache {} for {}: {}", cacheDirectory, service, e.getMessage());
+        }
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public long size() {
+        return uncompressedStarts[uncompressedStarts.length - 1];
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (position >= size()) {
+            return -1;
+        }
+        int block = Arrays.binarySearch(uncompressedStarts, position);
+        if (block < 0) {
+            block = -block - 2;
+        }
+        byte[] data = block(block);
+        int offset = (int) (position - uncompressedStarts[block]);
+        int length = Math.min(dst.remaining(), data.length - offset);
+        dst.put(data, offset, length);
+        return length;
+    }
+
+    @Override
+    protected void release() throws IOException {
+        blocks.close();
+    }
+
+    /**
+     * @return Number of independently decompressible blocks
+     */
+    int blockCount() {
+        return compressedStarts.length - 1;
+    }
+
+    private byte[] block(int block) throws IOException {
+        synchronized (decompressed) {
+            byte[] cached = decompressed.get(block);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        byte[] compressed = new byte[(int) (compressedStarts[block + 1] - compressedStarts[block])];
+        ByteBuffer buffer = ByteBuffer.wrap(compressed);
+        long position = compressedStarts[block];
+        while (buffer.hasRemaining()) {
+            int read = blocks.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Truncated block cache for " + name());
+            }
+            position += read;
+        }
+
+        byte[] data;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            data = in.readAllBytes();
+        }
+        synchronized (decompressed) {
+            decompressed.put(block, data);
+        }
+        return data;
+    }
+
+    /**
+     * Decompresses the source once and writes it back as fixed-size gzip members plus index.
+     */
+    private static void reblock(Path source, Path blockFile, Path indexFile) throws IOException {
+        logger.info("🗜️ Building block index for compressed log {}", source);
+        Path tempBlocks = Files.createTempFile(blockFile.getParent(), "reblock", ".gz");
+        Path tempIndex = Files.createTempFile(indexFile.getParent(), "reblock", ".idx");
+
+        try {
+            long[] compressed = new long[16];
+            long[] uncompressed = new long[16];
+            int members = 0;
+
+            try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(source)));
+                 OutputStream out = Files.newOutputStream(tempBlocks)) {
+                byte[] chunk = new byte[BLOCK_SIZE];
+                long compressedPosition = 0;
+                long uncompressedPosition = 0;
+                int filled;
+                while ((filled = in.readNBytes(chunk, 0, BLOCK_SIZE)) > 0) {
+                    ByteArrayOutputStream member = new ByteArrayOutputStream(filled / 4);
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+                        gzip.write(chunk, 0, filled);
+                    }
+                    if (members + 1 >= compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                        uncompressed = Arrays.copyOf(uncompressed, uncompressed.length * 2);
+                    }
+                    compressed[members] = compressedPosition;
+                    uncompressed[members] = uncompressedPosition;
+                    members++;
+                    member.writeTo(out);
+                    compressedPosition += member.size();
+                    uncompressedPosition += filled;
+                }
+                compressed[members] = compressedPosition;
+                uncompressed[members] = uncompressedPosition;
+            }
+
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tempIndex))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(members);
+                for (int i = 0; i <= members; i++) {
+                    out.writeLong(compressed[i]);
+                    out.writeLong(uncompressed[i]);
+                }
+            }
+
+            Files.move(tempBlocks, blockFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempIndex, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempBlocks);
+            Files.deleteIfExists(tempIndex);
+        }
+    }
+
+    private static long[][] readIndex(Path indexFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC) {
+                throw new IOException("Unrecognized block index " + indexFile);
+            }
+            int members = in.readInt();
+            long[] compressed = new long[members + 1];
+            long[] uncompressed = new long[members + 1];
+            for (int i = 0; i <= members; i++) {
+                compressed[i] = in.readLong();
+                uncompressed[i] = in.readLong();
+            }
+            return new long[][] {compressed, uncompressed};
+        }
+    }
+}
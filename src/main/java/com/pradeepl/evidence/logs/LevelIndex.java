@@ -0,0 +1,283 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-file array of line levels used to answer level-filtered reads (e.g. "the last 200
+ * ERROR lines") without reading or decoding the lines that do not match.
+ *
+ * One byte is kept per line, plus the byte offset of every {@link #LINES_PER_BLOCK}-th line.
+ * Selection runs over the level array only; afterwards just the blocks containing selected
+ * lines are read, and only the selected lines in them are decoded. The index is built once
+ * and extended over appended bytes on later calls. Continuation lines without a timestamp
+ * (e.g. stack traces) inherit the level of the line they belong to.
+ */
+public final class LevelIndex {
+
+    /** Number of lines between stored line offsets. */
+    static final int LINES_PER_BLOCK = 64;
+
+    private final LogFile file;
+    private byte[] levels = new byte[1024];
+    private long[] blockStarts = new long[16];
+    private int lineCount;
+
+    /** End of the last complete (newline-terminated) line. */
+    private long indexedUpTo;
+    /** End of the indexed data including a provisional unterminated last line. */
+    private long indexedEnd;
+    private boolean provisional;
+    private byte previousLevel = (byte) LogLevel.UNKNOWN.ordinal();
+    private byte levelBeforeProvisional;
+
+    private LevelIndex(LogFile file) {
+        this.file = file;
+    }
+
+    /**
+     * @return The index attached to a log file, created on first use
+     */
+    public static LevelIndex of(LogFile file) {
+        return file.index(LevelIndex.class, LevelIndex::new);
+    }
+
+    /**
+     * Selects up to {@code maxLines} matching lines ending at {@code offset}, newest first,
+     * without going before {@code floor}.
+     *
+     * @param levelMask Bitmask of {@link LogLevel#mask()} values to keep
+     */
+    public synchronized LogPageReader.Page selectBefore(long offset, long floor, int maxLines, int levelMask)
+            throws IOException {
+        catchUp(file.size());
+        int low = lineIndexAt(floor);
+        int high = lineIndexAt(offset);
+
+        int[] selected = new int[Math.max(0, Math.min(maxLines, high - low))];
+        int count = 0;
+        for (int line = high - 1; line >= low && count < selected.length; line--) {
+            if ((levelMask & (1 << levels[line])) != 0) {
+                selected[count++] = line;
+            }
+        }
+        boolean exhausted = count < selected.length || low >= high;
+        reverse(selected, count);
+
+        List<Selected> lines = materialize(selected, count);
+        boolean truncated = false;
+        long bytes = 0;
+        int keepFrom = lines.size();
+        while (keepFrom > 0 && (keepFrom == lines.size()
+                || bytes + lines.get(keepFrom - 1).bytes() <= LogPageReader.MAX_PAGE_BYTES)) {
+            bytes += lines.get(--keepFrom).bytes();
+        }
+        if (keepFrom > 0) {
+            lines = lines.subList(keepFrom, lines.size());
+            truncated = true;
+        }
+
+        long startOffset;
+        if (exhausted && !truncated) {
+            startOffset = floor;
+        } else if (lines.isEmpty()) {
+            // No lines were asked for
+            startOffset = offset;
+        } else {
+            startOffset = lines.get(0).offset;
+        }
+        return toPage(lines, startOffset, offset, truncated);
+    }
+
+    /**
+     * Selects up to {@code maxLines} matching lines starting at {@code offset}, oldest first,
+     * without reaching {@code ceiling}.
+     *
+     * @param levelMask Bitmask of {@link LogLevel#mask()} values to keep
+     */
+    public synchronized LogPageReader.Page selectAfter(long offset, long ceiling, int maxLines, int levelMask)
+            throws IOException {
+        catchUp(file.size());
+        // An unterminated last line is left to a later page, once the writer has finished it
+        long end = Math.max(offset, Math.min(ceiling, provisional ? indexedUpTo : indexedEnd));
+        int low = lineIndexAt(offset);
+        int high = lineIndexAt(end);
+
+        int[] selected = new int[Math.max(0, Math.min(maxLines, high - low))];
+        int count = 0;
+        int next = low;
+        for (; next < high && count < selected.length; next++) {
+            if ((levelMask & (1 << levels[next])) != 0) {
+                selected[count++] = next;
+            }
+        }
+
+        List<Selected> lines = materialize(selected, count);
+        boolean truncated = false;
+        long bytes = 0;
+        int keep = 0;
+        while (keep < lines.size() && (keep == 0
+                || bytes + lines.get(keep).bytes() <= LogPageReader.MAX_PAGE_BYTES)) {
+            bytes += lines.get(keep++).bytes();
+        }
+        if (keep < lines.size()) {
+            lines = lines.subList(0, keep);
+            truncated = true;
+        }
+
+        long endOffset;
+        if (lines.isEmpty() && next < high) {
+            // No lines were asked for
+            endOffset = offset;
+        } else if (truncated) {
+            endOffset = lines.get(lines.size() - 1).end;
+        } else if (next < high) {
+            endOffset = lines.get(lines.size() - 1).end;
+        } else {
+            endOffset = end;
+        }
+        return toPage(lines, offset, Math.max(offset, endOffset), truncated);
+    }
+
+    /**
+     * @return Number of lines indexed so far
+     */
+    public synchronized int lineCount() {
+        return lineCount;
+    }
+
+    private void catchUp(long size) throws IOException {
+        if (size <= indexedEnd) {
+            return;
+        }
+        if (provisional) {
+            lineCount--;
+            provisional = false;
+            previousLevel = levelBeforeProvisional;
+        }
+        LogLineScanner.scan(file, indexedUpTo, size, (buffer, start, end, fileOffset) -> {
+            int parsed = LogLevel.parse(buffer, start, end);
+            byte level = parsed < 0 ? previousLevel : (byte) parsed;
+            boolean complete = fileOffset + (end - start) < size;
+            if (complete) {
+                indexedUpTo = fileOffset + (end - start) + 1;
+            } else {
+                provisional = true;
+                levelBeforeProvisional = previousLevel;
+            }
+            addLine(fileOffset, level);
+            previousLevel = level;
+            return true;
+        });
+        indexedEnd = size;
+    }
+
+    private void addLine(long offset, byte level) {
+        if (lineCount == levels.length) {
+            levels = Arrays.copyOf(levels, levels.length * 2);
+        }
+        if (lineCount % LINES_PER_BLOCK == 0) {
+            int block = lineCount / LINES_PER_BLOCK;
+            if (block == blockStarts.length) {
+                blockStarts = Arrays.copyOf(blockStarts, blockStarts.length * 2);
+            }
+            blockStarts[block] = offset;
+        }
+        levels[lineCount++] = level;
+    }
+
+    private int blockCount() {
+        return (lineCount + LINES_PER_BLOCK - 1) / LINES_PER_BLOCK;
+    }
+
+    private long blockEnd(int block) {
+        return block + 1 < blockCount() ? blockStarts[block + 1] : indexedEnd;
+    }
+
+    /**
+     * Maps a line-boundary offset to the index of the line starting there.
+     */
+    private int lineIndexAt(long offset) throws IOException {
+        if (offset >= indexedEnd) {
+            return lineCount;
+        }
+        int blocks = blockCount();
+        int block = Arrays.binarySearch(blockStarts, 0, blocks, offset);
+        if (block >= 0) {
+            return block * LINES_PER_BLOCK;
+        }
+        block = -block - 2;
+        if (block < 0) {
+            return 0;
+        }
+        byte[] prefix = file.readRange(blockStarts[block], offset);
+        int newlines = 0;
+        for (byte b : prefix) {
+            if (b == '\n') {
+                newlines++;
+            }
+        }
+        return Math.min(lineCount, block * LINES_PER_BLOCK + newlines);
+    }
+
+    /**
+     * Reads the blocks holding the selected lines and decodes only those lines.
+     */
+    private List<Selected> materialize(int[] selected, int count) throws IOException {
+        List<Selected> lines = new ArrayList<>(count);
+        int i = 0;
+        while (i < count) {
+            int block = selected[i] / LINES_PER_BLOCK;
+            long blockStart = blockStarts[block];
+            byte[] bytes = file.readRange(blockStart, blockEnd(block));
+
+            int line = block * LINES_PER_BLOCK;
+            int lineStart = 0;
+            for (int position = 0; position <= bytes.length && i < count && selected[i] / LINES_PER_BLOCK == block; position++) {
+                if (position == bytes.length || bytes[position] == '\n') {
+                    if (line == selected[i]) {
+                        String text = new String(bytes, lineStart, position - lineStart, StandardCharsets.UTF_8);
+                        lines.add(new Selected(blockStart + lineStart, blockStart + position + 1, text));
+                        i++;
+                    }
+                    line++;
+                    lineStart = position + 1;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static LogPageReader.Page toPage(List<Selected> lines, long startOffset, long endOffset, boolean truncated) {
+        StringBuilder text = new StringBuilder();
+        for (Selected line : lines) {
+            text.append(line.text).append('\n');
+        }
+        return new LogPageReader.Page(text.toString(), lines.size(), startOffset, endOffset, truncated);
+    }
+
+    private static void reverse(int[] values, int count) {
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+
+    /**
+     * A decoded selected line with its byte range in the file.
+     */
+    private record Selected(long offset, long end, String text) {
+
+        /**
+         * @return Encoded length of the line including its newline, as counted against
+         *         {@link LogPageReader#MAX_PAGE_BYTES}
+         */
+        long bytes() {
+            return end - offset;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the same window from several services' logs at once and optionally merges the
+ * results into a single timeline.
+ *
+ * Each service is read on its own virtual thread, so the wall time of a batch is that of the
+ * slowest read rather than the sum of all reads. Merging parses each page into
+ * {@link LogColumns} and runs a k-way heap merge over the timestamp columns.
+ */
+public final class LogBatchReader {
+
+    private LogBatchReader() {
+    }
+
+    /**
+     * Result of reading one service.
+     *
+     * @param service Service name
+     * @param fileId Identity of the log file read, for building cursors (null on error)
+     * @param window Resolved window (null on error)
+     * @param page Lines read (null on error)
+     * @param resumeOffset Where reading newer lines resumes, see {@link LogPageReader#resumeOffset}
+     * @param error Error message if the service could not be read, otherwise null
+     */
+    public record ServicePage(String service, String fileId, LogWindow window, LogPageReader.Page page,
+                              long resumeOffset, String error) {
+
+        static ServicePage failed(String service, String error) {
+            return new ServicePage(service, null, null, null, 0, error);
+        }
+    }
+
+    /**
+     * A timeline of lines from several services in timestamp order.
+     *
+     * @param text Merged lines, each terminated by a newline
+     * @param lineCount Number of lines in text
+     * @param firstTimestamp Timestamp of the earliest line, or {@link LogTimestamps#NONE}
+     * @param lastTimestamp Timestamp of the latest line, or {@link LogTimestamps#NONE}
+     */
+    public record MergedLogs(String text, int lineCount, long firstTimestamp, long lastTimestamp) {}
+
+    /**
+     * Reads the most recent {@code lines} lines of each service inside a window, concurrently.
+     * Failures are reported per service and do not fail the batch.
+     *
+     * @param levelMask Bitmask of {@link LogLevel} values to include, or 0 for all lines
+     * @return One result per service, in the order given
+     */
+    public static List<ServicePage> read(LogSource source, List<String> services, String since, String until,
+                                         int lines, int levelMask) throws InterruptedException {
+        List<Future<ServicePage>> futures = new ArrayList<>(services.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String service : services) {
+                futures.add(executor.submit(() -> readOne(source, service, since, until, lines, levelMask)));
+            }
+
+            List<ServicePage> results = new ArrayList<>(services.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    results.add(ServicePage.failed(services.get(i), cause.getMessage()));
+                }
+            }
+            return results;
+        }
+    }
+
+    private static ServicePage readOne(LogSource source, String service, String since, String until,
+                                       int lines, int levelMask) throws IOException {
+        try (LogFile file = source.open(service)) {
+            if (file == null) {
+                return ServicePage.failed(service, "No log file found for service: " + service);
+            }
+            LogWindow window;
+            try {
+                window = LogWindow.resolve(file, since, until);
+            } catch (IllegalArgumentException e) {
+                return ServicePage.failed(service, e.getMessage());
+            }
+            LogPageReader.Page page = LogPageReader.read(file, window, window.endOffset(),
+                LogCursor.Direction.OLDER, lines, levelMask);
+            return new ServicePage(service, file.id(), window, page,
+                LogPageReader.resumeOffset(file, page.endOffset()), null);
+        }
+    }
+
+    /**
+     * Merges the pages of successfully read services in timestamp order. Lines with equal
+     * timestamps keep the order of the services, and each service's lines keep file order.
+     */
+    public static MergedLogs merge(List<ServicePage> pages) {
+        List<LogColumns> inputs = new ArrayList<>(pages.size());
+        for (ServicePage page : pages) {
+            if (page.error() == null && page.page().lineCount() > 0) {
+                byte[] data = page.page().text().getBytes(StandardCharsets.UTF_8);
+                inputs.add(LogColumns.parse(data, 0, data.length));
+            }
+        }
+        return merge(inputs.toArray(new LogColumns[0]));
+    }
+
+    /**
+     * K-way merge of parsed inputs by timestamp. Continuation lines carry the timestamp of the
+     * entry they belong to, so multi-line entries stay together.
+     */
+    static MergedLogs merge(LogColumns[] inputs) {
+        int k = inputs.length;
+        int[] positions = new int[k];
+        // Binary min-heap of input indexes, ordered by the timestamp at each input's position
+        int[] heap = new int[k];
+        int heapSize = 0;
+        int totalBytes = 0;
+        for (int input = 0; input < k; input++) {
+            if (inputs[input].size() > 0) {
+                heap[heapSize] = input;
+                siftUp(heap, heapSize++, inputs, positions);
+            }
+            totalBytes += inputs[input].data().length + inputs[input].size();
+        }
+
+        StringBuilder text = new StringBuilder(totalBytes);
+        int lineCount = 0;
+        long first = LogTimestamps.NONE;
+        long last = LogTimestamps.NONE;
+        while (heapSize > 0) {
+            int input = heap[0];
+            LogColumns columns = inputs[input];
+            int row = positions[input];
+            long timestamp = columns.timestamp(row);
+            if (timestamp != LogTimestamps.NONE) {
+                if (first == LogTimestamps.NONE) {
+                    first = timestamp;
+                }
+                last = timestamp;
+            }
+            text.append(columns.line(row)).append('\n');
+            lineCount++;
+
+            if (++positions[input] < columns.size()) {
+                siftDown(heap, heapSize, inputs, positions);
+            } else {
+                heap[0] = heap[--heapSize];
+                siftDown(heap, heapSize, inputs, positions);
+            }
+        }
+        return new MergedLogs(text.toString(), lineCount, first, last);
+    }
+
+    private static boolean less(int a, int b, LogColumns[] inputs, int[] positions) {
+        long ta = inputs[a].timestamp(positions[a]);
+        long tb = inputs[b].timestamp(positions[b]);
+        return ta != tb ? ta < tb : a < b;
+    }
+
+    private static void siftUp(int[] heap, int index, LogColumns[] inputs, int[] positions) {
+        int item = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!less(item, heap[parent], inputs, positions)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = item;
+    }
+
+    private static void siftDown(int[] heap, int size, LogColumns[] inputs, int[] positions) {
+        if (size == 0) {
+            return;
+        }
+        int item = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && less(heap[child + 1], heap[child], inputs, positions)) {
+                child++;
+            }
+            if (!less(heap[child], item, inputs, positions)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = item;
+    }
+}
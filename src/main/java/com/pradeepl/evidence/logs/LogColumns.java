@@ -0,0 +1,244 @@
+package com.pradeepl.evidence.logs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Log lines in the {@code timestamp LEVEL [service] [req-id] message} format, parsed once into
+ * primitive columns.
+ *
+ * Each row is one line of the original buffer: timestamps are epoch milliseconds, levels are
+ * {@link LogLevel} ordinals, services and request IDs are dictionary codes, and the line bounds
+ * are offsets into the buffer. Level filtering (follow_logs), timestamp merging
+ * (fetch_logs_batch) and request correlation (fetch_request_trace) run on these arrays without
+ * creating a String per line; text is only materialized for rows that are returned.
+ *
+ * Lines without a timestamp (stack traces, wrapped messages) continue the line before them and
+ * inherit its timestamp, level, service and request ID.
+ */
+public final class LogColumns {
+
+    /** Code used when a line has no service or request ID token. */
+    public static final int NO_CODE = -1;
+
+    private static final byte[] REQUEST_PREFIX = "req-".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] data;
+    private final TokenDictionary services = new TokenDictionary();
+    private final TokenDictionary requestIds = new TokenDictionary();
+
+    private int size;
+    private long[] timestamps;
+    private byte[] levels;
+    private int[] serviceCodes;
+    private int[] requestCodes;
+    private int[] lineStarts;
+    private int[] lineEnds;
+
+    private LogColumns(byte[] data, int capacity) {
+        this.data = data;
+        this.timestamps = new long[capacity];
+        this.levels = new byte[capacity];
+        this.serviceCodes = new int[capacity];
+        this.requestCodes = new int[capacity];
+        this.lineStarts = new int[capacity];
+        this.lineEnds = new int[capacity];
+    }
+
+    /**
+     * Parses the lines in data[from, to). The buffer is referenced, not copied, and must not
+     * be modified afterwards.
+     */
+    public static LogColumns parse(byte[] data, int from, int to) {
+        LogColumns columns = new LogColumns(data, Math.max(16, (to - from) / 96));
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && data[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && data[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            columns.addLine(lineStart, contentEnd);
+            lineStart = lineEnd + 1;
+        }
+        return columns;
+    }
+
+    private void addLine(int start, int end) {
+        if (size == timestamps.length) {
+            grow();
+        }
+        int row = size++;
+        lineStarts[row] = start;
+        lineEnds[row] = end;
+
+        long timestamp = LogTimestamps.parse(data, start, end);
+        if (timestamp == LogTimestamps.NONE) {
+            boolean first = row == 0;
+            timestamps[row] = first ? LogTimestamps.NONE : timestamps[row - 1];
+            levels[row] = first ? (byte) LogLevel.UNKNOWN.ordinal() : levels[row - 1];
+            serviceCodes[row] = first ? NO_CODE : serviceCodes[row - 1];
+            requestCodes[row] = first ? NO_CODE : requestCodes[row - 1];
+            return;
+        }
+        timestamps[row] = timestamp;
+
+        int position = skipSpaces(LogTimestamps.timestampEnd(data, start, end), end);
+        levels[row] = (byte) LogLevel.parseWord(data, position, end);
+        while (position < end && data[position] >= 'A' && data[position] <= 'Z') {
+            position++;
+        }
+        position = skipSpaces(position, end);
+
+        int service = NO_CODE;
+        int request = NO_CODE;
+        // Up to two bracketed tokens: [service] and [req-id], either of which may be missing
+        for (int token = 0; token < 2 && position < end && data[position] == '['; token++) {
+            int close = position + 1;
+            while (close < end && data[close] != ']' && data[close] != ' ') {
+                close++;
+            }
+            if (close >= end || data[close] != ']' || close == position + 1) {
+                break;
+            }
+            if (request == NO_CODE && startsWithRequestPrefix(position + 1, close)) {
+                request = requestIds.encode(data, position + 1, close);
+            } else if (service == NO_CODE && request == NO_CODE) {
+                service = services.encode(data, position + 1, close);
+            } else {
+                break;
+            }
+            position = skipSpaces(close + 1, end);
+        }
+        serviceCodes[row] = service;
+        requestCodes[row] = request;
+    }
+
+    private boolean startsWithRequestPrefix(int start, int end) {
+        return end - start > REQUEST_PREFIX.length
+            && Arrays.equals(data, start, start + REQUEST_PREFIX.length, REQUEST_PREFIX, 0, REQUEST_PREFIX.length);
+    }
+
+    private int skipSpaces(int position, int end) {
+        while (position < end && data[position] == ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    private void grow() {
+        int capacity = timestamps.length * 2;
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        serviceCodes = Arrays.copyOf(serviceCodes, capacity);
+        requestCodes = Arrays.copyOf(requestCodes, capacity);
+        lineStarts = Arrays.copyOf(lineStarts, capacity);
+        lineEnds = Arrays.copyOf(lineEnds, capacity);
+    }
+
+    /**
+     * @return Number of rows (lines)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Epoch milliseconds of a row, or {@link LogTimestamps#NONE}
+     */
+    public long timestamp(int row) {
+        return timestamps[row];
+    }
+
+    /**
+     * @return {@link LogLevel} ordinal of a row
+     */
+    public int level(int row) {
+        return levels[row];
+    }
+
+    /**
+     * @return Service code of a row, or {@link #NO_CODE}
+     */
+    public int service(int row) {
+        return serviceCodes[row];
+    }
+
+    /**
+     * @return Request ID code of a row, or {@link #NO_CODE}
+     */
+    public int requestId(int row) {
+        return requestCodes[row];
+    }
+
+    /**
+     * @return The service name for a code
+     */
+    public String serviceName(int code) {
+        return services.decode(code);
+    }
+
+    /**
+     * @return The code of a request ID, or {@link #NO_CODE} if no row carries it
+     */
+    public int requestIdCode(String requestId) {
+        return requestIds.find(RequestIdIndex.normalize(requestId));
+    }
+
+    /**
+     * @return The underlying buffer; row offsets index into it
+     */
+    public byte[] data() {
+        return data;
+    }
+
+    /**
+     * @return The full text of a row
+     */
+    public String line(int row) {
+        return new String(data, lineStarts[row], lineEnds[row] - lineStarts[row], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Selects rows whose level is in a mask and whose timestamp is in [since, until).
+     *
+     * @param levelMask Bitmask of {@link LogLevel#mask()} values, or 0 for all levels
+     * @param sinceMillis Inclusive lower bound, or {@link Long#MIN_VALUE}
+     * @param untilMillis Exclusive upper bound, or {@link Long#MAX_VALUE}
+     * @return Matching row indexes in file order
+     */
+    public int[] select(int levelMask, long sinceMillis, long untilMillis) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            long timestamp = timestamps[row];
+            if ((levelMask != 0 && (levelMask & (1 << levels[row])) == 0)
+                    || (timestamp != LogTimestamps.NONE && (timestamp < sinceMillis || timestamp >= untilMillis))) {
+                continue;
+            }
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * @return Rows carrying a request ID code (including their continuation lines), in file order
+     */
+    public int[] rowsForRequest(int requestCode) {
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (requestCodes[row] != requestCode || requestCode == NO_CODE) {
+                continue;
+            }
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+        return Arrays.copyOf(rows, count);
+    }
+}
@@ -0,0 +1,64 @@
+package com.pradeepl.evidence.logs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque pagination token for fetch_logs: a byte offset in a specific file plus the
+ * direction to page in.
+ *
+ * The file identity makes a cursor fail fast after the log has been rotated or replaced
+ * instead of silently returning lines from a different file.
+ *
+ * @param fileId Identity of the file the offset refers to, see {@link LogFile#id()}
+ * @param offset Byte offset of a line boundary
+ * @param direction Whether the next page holds the lines before or after the offset
+ */
+public record LogCursor(String fileId, long offset, Direction direction) {
+
+    private static final String VERSION = "1";
+
+    public enum Direction {
+        /** Lines ending before the offset (further back in time). */
+        OLDER,
+        /** Lines starting at the offset (appended after the previous page). */
+        NEWER
+    }
+
+    /**
+     * @return URL-safe token that can be passed back to fetch_logs
+     */
+    public String encode() {
+        String raw = String.join("|", VERSION, fileId, Long.toString(offset), direction.name());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static LogCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Unsupported cursor format");
+            }
+            long offset = Long.parseLong(parts[2]);
+            if (offset < 0) {
+                throw new IllegalArgumentException("Negative cursor offset");
+            }
+            return new LogCursor(parts[1], offset, Direction.valueOf(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    /**
+     * @return True if this cursor was issued for the given file and still lies within it
+     */
+    public boolean isValidFor(LogFile file, long size) {
+        return fileId.equals(file.id()) && offset <= size;
+    }
+}
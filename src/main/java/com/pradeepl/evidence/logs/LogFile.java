@@ -0,0 +1,242 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Random-access view over a single service log.
+ *
+ * Readers use positional reads so one instance can be shared by concurrent tool calls
+ * without coordinating a channel position. Sharing is reference counted: each user holds a
+ * reference, from opening or from {@link #retain()}, and gives it up with {@link #close()}.
+ * The underlying file is released with the last reference, so a log source can drop a file
+ * (e.g. on rotation) while tool calls are still reading it.
+ */
+public abstract class LogFile implements Closeable {
+
+    private final String name;
+    private final ConcurrentHashMap<Class<?>, Object> indexes = new ConcurrentHashMap<>();
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    protected LogFile(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns a per-file index, creating it on first use. Indexes live as long as this
+     * instance, so a replaced file automatically starts with fresh indexes.
+     *
+     * @param type Index class, used as the lookup key
+     * @param factory Creates the index for this file
+     */
+    public <T> T index(Class<T> type, Function<LogFile, T> factory) {
+        return type.cast(indexes.computeIfAbsent(type, key -> factory.apply(this)));
+    }
+
+    /**
+     * @return Human-readable name of the underlying file or resource
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Identity of the underlying file, stable while the same file is being appended to and
+     * different once it has been replaced (e.g. by rotation). Used to validate cursors.
+     */
+    public abstract String id();
+
+    /**
+     * @return Current size of the log in bytes
+     */
+    public abstract long size() throws IOException;
+
+    /**
+     * Reads bytes starting at the given position without changing any shared state.
+     *
+     * @param dst Buffer to fill
+     * @param position Byte offset in the log to start reading from
+     * @return Number of bytes read, or -1 if position is at or beyond the end of the log
+     */
+    public abstract int read(ByteBuffer dst, long position) throws IOException;
+
+    /**
+     * Reads exactly the byte range [start, end) into a new array.
+     */
+    public byte[] readRange(long start, long end) throws IOException {
+        byte[] bytes = new byte[Math.toIntExact(end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long position = start;
+        while (buffer.hasRemaining()) {
+            int read = read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds a reference for another user, who must {@link #close()} the file when done.
+     *
+     * @return False if the file has already been released and can no longer be read
+     */
+    public boolean retain() {
+        int count = references.get();
+        while (count > 0) {
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+            count = references.get();
+        }
+        return false;
+    }
+
+    /**
+     * Gives up a reference; the last one releases the underlying file. Each reference must
+     * be closed exactly once.
+     */
+    @Override
+    public final void close() throws IOException {
+        if (references.decrementAndGet() == 0) {
+            release();
+        }
+    }
+
+    /**
+     * Releases the underlying file once no references are left.
+     */
+    protected void release() throws IOException {
+        // Nothing to release by default
+    }
+
+    /**
+     * Opens a log bundled on the classpath. File-backed resources are read through a
+     * {@link FileChannel}; resources packaged inside a jar are small and loaded into memory.
+     *
+     * @param classLoader Class loader used to resolve the resource
+     * @param resource Resource path, e.g. logs/payment-service.log
+     * @return The opened log, or null if the resource does not exist
+     */
+    public static LogFile openResource(ClassLoader classLoader, String resource) throws IOException {
+        URL url = classLoader.getResource(resource);
+        if (url == null) {
+            return null;
+        }
+
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return open(Path.of(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid resource URL: " + url, e);
+            }
+        }
+
+        try (InputStream in = url.openStream()) {
+            return new InMemory(resource, in.readAllBytes());
+        }
+    }
+
+    /**
+     * Opens a log file on the local filesystem for positional reads.
+     */
+    public static LogFile open(Path path) throws IOException {
+        String id = fileIdentity(path);
+        return new FileBacked(path, FileChannel.open(path, StandardOpenOption.READ), id);
+    }
+
+    /**
+     * Derives an identity token from the file key (device and inode where supported) and
+     * creation time, so a file replaced under the same name gets a different token.
+     */
+    static String fileIdentity(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey() != null ? attributes.fileKey() : path.toAbsolutePath();
+        long hash = 31L * fileKey.hashCode() + attributes.creationTime().toMillis();
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * Log backed by an open {@link FileChannel}.
+     */
+    static final class FileBacked extends LogFile {
+
+        private final FileChannel channel;
+        private final String id;
+
+        FileBacked(Path path, FileChannel channel, String id) {
+            super(path.toString());
+            this.channel = channel;
+            this.id = id;
+        }
+
+        @Override
+        public String id() {
+            return id;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        protected void release() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Log held entirely in memory (jar-packaged resources).
+     */
+    static final class InMemory extends LogFile {
+
+        private final byte[] content;
+        private final String id;
+
+        InMemory(String name, byte[] content) {
+            super(name);
+            this.content = content;
+            this.id = Integer.toHexString(Arrays.hashCode(content));
+        }
+
+        @Override
+        public String id() {
+            return id;
+        }
+
+        @Override
+        public long size() {
+            return content.length;
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) {
+            if (position >= content.length) {
+                return -1;
+            }
+            int length = (int) Math.min(dst.remaining(), content.length - position);
+            dst.put(content, (int) position, length);
+            return length;
+        }
+    }
+}
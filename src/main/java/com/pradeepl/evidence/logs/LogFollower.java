@@ -0,0 +1,294 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Follows a growing log on behalf of any number of watchers.
+ *
+ * A single reader per file picks up appended lines (at most once per
+ * {@link #MIN_POLL_INTERVAL_MILLIS}, however many watchers are waiting) and keeps the most
+ * recent {@link #BUFFER_BYTES} of them in memory. Each watcher only holds its own offset: it
+ * is served from the shared buffer and waits for the next append when it has caught up, so
+ * following a file never re-reads what was already delivered. A watcher that falls behind the
+ * buffer is served from the file instead.
+ */
+public final class LogFollower {
+
+    /** Upper bound on the appended bytes kept in memory per file. */
+    static final int BUFFER_BYTES = 4 * 1024 * 1024;
+
+    /** Minimum time between two reads of the file, shared by all watchers. */
+    static final long MIN_POLL_INTERVAL_MILLIS = 100;
+
+    private final LogFile file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+
+    /** Buffered appends, oldest first; each chunk holds whole lines. */
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+    private long bufferedBytes;
+    private long bufferStart;
+    /** End of the last complete line read, -1 before the first poll. */
+    private long bufferEnd = -1;
+    private long lastPollNanos;
+    private boolean polling;
+
+    private record Chunk(long start, byte[] bytes) {
+        long end() {
+            return start + bytes.length;
+        }
+    }
+
+    /**
+     * Lines delivered to a watcher.
+     *
+     * @param page The lines that passed the level filter; its end offset is past every line
+     *             read, including those filtered out
+     * @param moreAvailable Whether lines after the page had already been appended
+     */
+    public record Update(LogPageReader.Page page, boolean moreAvailable) {}
+
+    private LogFollower(LogFile file) {
+        this.file = file;
+    }
+
+    /**
+     * @return The follower attached to a log file, created on first use
+     */
+    public static LogFollower of(LogFile file) {
+        return file.index(LogFollower.class, LogFollower::new);
+    }
+
+    /**
+     * @return Offset just past the last complete line currently in the log, where a new
+     *         watcher starts following
+     */
+    public long position() throws IOException, InterruptedException {
+        while (true) {
+            poll(true);
+            lock.lock();
+            try {
+                if (bufferEnd >= 0) {
+                    return bufferEnd;
+                }
+                // Another watcher is running the first read
+                appended.awaitNanos(TimeUnit.MILLISECONDS.toNanos(MIN_POLL_INTERVAL_MILLIS));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns up to {@code maxLines} lines starting at {@code offset}, waiting up to
+     * {@code timeoutMillis} for lines to be appended if there are none yet.
+     *
+     * @param offset Line boundary to continue from (e.g. the end of the previous update)
+     * @return The lines read, empty if nothing was appended before the timeout
+     */
+    public LogPageReader.Page await(long offset, int maxLines, long timeoutMillis)
+            throws IOException, InterruptedException {
+        return await(offset, maxLines, timeoutMillis, 0).page();
+    }
+
+    /**
+     * Like {@link #await(long, int, long)}, but returns only the lines whose level is in a
+     * mask. Buffered lines are filtered as bytes and only matches are decoded; the end offset
+     * moves past the lines skipped. A watcher that fell behind the buffer is served through
+     * the file's {@link LevelIndex}.
+     *
+     * @param levelMask Bitmask of {@link LogLevel} values to include, or 0 for all lines
+     */
+    public Update await(long offset, int maxLines, long timeoutMillis, int levelMask)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMillis));
+        while (true) {
+            poll(false);
+
+            long end;
+            lock.lock();
+            try {
+                end = bufferEnd;
+                if (offset < end && offset >= bufferStart) {
+                    return readBuffered(offset, maxLines, levelMask);
+                }
+                long remaining = deadline - System.nanoTime();
+                if (offset >= end) {
+                    if (remaining <= 0) {
+                        return new Update(new LogPageReader.Page("", 0, offset, offset, false), false);
+                    }
+                    appended.awaitNanos(Math.min(remaining,
+                        TimeUnit.MILLISECONDS.toNanos(MIN_POLL_INTERVAL_MILLIS)));
+                    continue;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // Fell behind the buffer: catch up from the file
+            LogPageReader.Page page = levelMask != 0
+                ? LevelIndex.of(file).selectAfter(offset, end, maxLines, levelMask)
+                : LogPageReader.after(file, offset, maxLines, end);
+            return new Update(page, page.endOffset() < end);
+        }
+    }
+
+    /**
+     * Reads lines appended since the last read. Only one thread reads at a time and reads are
+     * rate limited, so concurrent watchers share a single reader.
+     */
+    private void poll(boolean force) throws IOException {
+        long end;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (polling || (!force && bufferEnd >= 0
+                    && now - lastPollNanos < TimeUnit.MILLISECONDS.toNanos(MIN_POLL_INTERVAL_MILLIS))) {
+                return;
+            }
+            polling = true;
+            lastPollNanos = now;
+            end = bufferEnd;
+        } finally {
+            lock.unlock();
+        }
+
+        Chunk chunk = null;
+        boolean reset = false;
+        try {
+            long size = file.size();
+            if (end < 0 || size < end) {
+                // First poll, or the file was truncated: start following from its current end
+                end = lastLineBoundary(size);
+                reset = true;
+            } else if (size > end) {
+                byte[] bytes = file.readRange(end, Math.min(size, end + BUFFER_BYTES));
+                int complete = lastNewline(bytes) + 1;
+                if (complete == 0 && bytes.length == BUFFER_BYTES) {
+                    complete = bytes.length;
+                }
+                if (complete > 0) {
+                    chunk = new Chunk(end, complete == bytes.length ? bytes : Arrays.copyOf(bytes, complete));
+                }
+            }
+        } finally {
+            lock.lock();
+            try {
+                if (reset) {
+                    chunks.clear();
+                    bufferedBytes = 0;
+                    bufferStart = end;
+                    bufferEnd = end;
+                }
+                if (chunk != null) {
+                    chunks.addLast(chunk);
+                    bufferedBytes += chunk.bytes().length;
+                    bufferEnd = chunk.end();
+                    while (bufferedBytes > BUFFER_BYTES && chunks.size() > 1) {
+                        bufferedBytes -= chunks.removeFirst().bytes().length;
+                    }
+                    bufferStart = chunks.peekFirst().start();
+                }
+                polling = false;
+                appended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Copies up to {@code maxLines} buffered lines starting at {@code offset}, keeping those
+     * whose level is in the mask. Must be called with the lock held and
+     * {@code bufferStart <= offset < bufferEnd}.
+     */
+    private Update readBuffered(long offset, int maxLines, int levelMask) {
+        byte[] lines = new byte[(int) Math.min(bufferEnd - offset, LogPageReader.MAX_PAGE_BYTES)];
+        int length = 0;
+        int lineCount = 0;
+        long position = offset;
+        boolean truncated = false;
+
+        for (Chunk chunk : chunks) {
+            if (chunk.end() <= position) {
+                continue;
+            }
+            byte[] data = chunk.bytes();
+            int lineStart = (int) (position - chunk.start());
+            while (lineStart < data.length && lineCount < maxLines) {
+                int lineEnd = lineStart;
+                while (lineEnd < data.length && data[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                int lineLength = lineEnd - lineStart;
+                if (lineCount > 0 && length + lineLength >= LogPageReader.MAX_PAGE_BYTES) {
+                    truncated = true;
+                    break;
+                }
+                if (length + lineLength + 1 > lines.length) {
+                    lines = Arrays.copyOf(lines, length + lineLength + 1);
+                }
+                System.arraycopy(data, lineStart, lines, length, lineLength);
+                length += lineLength;
+                lines[length++] = '\n';
+                lineCount++;
+                lineStart = Math.min(data.length, lineEnd + 1);
+            }
+            position = chunk.start() + lineStart;
+            if (truncated || lineCount >= maxLines) {
+                break;
+            }
+        }
+        boolean moreAvailable = position < bufferEnd;
+        if (levelMask == 0) {
+            return new Update(new LogPageReader.Page(new String(lines, 0, length, StandardCharsets.UTF_8),
+                lineCount, offset, position, truncated), moreAvailable);
+        }
+
+        LogColumns columns = LogColumns.parse(lines, 0, length);
+        int[] rows = columns.select(levelMask, Long.MIN_VALUE, Long.MAX_VALUE);
+        StringBuilder text = new StringBuilder();
+        for (int row : rows) {
+            text.append(columns.line(row)).append('\n');
+        }
+        return new Update(new LogPageReader.Page(text.toString(), rows.length, offset, position, truncated),
+            moreAvailable);
+    }
+
+    private long lastLineBoundary(long size) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(LogTailReader.BLOCK_SIZE);
+        long blockEnd = size;
+        while (blockEnd > 0) {
+            long blockStart = Math.max(0, blockEnd - LogTailReader.BLOCK_SIZE);
+            block.clear().limit((int) (blockEnd - blockStart));
+            while (block.hasRemaining()) {
+                if (file.read(block, blockStart + block.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = block.position() - 1; i >= 0; i--) {
+                if (block.get(i) == '\n') {
+                    return blockStart + i + 1;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return 0;
+    }
+
+    private static int lastNewline(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
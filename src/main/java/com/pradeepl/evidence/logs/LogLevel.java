@@ -0,0 +1,124 @@
+package com.pradeepl.evidence.logs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Severity of a log line, as written after the timestamp.
+ */
+public enum LogLevel {
+    UNKNOWN, TRACE, DEBUG, INFO, WARN, ERROR, FATAL;
+
+    private static final LogLevel[] VALUES = values();
+
+    /**
+     * @return Bit for this level in a level mask
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @return The level with the given ordinal
+     */
+    public static LogLevel of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Parses a comma-separated list of level names (e.g. "ERROR,WARN") into a mask.
+     *
+     * @return Bitmask of the selected levels, or 0 if the list is null or blank
+     * @throws IllegalArgumentException for unknown level names
+     */
+    public static int parseMask(String levels) {
+        if (levels == null || levels.isBlank()) {
+            return 0;
+        }
+        int mask = 0;
+        for (String name : levels.split("[,\\s]+")) {
+            if (!name.isEmpty()) {
+                mask |= fromName(name).mask();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return Names of the levels in a mask, from least to most severe
+     */
+    public static List<String> names(int mask) {
+        List<String> names = new ArrayList<>();
+        for (LogLevel level : VALUES) {
+            if ((mask & level.mask()) != 0) {
+                names.add(level.name());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Resolves a level name, accepting common aliases (WARNING, CRITICAL, ERR).
+     */
+    public static LogLevel fromName(String name) {
+        return switch (name.trim().toUpperCase(Locale.ROOT)) {
+            case "TRACE" -> TRACE;
+            case "DEBUG" -> DEBUG;
+            case "INFO" -> INFO;
+            case "WARN", "WARNING" -> WARN;
+            case "ERROR", "ERR" -> ERROR;
+            case "FATAL", "CRITICAL" -> FATAL;
+            default -> throw new IllegalArgumentException("Unknown log level: " + name
+                + " (expected TRACE, DEBUG, INFO, WARN, ERROR or FATAL)");
+        };
+    }
+
+    /**
+     * Parses the level that follows the timestamp of a line.
+     *
+     * @return The level's ordinal, {@code UNKNOWN} if the word after the timestamp is not a
+     *         level, or -1 if the line has no timestamp (a continuation of the previous line)
+     */
+    public static int parse(byte[] buffer, int start, int end) {
+        int position = LogTimestamps.timestampEnd(buffer, start, end);
+        if (position < 0) {
+            return -1;
+        }
+        while (position < end && buffer[position] == ' ') {
+            position++;
+        }
+        return parseWord(buffer, position, end);
+    }
+
+    /**
+     * Parses a level word starting at {@code position}.
+     *
+     * @return The level's ordinal, or {@code UNKNOWN} if the word is not a level
+     */
+    static int parseWord(byte[] buffer, int position, int end) {
+        int wordStart = position;
+        while (position < end && buffer[position] >= 'A' && buffer[position] <= 'Z') {
+            position++;
+        }
+        return switch (position - wordStart) {
+            case 4 -> matches(buffer, wordStart, "INFO") ? INFO.ordinal()
+                : matches(buffer, wordStart, "WARN") ? WARN.ordinal() : UNKNOWN.ordinal();
+            case 5 -> matches(buffer, wordStart, "ERROR") ? ERROR.ordinal()
+                : matches(buffer, wordStart, "DEBUG") ? DEBUG.ordinal()
+                : matches(buffer, wordStart, "TRACE") ? TRACE.ordinal()
+                : matches(buffer, wordStart, "FATAL") ? FATAL.ordinal() : UNKNOWN.ordinal();
+            case 7 -> matches(buffer, wordStart, "WARNING") ? WARN.ordinal() : UNKNOWN.ordinal();
+            default -> UNKNOWN.ordinal();
+        };
+    }
+
+    private static boolean matches(byte[] buffer, int start, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (buffer[start + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Forward line iteration over a byte range of a log, reusing a single buffer.
+ *
+ * Lines are handed to the visitor as offsets into the shared buffer, so scanning does not
+ * allocate per line. The buffer is only valid for the duration of each callback.
+ */
+public final class LogLineScanner {
+
+    private LogLineScanner() {
+    }
+
+    /**
+     * Receives one line at a time.
+     */
+    @FunctionalInterface
+    public interface LineVisitor {
+
+        /**
+         * @param buffer Buffer holding the line
+         * @param start Offset of the first byte of the line in buffer
+         * @param end Offset of the terminating newline (or end of data) in buffer
+         * @param fileOffset Byte offset of the start of the line in the log
+         * @return False to stop scanning
+         */
+        boolean visit(byte[] buffer, int start, int end, long fileOffset) throws IOException;
+    }
+
+    /**
+     * Visits the lines in [from, to). {@code from} must be a line boundary; a final line not
+     * terminated before {@code to} is visited as well.
+     *
+     * @return Offset of the line the visitor stopped at, or {@code to} if every line was visited
+     */
+    public static long scan(LogFile file, long from, long to, LineVisitor visitor) throws IOException {
+        byte[] buffer = new byte[LogTailReader.BLOCK_SIZE];
+        long bufferStart = from;
+        int filled = 0;
+        int scanned = 0;
+
+        while (bufferStart + filled < to) {
+            int wanted = (int) Math.min(buffer.length - filled, to - bufferStart - filled);
+            int read = file.read(ByteBuffer.wrap(buffer, filled, wanted), bufferStart + filled);
+            if (read <= 0) {
+                break;
+            }
+            filled += read;
+
+            int lineStart = 0;
+            for (int i = scanned; i < filled; i++) {
+                if (buffer[i] == '\n') {
+                    if (!visitor.visit(buffer, lineStart, i, bufferStart + lineStart)) {
+                        return bufferStart + lineStart;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+
+            if (lineStart == 0 && filled == buffer.length) {
+                // Line longer than the buffer: grow instead of splitting it
+                byte[] larger = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, larger, 0, filled);
+                buffer = larger;
+            } else if (lineStart > 0) {
+                System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+                bufferStart += lineStart;
+                filled -= lineStart;
+            }
+            scanned = filled;
+        }
+
+        if (filled > 0 && !visitor.visit(buffer, 0, filled, bufferStart)) {
+            return bufferStart;
+        }
+        return Math.min(to, bufferStart + filled);
+    }
+}
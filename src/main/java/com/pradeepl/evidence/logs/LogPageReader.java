@@ -0,0 +1,225 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads bounded pages of lines relative to a byte offset, backing cursor-based pagination
+ * in fetch_logs.
+ *
+ * Each page reads only the blocks around its own lines and is additionally capped at
+ * {@link #MAX_PAGE_BYTES}, so the cost of a page is independent of the total file size.
+ */
+public final class LogPageReader {
+
+    /** Upper bound on the bytes returned in a single page. */
+    public static final int MAX_PAGE_BYTES = 1024 * 1024;
+
+    private LogPageReader() {
+    }
+
+    /**
+     * A page of log lines.
+     *
+     * @param text Selected lines, each terminated by a newline
+     * @param lineCount Number of lines in text
+     * @param startOffset Byte offset of the first line, where the next older page ends
+     * @param endOffset Byte offset just past the page, where the next newer page starts
+     * @param truncated True if fewer lines than requested were returned because of the byte cap
+     */
+    public record Page(String text, int lineCount, long startOffset, long endOffset, boolean truncated) {}
+
+    /**
+     * Reads one page of a log relative to an offset inside a time window. Level-filtered
+     * reads go through the file's level index so non-matching lines are never decoded.
+     *
+     * @param offset Line boundary inside the window to read from
+     * @param direction Whether to read the lines before (OLDER) or after (NEWER) the offset
+     * @param levelMask Bitmask of {@link LogLevel} values to include, or 0 for all lines
+     */
+    public static Page read(LogFile file, LogWindow window, long offset, LogCursor.Direction direction,
+                            int lines, int levelMask) throws IOException {
+        if (levelMask != 0) {
+            LevelIndex levelIndex = LevelIndex.of(file);
+            return direction == LogCursor.Direction.OLDER
+                ? levelIndex.selectBefore(offset, window.startOffset(), lines, levelMask)
+                : levelIndex.selectAfter(offset, window.endOffset(), lines, levelMask);
+        }
+        return direction == LogCursor.Direction.OLDER
+            ? before(file, offset, lines, window.startOffset())
+            : after(file, offset, lines, window.endOffset());
+    }
+
+    /**
+     * Returns the most recent lines of the log.
+     */
+    public static Page tail(LogFile file, int lines) throws IOException {
+        return before(file, file.size(), lines);
+    }
+
+    /**
+     * Returns up to {@code lines} lines ending at {@code offset}.
+     *
+     * @param offset Line boundary to read back from; trailing blank lines before it are skipped
+     */
+    public static Page before(LogFile file, long offset, int lines) throws IOException {
+        return before(file, offset, lines, 0);
+    }
+
+    /**
+     * Returns up to {@code lines} lines ending at {@code offset}, none of them before
+     * {@code floor}.
+     *
+     * @param offset Line boundary to read back from; trailing blank lines before it are skipped
+     * @param floor Line boundary the page must not extend past (e.g. the start of a time window)
+     */
+    public static Page before(LogFile file, long offset, int lines, long floor) throws IOException {
+        long contentEnd = LogTailReader.trimTrailingNewlines(file, offset);
+        if (contentEnd <= floor || lines <= 0) {
+            return new Page("", 0, Math.max(floor, contentEnd), offset, false);
+        }
+
+        long start = LogTailReader.findLineStartBackwards(file, contentEnd, lines, floor);
+        boolean truncated = false;
+        if (contentEnd - start > MAX_PAGE_BYTES) {
+            long capped = findLineStartForwards(file, contentEnd - MAX_PAGE_BYTES, contentEnd);
+            if (capped < contentEnd) {
+                start = capped;
+                truncated = true;
+            }
+        }
+
+        byte[] region = file.readRange(start, contentEnd);
+        return new Page(LogTailReader.decodeLines(region), LogTailReader.countLines(region), start, offset, truncated);
+    }
+
+    /**
+     * Returns up to {@code lines} lines starting at {@code offset}.
+     *
+     * @param offset Line boundary to read forward from
+     */
+    public static Page after(LogFile file, long offset, int lines) throws IOException {
+        return after(file, offset, lines, file.size());
+    }
+
+    /**
+     * Returns up to {@code lines} lines starting at {@code offset}, none of them at or after
+     * {@code ceiling}.
+     *
+     * @param offset Line boundary to read forward from
+     * @param ceiling Line boundary or file size the page must stop at (e.g. the end of a time window)
+     */
+    public static Page after(LogFile file, long offset, int lines, long ceiling) throws IOException {
+        long fileSize = file.size();
+        long size = Math.min(fileSize, ceiling);
+        if (offset >= size || lines <= 0) {
+            return new Page("", 0, offset, offset, false);
+        }
+
+        long limit = Math.min(size, offset + MAX_PAGE_BYTES);
+        long end = findLineEndForwards(file, offset, lines, limit);
+        boolean truncated = false;
+        if (end == limit && limit < size) {
+            // The byte cap was hit mid-line: stop at the last complete line, unless that leaves nothing
+            long lastBoundary = findLastLineBoundary(file, offset, limit);
+            if (lastBoundary > offset) {
+                end = lastBoundary;
+            } else {
+                end = findLineEndForwards(file, offset, 1, size);
+            }
+            truncated = true;
+        }
+        if (end == fileSize) {
+            // Leave an unterminated last line to a later page, once the writer has finished it
+            end = resumeOffset(file, end);
+            if (end == offset) {
+                return new Page("", 0, offset, offset, false);
+            }
+        }
+
+        byte[] region = file.readRange(offset, end);
+        return new Page(LogTailReader.decodeLines(region), LogTailReader.countLines(region), offset, end, truncated);
+    }
+
+    /**
+     * Returns where reading newer lines resumes after a page ending at {@code endOffset}: the
+     * start of the file's last line if the page ends in it and it is unterminated, since a
+     * writer may still be appending to it; otherwise {@code endOffset}.
+     */
+    public static long resumeOffset(LogFile file, long endOffset) throws IOException {
+        if (endOffset <= 0 || endOffset < file.size() || file.readRange(endOffset - 1, endOffset)[0] == '\n') {
+            return endOffset;
+        }
+        return findLastLineBoundary(file, 0, endOffset);
+    }
+
+    /**
+     * Returns the first line start at or after {@code from}, or {@code limit} if none is found.
+     */
+    static long findLineStartForwards(LogFile file, long from, long limit) throws IOException {
+        if (from <= 0) {
+            return 0;
+        }
+        long newline = indexOfNewline(file, from - 1, limit);
+        return newline < 0 ? limit : newline + 1;
+    }
+
+    /**
+     * Returns the offset just past the {@code lines}-th newline at or after {@code start},
+     * or {@code limit} if fewer newlines exist before it.
+     */
+    static long findLineEndForwards(LogFile file, long start, int lines, long limit) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(LogTailReader.BLOCK_SIZE);
+        int newlinesNeeded = lines;
+        long position = start;
+
+        while (position < limit) {
+            block.clear().limit((int) Math.min(LogTailReader.BLOCK_SIZE, limit - position));
+            int read = file.read(block, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n' && --newlinesNeeded == 0) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return limit;
+    }
+
+    private static long indexOfNewline(LogFile file, long from, long limit) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(LogTailReader.BLOCK_SIZE);
+        long position = from;
+        while (position < limit) {
+            block.clear().limit((int) Math.min(LogTailReader.BLOCK_SIZE, limit - position));
+            int read = file.read(block, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return -1;
+    }
+
+    private static long findLastLineBoundary(LogFile file, long start, long end) throws IOException {
+        long blockEnd = end;
+        while (blockEnd > start) {
+            long blockStart = Math.max(start, blockEnd - LogTailReader.BLOCK_SIZE);
+            byte[] block = file.readRange(blockStart, blockEnd);
+            for (int i = block.length - 1; i >= 0; i--) {
+                if (block[i] == '\n') {
+                    return blockStart + i + 1;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return start;
+    }
+}
@@ -0,0 +1,49 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Pluggable backend that resolves a service name to its log.
+ *
+ * Sources may cache the {@link LogFile} instances they hand out across calls. Each call to
+ * {@link #open(String)} hands the caller its own reference, which the caller closes when done
+ * (see {@link LogFile#retain()}); the file stays open for other callers and the cache.
+ */
+public interface LogSource extends Closeable {
+
+    /** Service names are used to build file names, so only simple identifiers are accepted. */
+    Pattern SERVICE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    /**
+     * @return Short identifier of the backend, reported as "source" in tool responses
+     */
+    String name();
+
+    /**
+     * Returns the log for a service. The caller must close it when done.
+     *
+     * @param service Service name, e.g. payment-service
+     * @return The service log, or null if this source has no log for the service
+     */
+    LogFile open(String service) throws IOException;
+
+    /**
+     * @return Names of all services this source currently has logs for
+     */
+    Set<String> services();
+
+    /**
+     * Checks that a service name is safe to use as part of a file or resource name.
+     */
+    static boolean isValidServiceName(String service) {
+        return service != null && SERVICE_NAME.matcher(service).matches() && !service.contains("..");
+    }
+
+    @Override
+    default void close() throws IOException {
+        // Nothing to release by default
+    }
+}
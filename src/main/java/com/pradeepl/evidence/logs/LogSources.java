@@ -0,0 +1,73 @@
+package com.pradeepl.evidence.logs;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Creates the {@link LogSource} configured under {@code evidence.logs} in application.conf.
+ *
+ * MCP endpoint instances are short-lived, so the source (and the file handles it caches)
+ * is held here for the lifetime of the service.
+ */
+public final class LogSources {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogSources.class);
+
+    private static volatile LogSource shared;
+
+    private LogSources() {
+    }
+
+    /**
+     * @return The service-wide log source, created from configuration on first use
+     */
+    public static LogSource shared() {
+        LogSource source = shared;
+        if (source == null) {
+            synchronized (LogSources.class) {
+                source = shared;
+                if (source == null) {
+                    source = fromConfig(ConfigFactory.load());
+                    shared = source;
+                }
+            }
+        }
+        return source;
+    }
+
+    /**
+     * Builds a log source from configuration. An empty {@code evidence.logs.directory}
+     * selects the logs bundled on the classpath.
+     */
+    public static LogSource fromConfig(Config config) {
+        String directory = config.hasPath("evidence.logs.directory")
+            ? config.getString("evidence.logs.directory")
+            : "";
+        long maxSizeStalenessMillis = config.hasPath("evidence.logs.max-size-staleness")
+            ? config.getDuration("evidence.logs.max-size-staleness").toMillis()
+            : 1000L;
+
+        String blockCache = config.hasPath("evidence.logs.block-cache-directory")
+            ? config.getString("evidence.logs.block-cache-directory")
+            : "";
+        Path blockCacheDirectory = blockCache.isBlank()
+            ? DirectoryLogSource.DEFAULT_BLOCK_CACHE_DIRECTORY
+            : Path.of(blockCache);
+
+        if (!directory.isBlank()) {
+            try {
+                return new DirectoryLogSource(Path.of(directory), maxSizeStalenessMillis, blockCacheDirectory);
+            } catch (IOException e) {
+                logger.error("📂 Cannot serve logs from directory {}, falling back to classpath: {}",
+                    directory, e.getMessage());
+            }
+        }
+        return new ClasspathLogSource(LogSources.class.getClassLoader());
+    }
+}
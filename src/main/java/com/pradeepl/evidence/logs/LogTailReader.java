@@ -0,0 +1,103 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds the last N lines of a log by scanning fixed-size blocks backwards from an offset.
+ *
+ * Only the blocks needed to find N line breaks are read, so the cost of a tail depends on the
+ * number of lines requested rather than on the size of the file. {@link LogPageReader} uses
+ * these scans to read pages before an offset and decodes only the selected region.
+ */
+public final class LogTailReader {
+
+    /** Size of each backwards read. */
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private LogTailReader() {
+    }
+
+    /**
+     * Finds the offset where the {@code lines}-th line counting back from {@code end} starts.
+     *
+     * @param file Log to scan
+     * @param end Offset to scan back from; the byte before it is assumed to be part of a line
+     * @param lines Number of lines to step back over
+     * @return Start offset of the earliest selected line, or 0 if the file has fewer lines
+     */
+    public static long findLineStartBackwards(LogFile file, long end, int lines) throws IOException {
+        return findLineStartBackwards(file, end, lines, 0);
+    }
+
+    /**
+     * Like {@link #findLineStartBackwards(LogFile, long, int)} but never scans before
+     * {@code floor}, which must be a line boundary.
+     */
+    public static long findLineStartBackwards(LogFile file, long end, int lines, long floor) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+        int newlinesNeeded = lines;
+        long blockEnd = end;
+
+        while (blockEnd > floor) {
+            long blockStart = Math.max(floor, blockEnd - BLOCK_SIZE);
+            block.clear().limit((int) (blockEnd - blockStart));
+            readFully(file, block, blockStart);
+
+            for (int i = block.limit() - 1; i >= 0; i--) {
+                if (block.get(i) == '\n' && --newlinesNeeded == 0) {
+                    return blockStart + i + 1;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return floor;
+    }
+
+    /**
+     * Returns the offset just past the last non-newline byte at or before {@code end}.
+     */
+    static long trimTrailingNewlines(LogFile file, long end) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        while (end > 0) {
+            one.clear();
+            if (file.read(one, end - 1) <= 0 || one.get(0) != '\n') {
+                break;
+            }
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Decodes a newline-separated region, guaranteeing the result ends with a newline.
+     */
+    static String decodeLines(byte[] region) {
+        String text = new String(region, StandardCharsets.UTF_8);
+        return text.isEmpty() || text.endsWith("\n") ? text : text + "\n";
+    }
+
+    static int countLines(byte[] region) {
+        if (region.length == 0) {
+            return 0;
+        }
+        int count = 0;
+        for (byte b : region) {
+            if (b == '\n') {
+                count++;
+            }
+        }
+        return region[region.length - 1] == '\n' ? count : count + 1;
+    }
+
+    private static void readFully(LogFile file, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = file.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of log " + file.name() + " at offset " + position);
+            }
+            position += read;
+        }
+    }
+}
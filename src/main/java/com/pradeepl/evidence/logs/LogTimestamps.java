@@ -0,0 +1,169 @@
+package com.pradeepl.evidence.logs;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses the timestamp prefix of service log lines. Lines held as bytes are parsed in place
+ * without allocating; the {@link CharSequence} overload copies the prefix into a small
+ * buffer first and is meant for caller-supplied values rather than per-line scans.
+ *
+ * Lines start with either {@code yyyy-MM-dd HH:mm:ss.SSS} or the ISO form
+ * {@code yyyy-MM-ddTHH:mm:ssZ}; both are interpreted as UTC.
+ */
+public final class LogTimestamps {
+
+    /** Returned when a line does not start with a timestamp (e.g. stack trace continuations). */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final int MIN_LENGTH = "yyyy-MM-dd HH:mm:ss".length();
+
+    private LogTimestamps() {
+    }
+
+    /**
+     * Parses the timestamp at the start of a line.
+     *
+     * @param buffer Bytes holding the line
+     * @param start Offset of the first byte of the line
+     * @param end Offset just past the last byte available
+     * @return Epoch milliseconds, or {@link #NONE} if the line has no leading timestamp
+     */
+    public static long parse(byte[] buffer, int start, int end) {
+        if (end - start < MIN_LENGTH) {
+            return NONE;
+        }
+        int year = digits(buffer, start, 4);
+        int month = digits(buffer, start + 5, 2);
+        int day = digits(buffer, start + 8, 2);
+        int hour = digits(buffer, start + 11, 2);
+        int minute = digits(buffer, start + 14, 2);
+        int second = digits(buffer, start + 17, 2);
+        if ((year | month | day | hour | minute | second) < 0
+                || buffer[start + 4] != '-' || buffer[start + 7] != '-'
+                || (buffer[start + 10] != ' ' && buffer[start + 10] != 'T')
+                || buffer[start + 13] != ':' || buffer[start + 16] != ':'
+                || month < 1 || month > 12 || day < 1 || day > 31) {
+            return NONE;
+        }
+
+        int millis = 0;
+        int position = start + MIN_LENGTH;
+        if (position < end && buffer[position] == '.') {
+            int scale = 100;
+            for (position++; position < end && isDigit(buffer[position]); position++) {
+                millis += (buffer[position] - '0') * scale;
+                scale /= 10;
+            }
+        }
+
+        long epochDay = epochDay(year, month, day);
+        return ((epochDay * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+    }
+
+    /**
+     * Returns the offset just past the leading timestamp (including fractional seconds and
+     * a trailing zone designator), or -1 if the line does not start with a timestamp.
+     */
+    public static int timestampEnd(byte[] buffer, int start, int end) {
+        if (parse(buffer, start, end) == NONE) {
+            return -1;
+        }
+        int position = start + MIN_LENGTH;
+        while (position < end && buffer[position] != ' ') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Parses the timestamp at the start of a line held as text. Allocates a copy of the first
+     * 32 characters; use {@link #parse(byte[], int, int)} on hot paths.
+     */
+    public static long parse(CharSequence line) {
+        int length = Math.min(line.length(), 32);
+        byte[] prefix = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            prefix[i] = c < 128 ? (byte) c : (byte) '?';
+        }
+        return parse(prefix, 0, length);
+    }
+
+    /**
+     * Parses a since/until boundary supplied by a caller.
+     *
+     * Accepts ISO instants ({@code 2025-01-15T14:25:00Z}), the log format
+     * ({@code 2025-01-15 14:25:00.000}), epoch milliseconds, or a bare UTC time of day
+     * ({@code 14:25}, {@code 14:25Z}, {@code 14:25:30Z}) which is resolved against the date
+     * of {@code referenceMillis}.
+     *
+     * @param text Boundary supplied by the caller
+     * @param referenceMillis Timestamp whose date is used for time-of-day boundaries
+     * @return Epoch milliseconds
+     * @throws IllegalArgumentException if the boundary cannot be parsed
+     */
+    public static long parseBoundary(String text, long referenceMillis) {
+        String value = text.trim();
+        if (value.matches("\\d{10,}")) {
+            return Long.parseLong(value);
+        }
+
+        try {
+            return Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException ignored) {
+            // Not an ISO instant, try the log format and then time of day
+        }
+
+        long logFormat = parse(value);
+        if (logFormat != NONE) {
+            return logFormat;
+        }
+
+        String timeOfDay = value.endsWith("Z") ? value.substring(0, value.length() - 1) : value;
+        if (timeOfDay.matches("\\d{1,2}:\\d{2}(:\\d{2}(\\.\\d{1,3})?)?")) {
+            String[] parts = timeOfDay.split("[:.]");
+            long millisOfDay = Long.parseLong(parts[0]) * 3_600_000L + Long.parseLong(parts[1]) * 60_000L;
+            if (parts.length > 2) {
+                millisOfDay += Long.parseLong(parts[2]) * 1000L;
+            }
+            if (parts.length > 3) {
+                millisOfDay += Long.parseLong((parts[3] + "00").substring(0, 3));
+            }
+            LocalDate date = Instant.ofEpochMilli(referenceMillis).atZone(ZoneOffset.UTC).toLocalDate();
+            return date.toEpochDay() * 86_400_000L + millisOfDay;
+        }
+
+        throw new IllegalArgumentException("Unrecognized time: " + text
+            + " (use e.g. 2025-01-15T14:25:00Z, 2025-01-15 14:25:00 or 14:25Z)");
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's algorithm).
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int digits(byte[] buffer, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            if (!isDigit(buffer[i])) {
+                return -1;
+            }
+            value = value * 10 + (buffer[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
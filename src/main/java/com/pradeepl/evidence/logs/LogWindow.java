@@ -0,0 +1,52 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+
+/**
+ * Byte range of a log covering a since/until time window.
+ *
+ * @param startOffset Offset of the first line at or after since (0 when unbounded)
+ * @param endOffset Offset of the first line at or after until (file size when unbounded)
+ * @param sinceMillis Resolved lower bound in epoch milliseconds, or null
+ * @param untilMillis Resolved upper bound in epoch milliseconds, or null
+ */
+public record LogWindow(long startOffset, long endOffset, Long sinceMillis, Long untilMillis) {
+
+    /**
+     * Resolves a half-open [since, until) time window to byte offsets through the file's
+     * {@link TimestampIndex}. Blank bounds leave that side of the window open.
+     *
+     * @throws IllegalArgumentException if a bound cannot be parsed
+     */
+    public static LogWindow resolve(LogFile file, String since, String until) throws IOException {
+        long size = file.size();
+        boolean hasSince = since != null && !since.isBlank();
+        boolean hasUntil = until != null && !until.isBlank();
+        if (!hasSince && !hasUntil) {
+            return new LogWindow(0, size, null, null);
+        }
+
+        TimestampIndex index = TimestampIndex.of(file);
+        long reference = index.latestTimestamp(size);
+        Long sinceMillis = hasSince ? LogTimestamps.parseBoundary(since, reference) : null;
+        Long untilMillis = hasUntil ? LogTimestamps.parseBoundary(until, reference) : null;
+
+        long start = sinceMillis != null ? index.lowerBound(sinceMillis, size) : 0;
+        long end = untilMillis != null ? index.lowerBound(untilMillis, size) : size;
+        return new LogWindow(start, Math.max(start, end), sinceMillis, untilMillis);
+    }
+
+    /**
+     * @return True if the window restricts the log by time
+     */
+    public boolean isBounded() {
+        return sinceMillis != null || untilMillis != null;
+    }
+
+    /**
+     * Clamps an offset into the window.
+     */
+    public long clamp(long offset) {
+        return Math.max(startOffset, Math.min(endOffset, offset));
+    }
+}
@@ -0,0 +1,178 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from request ID ({@code [req-...]} token) to the lines of one log file
+ * that carry it.
+ *
+ * The index remembers how far it has read and only scans bytes appended since the previous
+ * lookup, so keeping it current costs O(new data). An unterminated last line is indexed
+ * provisionally and re-read on the next catch-up, since it may still be being written.
+ */
+public final class RequestIdIndex {
+
+    private static final byte[] TOKEN_PREFIX = "[req-".getBytes(StandardCharsets.US_ASCII);
+
+    private final LogFile file;
+    private final Map<String, Postings> postings = new HashMap<>();
+    private long indexedUpTo;
+    private Postings provisional;
+
+    private RequestIdIndex(LogFile file) {
+        this.file = file;
+    }
+
+    /**
+     * @return The index attached to a log file, created on first use
+     */
+    public static RequestIdIndex of(LogFile file) {
+        return file.index(RequestIdIndex.class, RequestIdIndex::new);
+    }
+
+    /**
+     * Brings the index up to date with the file and returns the lines for a request.
+     *
+     * @param requestId Normalized request ID, e.g. req-12345
+     * @return Raw lines (without trailing newline) in file order; empty if none
+     */
+    public synchronized String[] lookup(String requestId) throws IOException {
+        catchUp(file.size());
+
+        Postings lines = postings.get(requestId);
+        if (lines == null) {
+            return new String[0];
+        }
+
+        String[] result = new String[lines.size];
+        for (int i = 0; i < lines.size; i++) {
+            byte[] line = file.readRange(lines.offsets[i], lines.offsets[i] + lines.lengths[i]);
+            result[i] = new String(line, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    /**
+     * Brings the index up to date with the file and returns the lines for a request as one
+     * buffer, each line followed by a newline, for parsing into {@link LogColumns}.
+     *
+     * @param requestId Normalized request ID, e.g. req-12345
+     * @return The lines in file order; empty if none
+     */
+    public synchronized byte[] lines(String requestId) throws IOException {
+        catchUp(file.size());
+
+        Postings lines = postings.get(requestId);
+        if (lines == null) {
+            return new byte[0];
+        }
+
+        long total = 0;
+        for (int i = 0; i < lines.size; i++) {
+            total += lines.lengths[i] + 1;
+        }
+        byte[] result = new byte[Math.toIntExact(total)];
+        int position = 0;
+        for (int i = 0; i < lines.size; i++) {
+            byte[] line = file.readRange(lines.offsets[i], lines.offsets[i] + lines.lengths[i]);
+            System.arraycopy(line, 0, result, position, line.length);
+            position += line.length;
+            result[position++] = '\n';
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of bytes of the file covered by the index
+     */
+    public synchronized long indexedUpTo() {
+        return indexedUpTo;
+    }
+
+    /**
+     * Accepts "req-12345", "[req-12345]" or "12345" and returns the token form used in logs.
+     */
+    public static String normalize(String requestId) {
+        String id = requestId.trim();
+        if (id.startsWith("[") && id.endsWith("]")) {
+            id = id.substring(1, id.length() - 1);
+        }
+        return id.startsWith("req-") ? id : "req-" + id;
+    }
+
+    private void catchUp(long size) throws IOException {
+        if (size <= indexedUpTo) {
+            return;
+        }
+        if (provisional != null) {
+            provisional.size--;
+            provisional = null;
+        }
+        LogLineScanner.scan(file, indexedUpTo, size, (buffer, start, end, fileOffset) -> {
+            boolean complete = fileOffset + (end - start) < size;
+            String requestId = extractRequestId(buffer, start, end);
+            if (requestId != null) {
+                Postings lines = postings.computeIfAbsent(requestId, key -> new Postings());
+                lines.add(fileOffset, end - start);
+                if (!complete) {
+                    provisional = lines;
+                }
+            }
+            if (complete) {
+                indexedUpTo = fileOffset + (end - start) + 1;
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Returns the request ID inside the first {@code [req-...]} token of a line, or null.
+     */
+    static String extractRequestId(byte[] buffer, int start, int end) {
+        int last = end - TOKEN_PREFIX.length;
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int j = 0; j < TOKEN_PREFIX.length; j++) {
+                if (buffer[i + j] != TOKEN_PREFIX[j]) {
+                    continue outer;
+                }
+            }
+            int idStart = i + 1;
+            for (int k = i + TOKEN_PREFIX.length; k < end; k++) {
+                if (buffer[k] == ']') {
+                    return k > i + TOKEN_PREFIX.length
+                        ? new String(buffer, idStart, k - idStart, StandardCharsets.US_ASCII)
+                        : null;
+                }
+                if (buffer[k] == ' ') {
+                    return null;
+                }
+            }
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Growable list of (offset, length) line references.
+     */
+    private static final class Postings {
+        long[] offsets = new long[4];
+        int[] lengths = new int[4];
+        int size;
+
+        void add(long offset, int length) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+    }
+}
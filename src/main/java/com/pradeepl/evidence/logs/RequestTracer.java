@@ -0,0 +1,63 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects every log line for one request across all services of a {@link LogSource}.
+ *
+ * Each file's {@link RequestIdIndex} finds the candidate lines, which are parsed into
+ * {@link LogColumns}: the request ID column keeps only lines whose {@code [req-id]} token is
+ * the request (not ones that merely mention it), and the timestamp, level and service columns
+ * describe each line without parsing its text again.
+ */
+public final class RequestTracer {
+
+    private RequestTracer() {
+    }
+
+    /**
+     * A single line of a request trace.
+     *
+     * @param service Service named by the line's {@code [service]} token, else the service
+     *                whose log contains the line
+     * @param timestamp Epoch milliseconds parsed from the line, or {@link LogTimestamps#NONE}
+     * @param level Level of the line
+     * @param line The raw log line
+     */
+    public record TraceLine(String service, long timestamp, LogLevel level, String line) {}
+
+    /**
+     * Returns all lines carrying the request ID, ordered by timestamp. Lines from the same
+     * file keep their file order when timestamps are equal.
+     *
+     * @param source Log source to search
+     * @param requestId Request ID in any form accepted by {@link RequestIdIndex#normalize(String)}
+     */
+    public static List<TraceLine> trace(LogSource source, String requestId) throws IOException {
+        String normalized = RequestIdIndex.normalize(requestId);
+        List<TraceLine> lines = new ArrayList<>();
+
+        for (String service : source.services()) {
+            try (LogFile file = source.open(service)) {
+                if (file == null) {
+                    continue;
+                }
+                byte[] candidates = RequestIdIndex.of(file).lines(normalized);
+                LogColumns columns = LogColumns.parse(candidates, 0, candidates.length);
+                for (int row : columns.rowsForRequest(columns.requestIdCode(normalized))) {
+                    int serviceCode = columns.service(row);
+                    lines.add(new TraceLine(
+                        serviceCode == LogColumns.NO_CODE ? service : columns.serviceName(serviceCode),
+                        columns.timestamp(row), LogLevel.of(columns.level(row)), columns.line(row)));
+                }
+            }
+        }
+
+        // List.sort is stable, so equal timestamps keep per-file order
+        lines.sort(Comparator.comparingLong(TraceLine::timestamp));
+        return lines;
+    }
+}
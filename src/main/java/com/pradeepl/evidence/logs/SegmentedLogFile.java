@@ -0,0 +1,114 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Presents rotated segments followed by the active file as one continuous log.
+ *
+ * Rotated segments are immutable, so their start offsets are fixed and only the active
+ * (last) segment grows. Offsets, cursors and per-file indexes all address this combined
+ * view, so tails and time-window queries read across rotation boundaries seamlessly and
+ * touch only the segments (and, for compressed segments, the blocks) they need. A rotated
+ * segment whose last line lacks a newline is followed by one, so its last line is not joined
+ * to the first line of the next segment.
+ */
+final class SegmentedLogFile extends LogFile {
+
+    private final List<LogFile> segments;
+    private final long[] starts;
+    /** Sizes of the rotated segments, without the newline added after an unterminated one. */
+    private final long[] sizes;
+    private final String id;
+
+    /**
+     * @param name Name reported for the combined log
+     * @param segments Segments from oldest to newest; the last one is the active file
+     */
+    SegmentedLogFile(String name, List<LogFile> segments) throws IOException {
+        super(name);
+        this.segments = List.copyOf(segments);
+        this.starts = new long[segments.size()];
+        this.sizes = new long[segments.size()];
+
+        long position = 0;
+        StringBuilder identity = new StringBuilder();
+        for (int i = 0; i < segments.size(); i++) {
+            starts[i] = position;
+            if (i < segments.size() - 1) {
+                LogFile segment = segments.get(i);
+                sizes[i] = segment.size();
+                boolean unterminated = sizes[i] > 0 && segment.readRange(sizes[i] - 1, sizes[i])[0] != '\n';
+                position += sizes[i] + (unterminated ? 1 : 0);
+            }
+            identity.append(segments.get(i).id()).append('/');
+        }
+        this.id = Integer.toHexString(identity.toString().hashCode());
+    }
+
+    /**
+     * Changes whenever a segment is added, removed or replaced, since offsets shift then.
+     */
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public long size() throws IOException {
+        int last = segments.size() - 1;
+        return starts[last] + segments.get(last).size();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        int segment = Arrays.binarySearch(starts, position);
+        if (segment < 0) {
+            segment = -segment - 2;
+        } else {
+            // Skip over empty segments that share a start offset
+            while (segment + 1 < starts.length && starts[segment + 1] == position) {
+                segment++;
+            }
+        }
+        LogFile file = segments.get(segment);
+        long local = position - starts[segment];
+        if (segment < segments.size() - 1) {
+            if (local >= sizes[segment]) {
+                // The newline ending an unterminated segment
+                if (!dst.hasRemaining()) {
+                    return 0;
+                }
+                dst.put((byte) '\n');
+                return 1;
+            }
+            long remaining = sizes[segment] - local;
+            if (dst.remaining() > remaining) {
+                ByteBuffer slice = dst.slice().limit((int) remaining);
+                int read = file.read(slice, local);
+                if (read > 0) {
+                    dst.position(dst.position() + read);
+                }
+                return read;
+            }
+        }
+        return file.read(dst, local);
+    }
+
+    @Override
+    protected void release() throws IOException {
+        IOException failure = null;
+        for (LogFile segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
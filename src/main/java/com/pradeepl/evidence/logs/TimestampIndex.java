@@ -0,0 +1,133 @@
+package com.pradeepl.evidence.logs;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Sparse, lazily built index from byte offsets to log timestamps for one log file.
+ *
+ * The file is divided into a grid of {@link #STRIDE}-byte cells. The first timestamped line
+ * of a cell is only located (one small read) when a binary search touches that cell, and the
+ * result is kept for later queries. Because logs are append-only, probes never go stale and
+ * growth of the file simply adds cells. A time lookup therefore costs O(log(size / STRIDE))
+ * probes plus a scan of at most one cell.
+ */
+public final class TimestampIndex {
+
+    /** Distance between grid points in bytes. */
+    static final int STRIDE = 64 * 1024;
+
+    private static final long UNPROBED = -1;
+
+    private final LogFile file;
+    private long[] lineOffsets = new long[0];
+    private long[] timestamps = new long[0];
+
+    private TimestampIndex(LogFile file) {
+        this.file = file;
+    }
+
+    /**
+     * @return The index attached to a log file, created on first use
+     */
+    public static TimestampIndex of(LogFile file) {
+        return file.index(TimestampIndex.class, TimestampIndex::new);
+    }
+
+    /**
+     * Finds the first line whose timestamp is at or after {@code target}.
+     *
+     * @param target Epoch milliseconds
+     * @param size Current size of the log
+     * @return Offset of that line, or {@code size} if every line is earlier
+     */
+    public synchronized long lowerBound(long target, long size) throws IOException {
+        int cells = (int) ((size + STRIDE - 1) / STRIDE);
+        ensureCapacity(cells);
+
+        int low = 0;
+        int high = cells;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (probe(mid, size) && timestamps[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        long scanFrom = low == 0 ? 0 : lineOffsets[low - 1];
+        long scanTo = low < cells && probe(low, size) ? lineOffsets[low] : size;
+
+        long[] found = {scanTo};
+        LogLineScanner.scan(file, scanFrom, scanTo, (buffer, start, end, fileOffset) -> {
+            long timestamp = LogTimestamps.parse(buffer, start, end);
+            if (timestamp != LogTimestamps.NONE && timestamp >= target) {
+                found[0] = fileOffset;
+                return false;
+            }
+            return true;
+        });
+        return found[0];
+    }
+
+    /**
+     * Returns the timestamp of the most recent timestamped line, used to resolve bare times
+     * of day in since/until.
+     *
+     * @return Epoch milliseconds, or the current time if the log has no timestamped lines
+     */
+    public long latestTimestamp(long size) throws IOException {
+        long end = LogTailReader.trimTrailingNewlines(file, size);
+        for (int attempt = 0; attempt < 100 && end > 0; attempt++) {
+            long start = LogTailReader.findLineStartBackwards(file, end, 1);
+            byte[] prefix = file.readRange(start, Math.min(end, start + 64));
+            long timestamp = LogTimestamps.parse(prefix, 0, prefix.length);
+            if (timestamp != LogTimestamps.NONE) {
+                return timestamp;
+            }
+            end = LogTailReader.trimTrailingNewlines(file, start);
+        }
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Locates the first timestamped line starting at or after the given grid point.
+     *
+     * @return False if there is no such line in the log yet
+     */
+    private boolean probe(int cell, long size) throws IOException {
+        if (lineOffsets[cell] != UNPROBED) {
+            return true;
+        }
+
+        long lineStart = LogPageReader.findLineStartForwards(file, (long) cell * STRIDE, size);
+        long[] found = {UNPROBED, LogTimestamps.NONE};
+        LogLineScanner.scan(file, lineStart, size, (buffer, start, end, fileOffset) -> {
+            long timestamp = LogTimestamps.parse(buffer, start, end);
+            if (timestamp != LogTimestamps.NONE) {
+                found[0] = fileOffset;
+                found[1] = timestamp;
+                return false;
+            }
+            return true;
+        });
+
+        if (found[0] == UNPROBED) {
+            return false;
+        }
+        lineOffsets[cell] = found[0];
+        timestamps[cell] = found[1];
+        return true;
+    }
+
+    private void ensureCapacity(int cells) {
+        if (cells > lineOffsets.length) {
+            int previous = lineOffsets.length;
+            int capacity = Math.max(cells, previous * 2);
+            lineOffsets = Arrays.copyOf(lineOffsets, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            Arrays.fill(lineOffsets, previous, capacity, UNPROBED);
+        }
+    }
+}
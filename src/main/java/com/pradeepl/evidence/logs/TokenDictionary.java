@@ -0,0 +1,125 @@
+package com.pradeepl.evidence.logs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Assigns dense int codes to short ASCII tokens (service names, request IDs) read straight
+ * from a byte buffer.
+ *
+ * Lookups hash and compare the bytes in place, so encoding a token that was seen before does
+ * not allocate. Token bytes are copied once into a shared arena when first added; the String
+ * form is only built on request.
+ */
+final class TokenDictionary {
+
+    private byte[] arena = new byte[1024];
+    private int arenaSize;
+    private int[] starts = new int[16];
+    private int[] lengths = new int[16];
+    private int[] hashes = new int[16];
+    private String[] strings = new String[16];
+    private int size;
+
+    /** Open-addressing table of code + 1, 0 marks an empty slot. */
+    private int[] table = new int[32];
+
+    /**
+     * Returns the code of the token in buffer[start, end), adding it if it is new.
+     */
+    int encode(byte[] buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return add(buffer, start, end, hash, slot);
+            }
+            int code = entry - 1;
+            if (hashes[code] == hash && equals(code, buffer, start, end)) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * @return The code of a token, or -1 if it has not been seen
+     */
+    int find(String token) {
+        byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+        int hash = hash(bytes, 0, bytes.length);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int code = entry - 1;
+            if (hashes[code] == hash && equals(code, bytes, 0, bytes.length)) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * @return The token for a code
+     */
+    String decode(int code) {
+        String value = strings[code];
+        if (value == null) {
+            value = new String(arena, starts[code], lengths[code], StandardCharsets.US_ASCII);
+            strings[code] = value;
+        }
+        return value;
+    }
+
+    private int add(byte[] buffer, int start, int end, int hash, int slot) {
+        int length = end - start;
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+        }
+        System.arraycopy(buffer, start, arena, arenaSize, length);
+        starts[size] = arenaSize;
+        lengths[size] = length;
+        hashes[size] = hash;
+        arenaSize += length;
+
+        int code = size++;
+        table[slot] = code + 1;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return code;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = hashes[code] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code + 1;
+        }
+    }
+
+    private boolean equals(int code, byte[] buffer, int start, int end) {
+        return Arrays.equals(arena, starts[code], starts[code] + lengths[code], buffer, start, end);
+    }
+
+    private static int hash(byte[] buffer, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,41 @@
+package com.pradeepl.evidence.metrics;
+
+/**
+ * Reads a bit stream written by {@link BitOutput}.
+ */
+final class BitInput {
+
+    private final long[] words;
+    private long position;
+
+    BitInput(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * @return The next {@code count} bits, 0 &lt;= count &lt;= 64, as an unsigned value
+     */
+    long read(int count) {
+        if (count == 0) {
+            return 0;
+        }
+        int word = (int) (position >>> 6);
+        int used = (int) (position & 63);
+        int free = 64 - used;
+        long value;
+        if (count <= free) {
+            value = (words[word] << used) >>> (64 - count);
+        } else {
+            int rest = count - free;
+            value = ((words[word] << used) >>> used << rest) | (words[word + 1] >>> (64 - rest));
+        }
+        position += count;
+        return value;
+    }
+
+    boolean readBit() {
+        int word = (int) (position >>> 6);
+        int used = (int) (position++ & 63);
+        return (words[word] << used) < 0;
+    }
+}
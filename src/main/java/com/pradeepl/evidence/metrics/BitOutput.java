@@ -0,0 +1,60 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Append-only bit stream packed into longs, most significant bit first.
+ */
+final class BitOutput {
+
+    private long[] words;
+    private long bits;
+
+    BitOutput(int initialWords) {
+        words = new long[Math.max(1, initialWords)];
+    }
+
+    /**
+     * Appends the low {@code count} bits of {@code value}, 0 &lt;= count &lt;= 64.
+     */
+    void write(long value, int count) {
+        if (count == 0) {
+            return;
+        }
+        int word = (int) (bits >>> 6);
+        int used = (int) (bits & 63);
+        if (word + 1 >= words.length) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        if (count < 64) {
+            value &= (1L << count) - 1;
+        }
+        int free = 64 - used;
+        if (count <= free) {
+            words[word] |= value << (free - count);
+        } else {
+            words[word] |= value >>> (count - free);
+            words[word + 1] |= value << (64 - (count - free));
+        }
+        bits += count;
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    long bits() {
+        return bits;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * Shrinks the backing array to the bits written.
+     */
+    void trim() {
+        words = Arrays.copyOf(words, (int) ((bits + 63) >>> 6) + 1);
+    }
+}
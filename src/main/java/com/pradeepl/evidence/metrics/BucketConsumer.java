@@ -0,0 +1,14 @@
+package com.pradeepl.evidence.metrics;
+
+/**
+ * Receives the buckets of a rollup scan (see {@link TimeSeries#scanBuckets}).
+ */
+@FunctionalInterface
+public interface BucketConsumer {
+
+    /**
+     * @param start Epoch milliseconds at which the bucket starts
+     * @param last Value of the newest point in the bucket
+     */
+    void accept(long start, double min, double max, double sum, long count, double last);
+}
@@ -0,0 +1,70 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.Arrays;
+import java.util.SortedMap;
+
+/**
+ * Combines the points or rollup buckets of one series into steps of a fixed width, aligned to
+ * the epoch, each valued by the average of its points or, for counters, by its last value.
+ * Input must arrive in time order.
+ */
+final class Downsampler implements PointConsumer, BucketConsumer {
+
+    private final long stepMillis;
+    private final boolean last;
+    private long[] timestamps = new long[16];
+    private double[] values = new double[16];
+    private int size;
+    private long stepStart = Long.MIN_VALUE;
+    private double stepSum;
+    private long stepCount;
+    private double stepLast;
+
+    /**
+     * @param last Value steps by their last point rather than their average
+     */
+    Downsampler(long stepMillis, boolean last) {
+        this.stepMillis = stepMillis;
+        this.last = last;
+    }
+
+    @Override
+    public void accept(long timestamp, double value) {
+        accept(timestamp, value, value, value, 1, value);
+    }
+
+    @Override
+    public void accept(long start, double min, double max, double sum, long count, double lastValue) {
+        long step = Math.floorDiv(start, stepMillis) * stepMillis;
+        if (step != stepStart) {
+            flush();
+            stepStart = step;
+            stepSum = 0;
+            stepCount = 0;
+        }
+        stepSum += sum;
+        stepCount += count;
+        stepLast = lastValue;
+    }
+
+    private void flush() {
+        if (stepCount == 0) {
+            return;
+        }
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        timestamps[size] = stepStart;
+        values[size++] = last ? stepLast : stepSum / stepCount;
+    }
+
+    /**
+     * @return The steps accumulated so far, as a series with the given identity
+     */
+    ResultSeries result(String name, SortedMap<String, String> labels) {
+        flush();
+        stepCount = 0;
+        return new ResultSeries(name, labels, Arrays.copyOf(timestamps, size), Arrays.copyOf(values, size));
+    }
+}
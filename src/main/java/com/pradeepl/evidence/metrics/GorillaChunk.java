@@ -0,0 +1,191 @@
+package com.pradeepl.evidence.metrics;
+
+/**
+ * A block of consecutive points of one series, compressed as in Facebook's Gorilla TSDB.
+ *
+ * Timestamps (epoch milliseconds) are stored as the difference between consecutive deltas,
+ * which is zero for regularly scraped data and then costs a single bit. Values are stored as
+ * the XOR with the previous value, which is zero for an unchanged value (one bit) and otherwise
+ * keeps only its meaningful bits, reusing the previous leading/trailing zero window when it
+ * fits. Regular per-second data typically compresses to one or two bytes per point.
+ *
+ * Points are appended in increasing timestamp order; {@link #seal()} trims the chunk once it
+ * is complete, after which it is immutable and can be scanned without locking.
+ */
+final class GorillaChunk {
+
+    private final BitOutput out;
+    private final long start;
+    private int count;
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastValue;
+    private int lastLeading = -1;
+    private int lastTrailing;
+
+    /**
+     * @param start Timestamp of the first point
+     */
+    GorillaChunk(long start, double value, int expectedPoints) {
+        this.out = new BitOutput(Math.max(2, expectedPoints / 32));
+        this.start = start;
+        out.write(start, 64);
+        out.write(Double.doubleToRawLongBits(value), 64);
+        lastTimestamp = start;
+        lastValue = Double.doubleToRawLongBits(value);
+        count = 1;
+    }
+
+    /**
+     * Appends a point with a timestamp above {@link #end()}.
+     */
+    void append(long timestamp, double value) {
+        long delta = timestamp - lastTimestamp;
+        writeDeltaOfDelta(delta - lastDelta);
+        lastDelta = delta;
+        lastTimestamp = timestamp;
+
+        long bits = Double.doubleToRawLongBits(value);
+        writeXor(bits ^ lastValue);
+        lastValue = bits;
+        count++;
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0) {
+            out.write(0b0, 1);
+        } else if (dod >= -63 && dod <= 64) {
+            out.write(0b10, 2);
+            out.write(dod, 7);
+        } else if (dod >= -255 && dod <= 256) {
+            out.write(0b110, 3);
+            out.write(dod, 9);
+        } else if (dod >= -2047 && dod <= 2048) {
+            out.write(0b1110, 4);
+            out.write(dod, 12);
+        } else {
+            out.write(0b1111, 4);
+            out.write(dod, 64);
+        }
+    }
+
+    private void writeXor(long xor) {
+        if (xor == 0) {
+            out.write(0b0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (lastLeading >= 0 && leading >= lastLeading && trailing >= lastTrailing) {
+            // Meaningful bits fit the previous window
+            out.write(0b10, 2);
+            out.write(xor >>> lastTrailing, 64 - lastLeading - lastTrailing);
+        } else {
+            int length = 64 - leading - trailing;
+            out.write(0b11, 2);
+            out.write(leading, 5);
+            out.write(length - 1, 6);
+            out.write(xor >>> trailing, length);
+            lastLeading = leading;
+            lastTrailing = trailing;
+        }
+    }
+
+    /**
+     * Trims the chunk; no points may be appended afterwards.
+     */
+    void seal() {
+        out.trim();
+    }
+
+    long start() {
+        return start;
+    }
+
+    long end() {
+        return lastTimestamp;
+    }
+
+    int count() {
+        return count;
+    }
+
+    /**
+     * @return Bytes held by the compressed points
+     */
+    long bytes() {
+        return out.words().length * 8L;
+    }
+
+    /**
+     * Decodes the first {@code points} points from {@code words} (see {@link #words()}),
+     * passing those within [from, to] to {@code consumer}.
+     *
+     * @return Number of points passed
+     */
+    static int scan(long[] words, int points, long from, long to, PointConsumer consumer) {
+        BitInput in = new BitInput(words);
+        long timestamp = in.read(64);
+        long value = in.read(64);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        int passed = 0;
+        for (int i = 0; ; ) {
+            if (timestamp > to) {
+                break;
+            }
+            if (timestamp >= from) {
+                consumer.accept(timestamp, Double.longBitsToDouble(value));
+                passed++;
+            }
+            if (++i >= points) {
+                break;
+            }
+
+            delta += readDeltaOfDelta(in);
+            timestamp += delta;
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.read(5);
+                    int length = (int) in.read(6) + 1;
+                    trailing = 64 - leading - length;
+                    value ^= in.read(length) << trailing;
+                } else {
+                    value ^= in.read(64 - leading - trailing) << trailing;
+                }
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * @return The backing words; appends only set bits past the points already written
+     */
+    long[] words() {
+        return out.words();
+    }
+
+    private static long readDeltaOfDelta(BitInput in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signed(in.read(7), 7);
+        }
+        if (!in.readBit()) {
+            return signed(in.read(9), 9);
+        }
+        if (!in.readBit()) {
+            return signed(in.read(12), 12);
+        }
+        return in.read(64);
+    }
+
+    /**
+     * Decodes an n-bit two's complement field written for a range of [-(2^(n-1) - 1), 2^(n-1)].
+     */
+    private static long signed(long bits, int n) {
+        return bits > (1L << (n - 1)) ? bits - (1L << n) : bits;
+    }
+}
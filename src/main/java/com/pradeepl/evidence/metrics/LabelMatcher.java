@@ -0,0 +1,32 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.regex.Pattern;
+
+/**
+ * A label condition of a query selector, e.g. {@code service="payment-service"} or
+ * {@code code=~"5.."}. Regular expressions must match the whole label value, as in PromQL.
+ *
+ * @param label Label name
+ * @param operator One of {@code =}, {@code !=}, {@code =~}, {@code !~}
+ * @param value Value or regular expression
+ */
+public record LabelMatcher(String label, String operator, String value, Pattern pattern) {
+
+    public static LabelMatcher of(String label, String operator, String value) {
+        Pattern pattern = operator.endsWith("~") ? Pattern.compile(value) : null;
+        return new LabelMatcher(label, operator, value, pattern);
+    }
+
+    /**
+     * @return True if a series with this label value (null when absent) is selected
+     */
+    public boolean matches(String actual) {
+        String text = actual == null ? "" : actual;
+        return switch (operator) {
+            case "=" -> text.equals(value);
+            case "!=" -> !text.equals(value);
+            case "=~" -> pattern.matcher(text).matches();
+            default -> !pattern.matcher(text).matches();
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index of the series in a {@link MetricsStore}, so queries find their series through
+ * hash lookups instead of scanning every series. Each series is posted under:
+ * <ul>
+ *   <li>its metric name, e.g. {@code latency_percentiles.p95};</li>
+ *   <li>each dotted prefix of the name, e.g. {@code latency_percentiles};</li>
+ *   <li>each label pair, e.g. service=payment-service;</li>
+ *   <li>each word of its name and label values, e.g. latency, p95, payment, service.</li>
+ * </ul>
+ *
+ * Postings are concurrent sets, so adding or removing a series costs the same however many
+ * series share its words and lookups need no locking.
+ */
+final class MetricsIndex {
+
+    private final ConcurrentHashMap<String, Set<TimeSeries>> byName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<TimeSeries>> byPath = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<TimeSeries>> byLabel = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<TimeSeries>> byWord = new ConcurrentHashMap<>();
+
+    /**
+     * Posts a new series.
+     *
+     * @return The series
+     */
+    TimeSeries add(TimeSeries series) {
+        SeriesId id = series.id();
+        post(byName, id.name(), series);
+        for (int dot = id.name().indexOf('.'); dot > 0; dot = id.name().indexOf('.', dot + 1)) {
+            post(byPath, id.name().substring(0, dot), series);
+        }
+        post(byWord, words(id.name()), series);
+        for (Map.Entry<String, String> label : id.labels().entrySet()) {
+            post(byLabel, labelKey(label.getKey(), label.getValue()), series);
+            post(byWord, words(label.getValue()), series);
+        }
+        return series;
+    }
+
+    /**
+     * Removes a series from all its postings.
+     */
+    void remove(TimeSeries series) {
+        SeriesId id = series.id();
+        unpost(byName, id.name(), series);
+        for (int dot = id.name().indexOf('.'); dot > 0; dot = id.name().indexOf('.', dot + 1)) {
+            unpost(byPath, id.name().substring(0, dot), series);
+        }
+        for (String word : words(id.name())) {
+            unpost(byWord, word, series);
+        }
+        for (Map.Entry<String, String> label : id.labels().entrySet()) {
+            unpost(byLabel, labelKey(label.getKey(), label.getValue()), series);
+            for (String word : words(label.getValue())) {
+                unpost(byWord, word, series);
+            }
+        }
+    }
+
+    private static void unpost(ConcurrentHashMap<String, Set<TimeSeries>> postings, String key, TimeSeries series) {
+        // Emptied postings are kept: a series may be added to them concurrently
+        Set<TimeSeries> posting = postings.get(key);
+        if (posting != null) {
+            posting.remove(series);
+        }
+    }
+
+    private static void post(ConcurrentHashMap<String, Set<TimeSeries>> postings, String key, TimeSeries series) {
+        postings.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(series);
+    }
+
+    private static void post(ConcurrentHashMap<String, Set<TimeSeries>> postings, List<String> keys, TimeSeries series) {
+        for (String key : keys) {
+            post(postings, key, series);
+        }
+    }
+
+    private static String labelKey(String label, String value) {
+        return label + '\u0000' + value;
+    }
+
+    /**
+     * @return The series with exactly this name
+     */
+    Set<TimeSeries> named(String name) {
+        return lookup(byName, name);
+    }
+
+    /**
+     * @return The series whose name starts with {@code path} followed by a dot
+     */
+    Set<TimeSeries> underPath(String path) {
+        return lookup(byPath, path);
+    }
+
+    /**
+     * @return The series carrying the label with this value
+     */
+    Set<TimeSeries> labelled(String label, String value) {
+        return lookup(byLabel, labelKey(label, value));
+    }
+
+    /**
+     * @return The series having the word in their name or label values
+     */
+    Set<TimeSeries> withWord(String word) {
+        return lookup(byWord, word);
+    }
+
+    private static Set<TimeSeries> lookup(ConcurrentHashMap<String, Set<TimeSeries>> postings, String key) {
+        Set<TimeSeries> posting = postings.get(key);
+        return posting == null ? Set.of() : Collections.unmodifiableSet(posting);
+    }
+
+    /**
+     * Counts, for each series having any of the words in its name or label values, how many
+     * of the words it has.
+     */
+    Map<TimeSeries, Integer> wordMatches(List<String> words) {
+        Map<TimeSeries, Integer> matches = new IdentityHashMap<>();
+        for (String word : new LinkedHashSet<>(words)) {
+            for (TimeSeries series : withWord(word)) {
+                matches.merge(series, 1, Integer::sum);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return Lower-case words of a name, split at anything but letters and digits
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            boolean letter = c >= 'a' && c <= 'z' || c >= '0' && c <= '9';
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
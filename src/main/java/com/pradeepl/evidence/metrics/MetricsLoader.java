@@ -0,0 +1,439 @@
+package com.pradeepl.evidence.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Fills a {@link MetricsStore} from metrics files.
+ *
+ * Two formats are read:
+ * <ul>
+ *   <li>{@code <source>.json} snapshots, as bundled under metrics/: every numeric value under
+ *       {@code metrics} becomes a series named by its path (e.g. {@code latency_percentiles.p95})
+ *       with a point at the snapshot timestamp. A {@code current} value is a point of its parent
+ *       path, and {@code previous_hour}, {@code previous_30min} or {@code previous_window} values
+ *       are points of the same series that far before it, so comparisons keep their time
+ *       dimension. Series are labelled with their source file, the service it describes and
+ *       the unit given next to the value.</li>
+ *   <li>{@code <name>.prom} files in the Prometheus text format, one sample per line with a
+ *       millisecond timestamp: {@code http_errors_total{service="payment-service"} 17 1736951400000}.</li>
+ * </ul>
+ *
+ * A directory can be loaded again to pick up its changes: a new or changed snapshot replaces
+ * the series of its source, and a {@code .prom} file that grew has only its appended samples
+ * read. When a snapshot is removed, the bundled one of the same source is loaded in its place.
+ */
+final class MetricsLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsLoader.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final MetricsStore store;
+    private final ClassLoader classLoader;
+    private List<String> services;
+    /** Classpath directory of the bundled files, or null if none were loaded. */
+    private String resourceDirectory;
+    /** Directory files as they were when last read. */
+    private final Map<Path, FileState> loaded = new HashMap<>();
+
+    /**
+     * @param consumed Bytes read up to the end of the last complete line
+     */
+    private record FileState(long lastModified, long size, long consumed) {}
+
+    MetricsLoader(MetricsStore store, ClassLoader classLoader) {
+        this.store = store;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Loads the metrics files in a classpath directory.
+     */
+    synchronized void loadResources(String directory) {
+        resourceDirectory = directory;
+        for (String name : listResources(directory)) {
+            loadResource(directory, name);
+        }
+    }
+
+    private void loadResource(String directory, String name) {
+        try (InputStream in = classLoader.getResourceAsStream(directory + "/" + name)) {
+            if (in != null) {
+                load(name, in);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("📊 Skipping metrics resource {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the metrics files in a directory that are new or changed since it was last loaded.
+     *
+     * @return Number of files read
+     */
+    synchronized int loadDirectory(Path directory) {
+        Set<Path> present = new HashSet<>();
+        int read = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                present.add(file);
+                if (loadFile(file)) {
+                    read++;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("📊 Cannot read metrics directory {}: {}", directory, e.getMessage());
+            return read;
+        }
+
+        for (Iterator<Path> files = loaded.keySet().iterator(); files.hasNext(); ) {
+            Path file = files.next();
+            if (present.contains(file)) {
+                continue;
+            }
+            files.remove();
+            String name = file.getFileName().toString();
+            if (name.endsWith(".json")) {
+                logger.info("📊 Metrics snapshot {} removed", file);
+                store.removeSource(name.substring(0, name.length() - ".json".length()));
+                if (resourceDirectory != null) {
+                    loadResource(resourceDirectory, name);
+                }
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Reads a directory file unless it is unchanged since it was last read.
+     *
+     * @return True if the file was read
+     */
+    private boolean loadFile(Path file) {
+        String name = file.getFileName().toString();
+        FileState previous = loaded.get(file);
+        FileState state = previous;
+        try {
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            long size = Files.size(file);
+            if (previous != null && previous.lastModified() == lastModified && previous.size() == size) {
+                return false;
+            }
+            // A grown .prom file was appended to; anything else is read whole
+            boolean appended = previous != null && name.endsWith(".prom") && size >= previous.consumed();
+            long from = appended ? previous.consumed() : 0;
+            byte[] bytes;
+            try (InputStream in = Files.newInputStream(file)) {
+                in.skipNBytes(from);
+                bytes = in.readAllBytes();
+            }
+            int complete = lastLineEnd(bytes);
+            state = new FileState(lastModified, size, from + complete);
+            // Exposition lines are only parsed once complete; a snapshot is read whole
+            load(name, new ByteArrayInputStream(bytes, 0, name.endsWith(".prom") ? complete : bytes.length));
+            if (previous != null) {
+                logger.info("📊 Reloaded metrics file {}", file);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("📊 Skipping metrics file {}: {}", file, e.getMessage());
+            return false;
+        } finally {
+            if (state != null) {
+                // Recorded even when broken, so the file is only read again once it changes
+                loaded.put(file, state);
+            }
+        }
+    }
+
+    /**
+     * @return Length of the bytes up to and including the last newline, so a line still being
+     *         appended is read again once it is complete
+     */
+    private static int lastLineEnd(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void load(String fileName, InputStream in) throws IOException {
+        if (fileName.endsWith(".json")) {
+            loadSnapshot(fileName.substring(0, fileName.length() - ".json".length()), mapper.readTree(in));
+        } else if (fileName.endsWith(".prom")) {
+            loadExposition(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Adds the values of a JSON metrics snapshot, replacing any series loaded for its source
+     * before.
+     *
+     * @param source Name of the snapshot, used as the source label
+     */
+    void loadSnapshot(String source, JsonNode snapshot) {
+        JsonNode metrics = snapshot.get("metrics");
+        JsonNode timestamp = snapshot.get("timestamp");
+        if (metrics == null || !metrics.isObject() || timestamp == null) {
+            return;
+        }
+        long time = Instant.parse(timestamp.asText()).toEpochMilli();
+        long window = parseDuration(snapshot.path("time_range").asText(""), 60 * 60 * 1000L);
+
+        Map<String, String> labels = new HashMap<>();
+        labels.put("source", source);
+        for (String service : services()) {
+            if (source.startsWith(service)) {
+                labels.put("service", service);
+            }
+        }
+
+        // Collected first: a snapshot lists the current value before the earlier ones
+        Map<SeriesId, TreeMap<Long, Double>> points = new HashMap<>();
+        collect(metrics, "", time, window, labels, points);
+        store.removeSource(source);
+        points.forEach((id, values) -> values.forEach((t, v) -> store.append(id, t, v)));
+    }
+
+    private void collect(JsonNode node, String path, long time, long window, Map<String, String> labels,
+                         Map<SeriesId, TreeMap<Long, Double>> points) {
+        Map<String, String> seriesLabels = labels;
+        JsonNode unit = node.get("unit");
+        if (unit != null && unit.isTextual()) {
+            seriesLabels = new HashMap<>(labels);
+            seriesLabels.put("unit", unit.asText());
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String key = field.getKey();
+            JsonNode value = field.getValue();
+            if (value.isObject()) {
+                collect(value, path.isEmpty() ? key : path + "." + key, time, window, seriesLabels, points);
+            } else if (value.isNumber()) {
+                String name;
+                long at = time;
+                if (!path.isEmpty() && key.equals("current")) {
+                    name = path;
+                } else if (!path.isEmpty() && key.startsWith("previous_")) {
+                    name = path;
+                    at = time - previousOffset(key.substring("previous_".length()), window);
+                } else {
+                    name = path.isEmpty() ? key : path + "." + key;
+                }
+                points.computeIfAbsent(SeriesId.of(name, seriesLabels), id -> new TreeMap<>())
+                    .put(at, value.asDouble());
+            }
+        }
+    }
+
+    /**
+     * @return How long before the snapshot a {@code previous_<period>} value was measured
+     */
+    private static long previousOffset(String period, long window) {
+        return switch (period) {
+            case "hour" -> 60 * 60 * 1000L;
+            case "day" -> 24 * 60 * 60 * 1000L;
+            case "window" -> window;
+            default -> parseDuration(period.replace("min", "m"), window);
+        };
+    }
+
+    /**
+     * Parses a duration such as "30s", "5m", "1h" or "2d".
+     *
+     * @return Milliseconds, or {@code fallback} if the text is not a duration
+     */
+    static long parseDuration(String text, long fallback) {
+        if (text.length() < 2) {
+            return fallback;
+        }
+        long unit = switch (text.charAt(text.length() - 1)) {
+            case 's' -> 1000L;
+            case 'm' -> 60 * 1000L;
+            case 'h' -> 60 * 60 * 1000L;
+            case 'd' -> 24 * 60 * 60 * 1000L;
+            default -> 0;
+        };
+        try {
+            long amount = Long.parseLong(text.substring(0, text.length() - 1));
+            return unit > 0 && amount > 0 ? amount * unit : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Adds the samples of a Prometheus text-format file. Comments, samples without a
+     * timestamp and malformed lines are skipped.
+     *
+     * @return Number of samples added
+     */
+    int loadExposition(Reader reader) throws IOException {
+        int added = 0;
+        int skipped = 0;
+        BufferedReader lines = new BufferedReader(reader);
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                if (addSample(line)) {
+                    added++;
+                } else {
+                    skipped++;
+                }
+            } catch (RuntimeException e) {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            logger.warn("📊 Skipped {} metrics samples without a timestamp, out of order or malformed", skipped);
+        }
+        return added;
+    }
+
+    private boolean addSample(String line) {
+        int brace = line.indexOf('{');
+        int space = line.indexOf(' ');
+        String name;
+        Map<String, String> labels = new TreeMap<>();
+        int rest;
+        if (brace >= 0 && (space < 0 || brace < space)) {
+            name = line.substring(0, brace);
+            int end = parseLabels(line, brace + 1, labels);
+            rest = end + 1;
+        } else {
+            name = line.substring(0, space);
+            rest = space;
+        }
+        String[] fields = line.substring(rest).trim().split("\\s+");
+        if (name.isEmpty() || fields.length != 2) {
+            return false;
+        }
+        return store.append(SeriesId.of(name, labels), Long.parseLong(fields[1]), parseValue(fields[0]));
+    }
+
+    /**
+     * Parses {@code name="value",...} up to the closing brace.
+     *
+     * @return Position of the closing brace
+     */
+    private static int parseLabels(String line, int position, Map<String, String> labels) {
+        while (line.charAt(position) != '}') {
+            int equals = line.indexOf('=', position);
+            String label = line.substring(position, equals).trim();
+            int quote = line.indexOf('"', equals);
+            StringBuilder value = new StringBuilder();
+            int i = quote + 1;
+            for (char c = line.charAt(i); c != '"'; c = line.charAt(++i)) {
+                if (c == '\\') {
+                    c = line.charAt(++i);
+                    value.append(c == 'n' ? '\n' : c);
+                } else {
+                    value.append(c);
+                }
+            }
+            labels.put(label, value.toString());
+            position = i + 1;
+            while (line.charAt(position) == ',' || line.charAt(position) == ' ') {
+                position++;
+            }
+        }
+        return position;
+    }
+
+    private static double parseValue(String text) {
+        return switch (text) {
+            case "+Inf", "Inf" -> Double.POSITIVE_INFINITY;
+            case "-Inf" -> Double.NEGATIVE_INFINITY;
+            case "NaN" -> Double.NaN;
+            default -> Double.parseDouble(text);
+        };
+    }
+
+    /**
+     * @return Names of the known services, shortest first so a longer, more specific match labels a source last
+     */
+    private List<String> services() {
+        if (services == null) {
+            List<String> names = new ArrayList<>();
+            try (InputStream in = classLoader.getResourceAsStream("services.json")) {
+                if (in != null) {
+                    mapper.readTree(in).path("services").forEach(service -> names.add(service.asText()));
+                }
+            } catch (IOException e) {
+                logger.warn("📊 Could not read service catalog: {}", e.getMessage());
+            }
+            names.sort((a, b) -> Integer.compare(a.length(), b.length()));
+            services = names;
+        }
+        return services;
+    }
+
+    /**
+     * Lists the files in a classpath directory, whether it is on the file system or in a jar.
+     */
+    private List<String> listResources(String directory) {
+        TreeSet<String> names = new TreeSet<>();
+        URL url = classLoader.getResource(directory);
+        if (url == null) {
+            return List.of();
+        }
+        try {
+            if (url.getProtocol().equals("file")) {
+                try (Stream<Path> files = Files.list(Path.of(url.toURI()))) {
+                    files.filter(Files::isRegularFile).forEach(file -> names.add(file.getFileName().toString()));
+                }
+            } else if (url.getProtocol().equals("jar")) {
+                JarURLConnection connection = (JarURLConnection) url.openConnection();
+                connection.setUseCaches(false);
+                try (JarFile jar = connection.getJarFile()) {
+                    String prefix = directory + "/";
+                    for (JarEntry entry : Collections.list(jar.entries())) {
+                        String name = entry.getName();
+                        if (name.startsWith(prefix) && !entry.isDirectory() && name.indexOf('/', prefix.length()) < 0) {
+                            names.add(name.substring(prefix.length()));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            logger.warn("📊 Cannot list metrics resources: {}", e.getMessage());
+        }
+        return new ArrayList<>(names);
+    }
+}
@@ -0,0 +1,286 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Parser for the PromQL-like query language of query_metrics.
+ *
+ * <pre>
+ * expr      = aggregate | rate | selector
+ * aggregate = op [by] "(" [number ","] expr ")" [by]     op: sum avg min max count quantile
+ * by        = "by" "(" label {"," label} ")"
+ * rate      = "rate" "(" selector ")"                     the selector needs a range
+ * selector  = name ["{" matcher {"," matcher} "}"] ["[" duration "]"]
+ *           | "{" matcher {"," matcher} "}" ["[" duration "]"]
+ * matcher   = label ("=" | "!=" | "=~" | "!~") "quoted value"
+ * </pre>
+ *
+ * For example {@code avg by (service) (error_rate)}, {@code rate(http_errors_total{code=~"5.."}[5m])}
+ * or {@code quantile(0.95, latency_percentiles.p95)}. Plain words that do not form a query, such
+ * as "checkout p95 latency", compile to a {@link QueryPlan.Search} for the best matching series.
+ *
+ * Compiled plans are cached by expression text, so repeated queries skip parsing.
+ */
+public final class MetricsQuery {
+
+    /** Plans kept before the cache is cleared; bounds memory for ad-hoc expressions. */
+    static final int MAX_CACHED_PLANS = 1024;
+
+    private static final Set<String> AGGREGATIONS = Set.of("sum", "avg", "min", "max", "count", "quantile");
+    private static final ConcurrentHashMap<String, QueryPlan> plans = new ConcurrentHashMap<>();
+
+    private final String text;
+    private int position;
+
+    private MetricsQuery(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Compiles an expression, reusing the plan of an earlier identical expression.
+     *
+     * @throws IllegalArgumentException If the expression is not a valid query
+     */
+    public static QueryPlan compile(String expr) {
+        String key = expr == null ? "" : expr.trim();
+        QueryPlan plan = plans.get(key);
+        if (plan == null) {
+            plan = parse(key);
+            if (plans.size() >= MAX_CACHED_PLANS) {
+                plans.clear();
+            }
+            plans.put(key, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Parses a duration such as "30s", "5m", "1h" or "2d", as used for query ranges.
+     *
+     * @return Milliseconds, or 0 if the text is not a duration
+     */
+    public static long parseDuration(String text) {
+        return text == null ? 0 : MetricsLoader.parseDuration(text.trim(), 0);
+    }
+
+    /**
+     * Parses an expression without the cache.
+     *
+     * @throws IllegalArgumentException If the expression is not a valid query
+     */
+    static QueryPlan parse(String expr) {
+        try {
+            MetricsQuery parser = new MetricsQuery(expr);
+            QueryPlan plan = parser.expression();
+            parser.skipSpaces();
+            if (parser.position < expr.length()) {
+                throw parser.error("unexpected '" + expr.charAt(parser.position) + "'");
+            }
+            return plan;
+        } catch (IllegalArgumentException e) {
+            if (expr.matches("[\\w\\s.-]*")) {
+                return new QueryPlan.Search(MetricsIndex.words(expr));
+            }
+            throw e;
+        }
+    }
+
+    private QueryPlan expression() {
+        int start = position;
+        String name = identifier();
+        if (name == null) {
+            return selector(null);
+        }
+        if (name.equals("rate") && peek('(')) {
+            expect('(');
+            QueryPlan input = expression();
+            expect(')');
+            if (!(input instanceof QueryPlan.Select select) || select.rangeMillis() == 0) {
+                throw error("rate() needs a selector with a range, e.g. rate(name[5m])");
+            }
+            return new QueryPlan.Rate(select);
+        }
+        if (AGGREGATIONS.contains(name) && (peek('(') || peekWord("by"))) {
+            return aggregate(name);
+        }
+        position = start;
+        return selector(identifier());
+    }
+
+    private QueryPlan aggregate(String operator) {
+        List<String> by = peekWord("by") ? by() : List.of();
+        expect('(');
+        double parameter = 0;
+        if (operator.equals("quantile")) {
+            parameter = number();
+            if (parameter < 0 || parameter > 1) {
+                throw error("quantile must be between 0 and 1");
+            }
+            expect(',');
+        }
+        QueryPlan input = expression();
+        expect(')');
+        if (by.isEmpty() && peekWord("by")) {
+            by = by();
+        }
+        return new QueryPlan.Aggregate(operator, parameter, by, input);
+    }
+
+    private List<String> by() {
+        identifier();
+        expect('(');
+        List<String> labels = new ArrayList<>();
+        do {
+            String label = identifier();
+            if (label == null) {
+                throw error("expected a label name");
+            }
+            labels.add(label);
+        } while (accept(','));
+        expect(')');
+        return labels;
+    }
+
+    private QueryPlan.Select selector(String name) {
+        List<LabelMatcher> matchers = new ArrayList<>();
+        if (accept('{')) {
+            if (!accept('}')) {
+                do {
+                    matchers.add(matcher());
+                } while (accept(','));
+                expect('}');
+            }
+        } else if (name == null) {
+            throw error("expected a metric name or selector");
+        }
+        long range = 0;
+        if (accept('[')) {
+            skipSpaces();
+            int start = position;
+            while (position < text.length() && Character.isLetterOrDigit(text.charAt(position))) {
+                position++;
+            }
+            range = MetricsLoader.parseDuration(text.substring(start, position), 0);
+            if (range == 0) {
+                throw error("expected a duration such as 5m");
+            }
+            expect(']');
+        }
+        return new QueryPlan.Select(name, List.copyOf(matchers), range);
+    }
+
+    private LabelMatcher matcher() {
+        String label = identifier();
+        if (label == null) {
+            throw error("expected a label name");
+        }
+        skipSpaces();
+        String operator;
+        if (text.startsWith("=~", position) || text.startsWith("!~", position) || text.startsWith("!=", position)) {
+            operator = text.substring(position, position + 2);
+        } else if (text.startsWith("=", position)) {
+            operator = "=";
+        } else {
+            throw error("expected =, !=, =~ or !~");
+        }
+        position += operator.length();
+        String value = string();
+        try {
+            return LabelMatcher.of(label, operator, value);
+        } catch (PatternSyntaxException e) {
+            throw error("invalid regular expression " + value);
+        }
+    }
+
+    private String string() {
+        skipSpaces();
+        if (position >= text.length() || text.charAt(position) != '"') {
+            throw error("expected a quoted value");
+        }
+        StringBuilder value = new StringBuilder();
+        for (position++; position < text.length(); position++) {
+            char c = text.charAt(position);
+            if (c == '"') {
+                position++;
+                return value.toString();
+            }
+            if (c == '\\' && position + 1 < text.length()) {
+                c = text.charAt(++position);
+            }
+            value.append(c);
+        }
+        throw error("unterminated string");
+    }
+
+    private double number() {
+        skipSpaces();
+        int start = position;
+        while (position < text.length() && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+            position++;
+        }
+        try {
+            return Double.parseDouble(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("expected a number");
+        }
+    }
+
+    /**
+     * @return The identifier at the current position, or null if there is none
+     */
+    private String identifier() {
+        skipSpaces();
+        int start = position;
+        if (position < text.length() && isIdentifierPart(text.charAt(position))
+                && !Character.isDigit(text.charAt(position)) && text.charAt(position) != '.') {
+            position++;
+            while (position < text.length() && isIdentifierPart(text.charAt(position))) {
+                position++;
+            }
+        }
+        return position > start ? text.substring(start, position) : null;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return c < 128 && (Character.isLetterOrDigit(c) || c == '_' || c == ':' || c == '.');
+    }
+
+    private boolean peek(char c) {
+        skipSpaces();
+        return position < text.length() && text.charAt(position) == c;
+    }
+
+    private boolean peekWord(String word) {
+        skipSpaces();
+        int end = position + word.length();
+        return text.startsWith(word, position) && (end == text.length() || !isIdentifierPart(text.charAt(end)));
+    }
+
+    private boolean accept(char c) {
+        if (peek(c)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("expected '" + c + "'");
+        }
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(String.format("Invalid metrics query at position %d: %s", position, message));
+    }
+}
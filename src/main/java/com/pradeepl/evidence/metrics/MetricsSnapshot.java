@@ -0,0 +1,144 @@
+package com.pradeepl.evidence.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A metrics snapshot document (a metrics/&lt;source&gt;.json file) parsed once into the values
+ * query_metrics renders, so a query does not re-read or re-parse the JSON. Sections the
+ * document does not have are null.
+ *
+ * @param source Name of the snapshot, e.g. payment-service-errors
+ * @param origin Where it was loaded from: "classpath" or "directory"
+ * @param raw The document text, returned as is
+ * @param extremeValues True if the document mentions 100% or 0.00 values
+ */
+public record MetricsSnapshot(
+    String source,
+    String origin,
+    String raw,
+    ErrorRate errorRate,
+    Latency latency,
+    Resources resources,
+    Throughput throughput,
+    List<String> alerts,
+    boolean extremeValues
+) {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param previous Rate of the previous hour or window, 0 if not given
+     * @param totalErrors Errors in the window, or null if not given
+     * @param spike The detected spike, or null if none was detected
+     */
+    public record ErrorRate(double current, String status, double previous, Integer totalErrors, Spike spike) {}
+
+    public record Spike(String timeWindow, double peakRate, String primaryCause) {}
+
+    /**
+     * @param average Average latency, or null if not given
+     */
+    public record Latency(int p95, int p99, int p999, AverageLatency average) {}
+
+    public record AverageLatency(int current, String status, int baseline) {}
+
+    /**
+     * @param memory Memory utilization, or null if not given
+     */
+    public record Resources(double cpu, String cpuStatus, double cpuPeak15min, Memory memory) {}
+
+    public record Memory(double heapUsed, String gcPressure) {}
+
+    /**
+     * @param successRate Success rate, or null if not given
+     */
+    public record Throughput(int requestRate, int peak1h, SuccessRate successRate) {}
+
+    public record SuccessRate(double current, String status, double target) {}
+
+    /**
+     * Parses a snapshot document.
+     *
+     * @throws IllegalArgumentException If the document is not JSON or has no metrics object
+     */
+    public static MetricsSnapshot parse(String source, String origin, String raw) {
+        JsonNode metrics;
+        try {
+            metrics = mapper.readTree(raw).get("metrics");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid metrics file format: " + e.getMessage(), e);
+        }
+        if (metrics == null || !metrics.isObject()) {
+            throw new IllegalArgumentException("Invalid metrics file format: no metrics object");
+        }
+
+        List<String> alerts = new ArrayList<>();
+        JsonNode alertsNode = metrics.path("alerts");
+        if (alertsNode.isArray()) {
+            alertsNode.forEach(alert -> alerts.add(alert.asText()));
+        }
+
+        return new MetricsSnapshot(source, origin, raw, errorRate(metrics), latency(metrics), resources(metrics),
+            throughput(metrics), List.copyOf(alerts), raw.contains("100%") || raw.contains("0.00"));
+    }
+
+    private static ErrorRate errorRate(JsonNode metrics) {
+        JsonNode errorRate = metrics.get("error_rate");
+        if (errorRate == null) {
+            return null;
+        }
+        // Snapshots name the earlier value previous_hour or previous_window
+        double previous = errorRate.has("previous_hour") ? errorRate.get("previous_hour").asDouble()
+            : errorRate.path("previous_window").asDouble(0.0);
+        JsonNode total = metrics.path("error_count").get("total");
+
+        Spike spike = null;
+        JsonNode spikeNode = metrics.path("error_spike");
+        if (spikeNode.path("detected").asBoolean(false)) {
+            spike = new Spike(spikeNode.path("time_window").asText("unknown"),
+                spikeNode.path("peak_rate").asDouble(0.0),
+                spikeNode.path("primary_cause").asText("unknown"));
+        }
+        return new ErrorRate(errorRate.path("current").asDouble(0.0), errorRate.path("status").asText("unknown"),
+            previous, total == null ? null : total.asInt(), spike);
+    }
+
+    private static Latency latency(JsonNode metrics) {
+        JsonNode latency = metrics.get("latency_percentiles");
+        if (latency == null) {
+            return null;
+        }
+        JsonNode average = metrics.get("average_latency");
+        return new Latency(latency.path("p95").asInt(0), latency.path("p99").asInt(0), latency.path("p99.9").asInt(0),
+            average == null ? null : new AverageLatency(average.path("current").asInt(0),
+                average.path("status").asText("unknown"), average.path("baseline").asInt(0)));
+    }
+
+    private static Resources resources(JsonNode metrics) {
+        JsonNode cpu = metrics.get("cpu_utilization");
+        if (cpu == null) {
+            return null;
+        }
+        JsonNode memory = metrics.get("memory_utilization");
+        return new Resources(cpu.path("current").asDouble(0.0), cpu.path("status").asText("unknown"),
+            cpu.path("peak_15min").asDouble(0.0),
+            memory == null ? null : new Memory(memory.path("heap_used").asDouble(0.0),
+                memory.path("gc_pressure").asText("unknown")));
+    }
+
+    private static Throughput throughput(JsonNode metrics) {
+        JsonNode requestRate = metrics.get("request_rate");
+        if (requestRate == null) {
+            return null;
+        }
+        JsonNode successRate = metrics.get("success_rate");
+        return new Throughput(requestRate.path("current").asInt(0), requestRate.path("peak_1h").asInt(0),
+            successRate == null ? null : new SuccessRate(successRate.path("current").asDouble(0.0),
+                successRate.path("status").asText("unknown"), successRate.path("target").asDouble(0.0)));
+    }
+}
@@ -0,0 +1,179 @@
+package com.pradeepl.evidence.metrics;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of parsed {@link MetricsSnapshot}s by source name, so query_metrics renders a snapshot
+ * from a map lookup instead of reading and parsing its JSON on every call.
+ *
+ * A source is read from {@code <evidence.metrics.directory>/<source>.json} when that file
+ * exists, else from metrics/&lt;source&gt;.json on the classpath. Entries backed by a file are
+ * checked at most once per {@code evidence.metrics.snapshot-check-interval} and reparsed when
+ * the file's modification time changes; a file that no longer parses keeps the previous
+ * snapshot. Snapshots inside a jar never change and are not checked again.
+ */
+public final class MetricsSnapshots {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsSnapshots.class);
+
+    private static volatile MetricsSnapshots shared;
+
+    /**
+     * A cached lookup; {@code snapshot} is null when the source was not found.
+     *
+     * @param file File the snapshot was read from, or null for a jar resource or a miss
+     * @param watched False once the entry can no longer change
+     */
+    private record Entry(MetricsSnapshot snapshot, Path file, long lastModified, long nextCheck, boolean watched) {}
+
+    private final ClassLoader classLoader;
+    private final Path directory;
+    private final long checkIntervalNanos;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory Directory searched before the classpath, or null
+     * @param checkIntervalMillis Least time between checks of a snapshot file for changes
+     */
+    public MetricsSnapshots(ClassLoader classLoader, Path directory, long checkIntervalMillis) {
+        this.classLoader = classLoader;
+        this.directory = directory;
+        this.checkIntervalNanos = checkIntervalMillis * 1_000_000L;
+    }
+
+    /**
+     * @return The service-wide cache, created from configuration on first use
+     */
+    public static MetricsSnapshots shared() {
+        MetricsSnapshots snapshots = shared;
+        if (snapshots == null) {
+            synchronized (MetricsSnapshots.class) {
+                snapshots = shared;
+                if (snapshots == null) {
+                    snapshots = fromConfig(ConfigFactory.load());
+                    shared = snapshots;
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    public static MetricsSnapshots fromConfig(Config config) {
+        String directory = config.hasPath("evidence.metrics.directory")
+            ? config.getString("evidence.metrics.directory")
+            : "";
+        long checkIntervalMillis = config.hasPath("evidence.metrics.snapshot-check-interval")
+            ? config.getDuration("evidence.metrics.snapshot-check-interval").toMillis()
+            : 5000L;
+        return new MetricsSnapshots(MetricsSnapshots.class.getClassLoader(),
+            directory.isBlank() ? null : Path.of(directory), checkIntervalMillis);
+    }
+
+    /**
+     * @return The parsed snapshot of a source, or null if there is no valid one
+     */
+    public MetricsSnapshot get(String source) {
+        if (!isSourceName(source)) {
+            return null;
+        }
+        Entry entry = entries.get(source);
+        if (entry == null || entry.watched() && System.nanoTime() - entry.nextCheck() >= 0) {
+            entry = entries.compute(source, this::refresh);
+        }
+        return entry.snapshot();
+    }
+
+    private Entry refresh(String source, Entry old) {
+        long now = System.nanoTime();
+        if (old != null && (!old.watched() || now - old.nextCheck() < 0)) {
+            // Refreshed by another caller meanwhile
+            return old;
+        }
+        Path file = null;
+        long modified = 0;
+        try {
+            file = locate(source);
+            URL resource = file == null ? classLoader.getResource("metrics/" + source + ".json") : null;
+            modified = file == null ? 0 : Files.getLastModifiedTime(file).toMillis();
+            if (old != null && old.snapshot() != null && Objects.equals(old.file(), file)
+                    && old.lastModified() == modified) {
+                return new Entry(old.snapshot(), file, modified, now + checkIntervalNanos, true);
+            }
+            if (file == null && resource == null) {
+                return new Entry(null, null, 0, now + checkIntervalNanos, true);
+            }
+
+            String raw;
+            try (InputStream in = file != null ? Files.newInputStream(file) : resource.openStream()) {
+                raw = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            boolean fromDirectory = directory != null && file != null && file.startsWith(directory);
+            MetricsSnapshot snapshot = MetricsSnapshot.parse(source, fromDirectory ? "directory" : "classpath", raw);
+            logger.debug("📊 Parsed metrics snapshot {} from {}", source, file != null ? file : resource);
+            // Only a directory may gain a file that overrides a jar resource
+            boolean watched = file != null || directory != null;
+            return new Entry(snapshot, file, modified, now + checkIntervalNanos, watched);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("📊 Cannot load metrics snapshot {}{}: {}", source,
+                old != null && old.snapshot() != null ? ", keeping the previous one" : "", e.getMessage());
+            // Recorded as seen, so the broken file is only read again once it changes
+            return new Entry(old == null ? null : old.snapshot(), file, modified, now + checkIntervalNanos, true);
+        }
+    }
+
+    /**
+     * Sources come from metrics labels; never let one name a path.
+     *
+     * @return True for a non-empty name of letters, digits, '_', '-' and single inner dots
+     */
+    private static boolean isSourceName(String source) {
+        if (source.isEmpty() || source.charAt(0) == '.' || source.charAt(source.length() - 1) == '.') {
+            return false;
+        }
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            boolean valid = c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9'
+                || c == '_' || c == '-' || c == '.' && source.charAt(i - 1) != '.';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The file holding a source's snapshot, or null if it is not a file (or missing)
+     */
+    private Path locate(String source) {
+        String name = source + ".json";
+        if (directory != null) {
+            Path file = directory.resolve(name);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        URL resource = classLoader.getResource("metrics/" + name);
+        if (resource != null && resource.getProtocol().equals("file")) {
+            try {
+                return Path.of(resource.toURI());
+            } catch (URISyntaxException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
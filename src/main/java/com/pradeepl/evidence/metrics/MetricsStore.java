@@ -0,0 +1,208 @@
+package com.pradeepl.evidence.metrics;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory time-series database for query_metrics, configured under {@code evidence.metrics}
+ * in application.conf.
+ *
+ * Each series is stored as Gorilla-compressed chunks (see {@link TimeSeries}), so days of
+ * per-second data for hundreds of series fit in a few hundred MB and range scans decode
+ * sequential memory. The shared store is filled at startup from the metrics snapshots bundled
+ * under metrics/ and from the optional {@code evidence.metrics.directory}; see
+ * {@link MetricsLoader}. The directory is checked again for new and changed files at most once
+ * per {@code evidence.metrics.snapshot-check-interval}, as snapshots are. Series are indexed
+ * by name, dotted name prefix, label and word as they are created (see {@link MetricsIndex}),
+ * so queries find them without scanning every series.
+ */
+public final class MetricsStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsStore.class);
+
+    /** Default time series data are kept for, relative to each series' newest point. */
+    public static final long DEFAULT_RETENTION_MILLIS = 3 * 24 * 60 * 60 * 1000L;
+
+    private static volatile MetricsStore shared;
+
+    private final long retentionMillis;
+    private final ConcurrentHashMap<SeriesId, TimeSeries> series = new ConcurrentHashMap<>();
+    private final MetricsIndex index = new MetricsIndex();
+    /** Loader of the watched metrics directory, or null if there is none. */
+    private MetricsLoader loader;
+    private Path directory;
+    private long checkIntervalNanos;
+    private volatile long nextCheck;
+
+    public MetricsStore(long retentionMillis) {
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * @return The service-wide store, created and loaded from configuration on first use and
+     *         refreshed from the metrics directory when a check is due
+     */
+    public static MetricsStore shared() {
+        MetricsStore store = shared;
+        if (store == null) {
+            synchronized (MetricsStore.class) {
+                store = shared;
+                if (store == null) {
+                    store = fromConfig(ConfigFactory.load());
+                    shared = store;
+                }
+            }
+        }
+        store.refresh();
+        return store;
+    }
+
+    /**
+     * Creates a store and loads the bundled snapshots and the configured metrics directory.
+     */
+    public static MetricsStore fromConfig(Config config) {
+        long retentionMillis = config.hasPath("evidence.metrics.retention")
+            ? config.getDuration("evidence.metrics.retention").toMillis()
+            : DEFAULT_RETENTION_MILLIS;
+        String directory = config.hasPath("evidence.metrics.directory")
+            ? config.getString("evidence.metrics.directory")
+            : "";
+        long checkIntervalMillis = config.hasPath("evidence.metrics.snapshot-check-interval")
+            ? config.getDuration("evidence.metrics.snapshot-check-interval").toMillis()
+            : 5000L;
+
+        MetricsStore store = new MetricsStore(retentionMillis);
+        MetricsLoader loader = new MetricsLoader(store, MetricsStore.class.getClassLoader());
+        loader.loadResources("metrics");
+        if (!directory.isBlank()) {
+            store.watch(loader, Path.of(directory), checkIntervalMillis);
+        }
+        logger.info("📊 Metrics store loaded: {} series, {} points, {} KB",
+            store.seriesCount(), store.pointCount(), store.bytes() / 1024);
+        return store;
+    }
+
+    /**
+     * Appends a point to a series, creating the series on first use.
+     *
+     * @return False if the point is not newer than the series' newest point
+     */
+    public boolean append(SeriesId id, long timestamp, double value) {
+        return series.computeIfAbsent(id, key -> index.add(new TimeSeries(key, retentionMillis))).append(timestamp, value);
+    }
+
+    /**
+     * Loads a metrics directory now and again on {@link #refresh()} once
+     * {@code checkIntervalMillis} has passed.
+     */
+    void watch(MetricsLoader loader, Path directory, long checkIntervalMillis) {
+        this.loader = loader;
+        this.directory = directory;
+        this.checkIntervalNanos = checkIntervalMillis * 1_000_000L;
+        loader.loadDirectory(directory);
+        nextCheck = System.nanoTime() + checkIntervalNanos;
+    }
+
+    /**
+     * Reloads the files of the watched metrics directory that are new or changed, if the
+     * check interval has passed since the last check.
+     */
+    public void refresh() {
+        MetricsLoader watched = loader;
+        if (watched == null || System.nanoTime() - nextCheck < 0) {
+            return;
+        }
+        synchronized (watched) {
+            if (System.nanoTime() - nextCheck < 0) {
+                // Checked by another caller meanwhile
+                return;
+            }
+            int read = watched.loadDirectory(directory);
+            if (read > 0) {
+                logger.info("📊 Metrics store reloaded {} files: {} series", read, seriesCount());
+            }
+            nextCheck = System.nanoTime() + checkIntervalNanos;
+        }
+    }
+
+    /**
+     * Drops the series of a snapshot source, before it is loaded again.
+     */
+    void removeSource(String source) {
+        for (TimeSeries removed : List.copyOf(index.labelled("source", source))) {
+            if (series.remove(removed.id(), removed)) {
+                index.remove(removed);
+            }
+        }
+    }
+
+    /**
+     * @return The series, or null if it has no points
+     */
+    public TimeSeries get(SeriesId id) {
+        return series.get(id);
+    }
+
+    /**
+     * @return The series with the given name (any name if null) carrying all the given labels
+     */
+    public List<TimeSeries> select(String name, Map<String, String> labels) {
+        Collection<TimeSeries> candidates = name != null ? index.named(name) : series.values();
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            Collection<TimeSeries> labelled = index.labelled(label.getKey(), label.getValue());
+            if (labelled.size() < candidates.size()) {
+                candidates = labelled;
+            }
+        }
+        List<TimeSeries> selected = new ArrayList<>();
+        for (TimeSeries candidate : candidates) {
+            if ((name == null || name.equals(candidate.id().name())) && candidate.id().matches(labels)) {
+                selected.add(candidate);
+            }
+        }
+        selected.sort((a, b) -> a.id().toString().compareTo(b.id().toString()));
+        return selected;
+    }
+
+    MetricsIndex index() {
+        return index;
+    }
+
+    public Collection<TimeSeries> series() {
+        return Collections.unmodifiableCollection(series.values());
+    }
+
+    public int seriesCount() {
+        return series.size();
+    }
+
+    public long pointCount() {
+        long points = 0;
+        for (TimeSeries s : series.values()) {
+            points += s.pointCount();
+        }
+        return points;
+    }
+
+    /**
+     * @return Bytes held by the compressed points of all series
+     */
+    public long bytes() {
+        long bytes = 0;
+        for (TimeSeries s : series.values()) {
+            bytes += s.bytes();
+        }
+        return bytes;
+    }
+}
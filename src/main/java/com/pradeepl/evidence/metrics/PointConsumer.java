@@ -0,0 +1,13 @@
+package com.pradeepl.evidence.metrics;
+
+/**
+ * Receives the points of a series scan.
+ */
+@FunctionalInterface
+public interface PointConsumer {
+
+    /**
+     * @param timestamp Epoch milliseconds
+     */
+    void accept(long timestamp, double value);
+}
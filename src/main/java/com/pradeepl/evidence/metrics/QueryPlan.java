@@ -0,0 +1,439 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Compiled form of a metrics query (see {@link MetricsQuery}). Plans are immutable, so one
+ * compiled plan is shared by every execution of the same expression.
+ */
+public sealed interface QueryPlan {
+
+    /**
+     * Snapshots that ambiguous queries were routed to before queries were compiled, most
+     * preferred first: errors, latency, resources, then throughput.
+     */
+    List<String> DEFAULT_SOURCES = List.of(
+        "payment-service-errors", "payment-service-latency", "user-service-resources", "order-service-throughput");
+
+    /**
+     * Evaluates the plan over the raw points in [from, to].
+     */
+    default List<ResultSeries> execute(MetricsStore store, long from, long to) {
+        return execute(store, from, to, 0);
+    }
+
+    /**
+     * Evaluates the plan over [from, to], downsampled to one point per step. Steps that are a
+     * multiple of a rollup resolution (see {@link TimeSeries#ROLLUP_MILLIS}) read rollup buckets
+     * instead of raw points, so the cost follows the number of steps, not the length of the range.
+     *
+     * @param stepMillis Width of a step, aligned to the epoch; 0 for raw points
+     */
+    List<ResultSeries> execute(MetricsStore store, long from, long to, long stepMillis);
+
+    /**
+     * @return The stored series the plan reads
+     */
+    List<TimeSeries> resolve(MetricsStore store);
+
+    /**
+     * @return Timestamp of the newest point of the series the plan reads, or
+     *         {@link Long#MIN_VALUE} if there is none
+     */
+    default long newest(MetricsStore store) {
+        long newest = Long.MIN_VALUE;
+        for (TimeSeries series : resolve(store)) {
+            newest = Math.max(newest, series.newest());
+        }
+        return newest;
+    }
+
+    /**
+     * @return Timestamp of the oldest retained point of the series the plan reads, or
+     *         {@link Long#MIN_VALUE} if there is none
+     */
+    default long oldest(MetricsStore store) {
+        long oldest = Long.MAX_VALUE;
+        for (TimeSeries series : resolve(store)) {
+            long seriesOldest = series.oldest();
+            if (seriesOldest != Long.MIN_VALUE) {
+                oldest = Math.min(oldest, seriesOldest);
+            }
+        }
+        return oldest == Long.MAX_VALUE ? Long.MIN_VALUE : oldest;
+    }
+
+    /**
+     * @return The {@code source} label shared by most of the series the plan reads, or null if
+     *         it reads none. Ties go to the first of {@link #DEFAULT_SOURCES} among them, so
+     *         a bare {@code error_rate} stays with payment-service-errors, then to the first
+     *         source by name.
+     */
+    default String primarySource(MetricsStore store) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (TimeSeries series : resolve(store)) {
+            String source = series.id().labels().get("source");
+            if (source != null) {
+                counts.merge(source, 1, Integer::sum);
+            }
+        }
+        String primary = null;
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            if (primary == null || count.getValue() > counts.get(primary)
+                || count.getValue().equals(counts.get(primary)) && preferred(count.getKey(), primary)) {
+                primary = count.getKey();
+            }
+        }
+        return primary;
+    }
+
+    private static boolean preferred(String source, String than) {
+        int rank = DEFAULT_SOURCES.indexOf(source);
+        int otherRank = DEFAULT_SOURCES.indexOf(than);
+        return rank >= 0 && (otherRank < 0 || rank < otherRank);
+    }
+
+    /**
+     * Selects stored series: {@code name{label="value", ...}[range]}. A name that is not a
+     * stored metric selects the metrics under it as a dotted path, so "latency_percentiles"
+     * finds {@code latency_percentiles.p95}. A bare name without label matchers or a range that
+     * matches neither selects the series whose name and label words best match its words, so
+     * "cpu_usage" finds {@code cpu_utilization.current}; a selector with matchers or a range
+     * that matches nothing selects nothing. Series are found through the store's
+     * {@link MetricsIndex}.
+     *
+     * @param name Metric name, or null to select by labels only
+     * @param rangeMillis Window before the end of the query, 0 for none
+     */
+    record Select(String name, List<LabelMatcher> matchers, long rangeMillis) implements QueryPlan {
+
+        @Override
+        public List<TimeSeries> resolve(MetricsStore store) {
+            MetricsIndex index = store.index();
+            Collection<TimeSeries> labelled = labelled(index);
+            List<TimeSeries> selected;
+            if (name == null) {
+                selected = select(labelled != null ? labelled : store.series(), id -> true);
+            } else {
+                selected = select(narrowest(index.named(name), labelled), id -> id.name().equals(name));
+                if (selected.isEmpty()) {
+                    String path = name + ".";
+                    selected = select(narrowest(index.underPath(name), labelled), id -> id.name().startsWith(path));
+                }
+                if (selected.isEmpty() && matchers.isEmpty() && rangeMillis == 0) {
+                    selected = Search.bestMatches(index, MetricsIndex.words(name), labelled, this::matchesLabels);
+                }
+            }
+            selected.sort((a, b) -> a.id().toString().compareTo(b.id().toString()));
+            return selected;
+        }
+
+        /**
+         * @return The smallest index posting of the {@code =} matchers with a value, or null if
+         *         there are none
+         */
+        private Collection<TimeSeries> labelled(MetricsIndex index) {
+            Collection<TimeSeries> labelled = null;
+            for (LabelMatcher matcher : matchers) {
+                if (matcher.operator().equals("=") && !matcher.value().isEmpty()) {
+                    labelled = narrowest(index.labelled(matcher.label(), matcher.value()), labelled);
+                }
+            }
+            return labelled;
+        }
+
+        private static Collection<TimeSeries> narrowest(Collection<TimeSeries> candidates, Collection<TimeSeries> labelled) {
+            return labelled != null && labelled.size() < candidates.size() ? labelled : candidates;
+        }
+
+        private List<TimeSeries> select(Collection<TimeSeries> candidates, Predicate<SeriesId> named) {
+            List<TimeSeries> selected = new ArrayList<>();
+            for (TimeSeries series : candidates) {
+                if (named.test(series.id()) && matchesLabels(series.id())) {
+                    selected.add(series);
+                }
+            }
+            return selected;
+        }
+
+        private boolean matchesLabels(SeriesId id) {
+            for (LabelMatcher matcher : matchers) {
+                if (!matcher.matches(id.labels().get(matcher.label()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public List<ResultSeries> execute(MetricsStore store, long from, long to, long stepMillis) {
+            List<ResultSeries> results = new ArrayList<>();
+            for (TimeSeries series : resolve(store)) {
+                // An open-ended range ends at the series' newest point
+                long end = to == Long.MAX_VALUE ? series.newest() : to;
+                long start = rangeMillis > 0 ? Math.max(from, end - rangeMillis) : from;
+                results.add(read(series, start, to, stepMillis, false));
+            }
+            return results;
+        }
+
+        /**
+         * Reads a series downsampled to steps of {@code stepMillis}, from rollups where possible.
+         * Rollup buckets are read whole: those starting within [from, to].
+         *
+         * @param last Value steps by their last point, as counters need, rather than their average
+         */
+        static ResultSeries read(TimeSeries series, long from, long to, long stepMillis, boolean last) {
+            if (stepMillis <= 0) {
+                return read(series, from, to);
+            }
+            Downsampler steps = new Downsampler(stepMillis, last);
+            long rollup = TimeSeries.rollupFor(stepMillis);
+            if (rollup > 0) {
+                series.scanBuckets(rollup, from, to, steps);
+            } else {
+                series.scan(from, to, steps);
+            }
+            return steps.result(series.id().name(), series.id().labels());
+        }
+
+        static ResultSeries read(TimeSeries series, long from, long to) {
+            long[][] timestamps = {new long[64]};
+            double[][] values = {new double[64]};
+            int[] size = {0};
+            series.scan(from, to, (timestamp, value) -> {
+                if (size[0] == timestamps[0].length) {
+                    timestamps[0] = Arrays.copyOf(timestamps[0], size[0] * 2);
+                    values[0] = Arrays.copyOf(values[0], size[0] * 2);
+                }
+                timestamps[0][size[0]] = timestamp;
+                values[0][size[0]++] = value;
+            });
+            return new ResultSeries(series.id().name(), series.id().labels(),
+                Arrays.copyOf(timestamps[0], size[0]), Arrays.copyOf(values[0], size[0]));
+        }
+    }
+
+    /**
+     * Free-text selection for expressions that are not queries, e.g. "checkout p95": the series
+     * matching the most words in their name or label values.
+     */
+    record Search(List<String> words) implements QueryPlan {
+
+        @Override
+        public List<TimeSeries> resolve(MetricsStore store) {
+            List<TimeSeries> selected = bestMatches(store.index(), words, null, id -> true);
+            selected.sort((a, b) -> a.id().toString().compareTo(b.id().toString()));
+            return selected;
+        }
+
+        @Override
+        public List<ResultSeries> execute(MetricsStore store, long from, long to, long stepMillis) {
+            List<ResultSeries> results = new ArrayList<>();
+            for (TimeSeries series : resolve(store)) {
+                results.add(Select.read(series, from, to, stepMillis, false));
+            }
+            return results;
+        }
+
+        /**
+         * Scores series through the index: by the word postings, or by checking each candidate
+         * against them when the candidates are fewer.
+         *
+         * @param candidates The series to choose from, or null for all
+         * @return The series accepted by {@code filter} having the most of the words, none if
+         *         no series has any
+         */
+        static List<TimeSeries> bestMatches(MetricsIndex index, List<String> words, Collection<TimeSeries> candidates,
+                                            Predicate<SeriesId> filter) {
+            List<Set<TimeSeries>> postings = new ArrayList<>();
+            long posted = 0;
+            for (String word : new LinkedHashSet<>(words)) {
+                Set<TimeSeries> posting = index.withWord(word);
+                postings.add(posting);
+                posted += posting.size();
+            }
+
+            Map<TimeSeries, Integer> scores;
+            if (candidates == null || candidates.size() >= posted) {
+                scores = index.wordMatches(words);
+            } else {
+                scores = new IdentityHashMap<>();
+                for (TimeSeries series : candidates) {
+                    int score = 0;
+                    for (Set<TimeSeries> posting : postings) {
+                        if (posting.contains(series)) {
+                            score++;
+                        }
+                    }
+                    if (score > 0) {
+                        scores.put(series, score);
+                    }
+                }
+            }
+
+            List<TimeSeries> best = new ArrayList<>();
+            int bestScore = 0;
+            for (Map.Entry<TimeSeries, Integer> match : scores.entrySet()) {
+                int score = match.getValue();
+                if (score < bestScore || !filter.test(match.getKey().id())) {
+                    continue;
+                }
+                if (score > bestScore) {
+                    best.clear();
+                    bestScore = score;
+                }
+                best.add(match.getKey());
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Per-second rate of increase of counters over a sliding window, {@code rate(name[5m])}.
+     * Counter resets (a drop in value) count as a restart from zero. Downsampled, the rate is
+     * taken between the last values of steps, over a window of at least one step.
+     */
+    record Rate(Select input) implements QueryPlan {
+
+        @Override
+        public List<TimeSeries> resolve(MetricsStore store) {
+            return input.resolve(store);
+        }
+
+        @Override
+        public List<ResultSeries> execute(MetricsStore store, long from, long to, long stepMillis) {
+            long window = Math.max(input.rangeMillis(), stepMillis);
+            List<ResultSeries> results = new ArrayList<>();
+            for (TimeSeries series : resolve(store)) {
+                ResultSeries points = Select.read(series, from == Long.MIN_VALUE ? from : from - window, to,
+                    stepMillis, true);
+                long[] timestamps = new long[points.size()];
+                double[] rates = new double[points.size()];
+                double[] counter = new double[points.size()];
+                int size = 0;
+                int first = 0;
+                for (int i = 0; i < points.size(); i++) {
+                    double value = points.values()[i];
+                    counter[i] = i == 0 ? 0
+                        : counter[i - 1] + (value >= points.values()[i - 1] ? value - points.values()[i - 1] : value);
+                    long timestamp = points.timestamps()[i];
+                    while (points.timestamps()[first] < timestamp - window) {
+                        first++;
+                    }
+                    if (first < i && timestamp >= from) {
+                        timestamps[size] = timestamp;
+                        rates[size++] = (counter[i] - counter[first]) * 1000.0 / (timestamp - points.timestamps()[first]);
+                    }
+                }
+                results.add(new ResultSeries(null, series.id().labels(), Arrays.copyOf(timestamps, size), Arrays.copyOf(rates, size)));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Aggregation across series at each timestamp, optionally grouped by labels:
+     * {@code avg by (service) (expr)}, {@code quantile(0.95, expr)}.
+     *
+     * @param operator sum, avg, min, max, count or quantile
+     * @param parameter Quantile to compute, between 0 and 1
+     * @param by Labels to group by; none aggregates all series into one
+     */
+    record Aggregate(String operator, double parameter, List<String> by, QueryPlan input) implements QueryPlan {
+
+        @Override
+        public List<TimeSeries> resolve(MetricsStore store) {
+            return input.resolve(store);
+        }
+
+        @Override
+        public List<ResultSeries> execute(MetricsStore store, long from, long to, long stepMillis) {
+            Map<SortedMap<String, String>, List<ResultSeries>> groups = new LinkedHashMap<>();
+            for (ResultSeries series : input.execute(store, from, to, stepMillis)) {
+                SortedMap<String, String> key = new TreeMap<>();
+                for (String label : by) {
+                    String value = series.labels().get(label);
+                    if (value != null) {
+                        key.put(label, value);
+                    }
+                }
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(series);
+            }
+
+            List<ResultSeries> results = new ArrayList<>();
+            groups.forEach((labels, members) -> results.add(aggregate(labels, members)));
+            return results;
+        }
+
+        /**
+         * Merges the members' points in time order and aggregates the values sharing a timestamp.
+         */
+        private ResultSeries aggregate(SortedMap<String, String> labels, List<ResultSeries> members) {
+            int total = 0;
+            for (ResultSeries member : members) {
+                total += member.size();
+            }
+            long[] timestamps = new long[total];
+            double[] results = new double[total];
+            double[] values = new double[members.size()];
+            int[] positions = new int[members.size()];
+            int size = 0;
+            while (true) {
+                long next = Long.MAX_VALUE;
+                for (int m = 0; m < members.size(); m++) {
+                    if (positions[m] < members.get(m).size()) {
+                        next = Math.min(next, members.get(m).timestamps()[positions[m]]);
+                    }
+                }
+                if (next == Long.MAX_VALUE) {
+                    break;
+                }
+                int count = 0;
+                for (int m = 0; m < members.size(); m++) {
+                    ResultSeries member = members.get(m);
+                    if (positions[m] < member.size() && member.timestamps()[positions[m]] == next) {
+                        values[count++] = member.values()[positions[m]++];
+                    }
+                }
+                timestamps[size] = next;
+                results[size++] = apply(values, count);
+            }
+            return new ResultSeries(null, labels, Arrays.copyOf(timestamps, size), Arrays.copyOf(results, size));
+        }
+
+        private double apply(double[] values, int count) {
+            if (operator.equals("count")) {
+                return count;
+            }
+            if (operator.equals("quantile")) {
+                double[] sorted = Arrays.copyOf(values, count);
+                Arrays.sort(sorted);
+                double rank = parameter * (count - 1);
+                int lower = (int) rank;
+                int upper = Math.min(lower + 1, count - 1);
+                return sorted[lower] + (sorted[upper] - sorted[lower]) * (rank - lower);
+            }
+            double result = values[0];
+            for (int i = 1; i < count; i++) {
+                result = switch (operator) {
+                    case "min" -> Math.min(result, values[i]);
+                    case "max" -> Math.max(result, values[i]);
+                    default -> result + values[i];
+                };
+            }
+            return operator.equals("avg") ? result / count : result;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.SortedMap;
+
+/**
+ * A series computed by a {@link QueryPlan}, with its points in time order.
+ *
+ * @param name Metric name, or null for computed series such as aggregations
+ * @param labels Labels identifying the series
+ * @param timestamps Epoch milliseconds
+ * @param values Values at the same positions
+ */
+public record ResultSeries(String name, SortedMap<String, String> labels, long[] timestamps, double[] values) {
+
+    public int size() {
+        return timestamps.length;
+    }
+}
@@ -0,0 +1,108 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-width time buckets of one series holding the min, max, sum, count and last value of
+ * the points in each, so long ranges are read as a few pre-aggregated buckets instead of every
+ * raw point. Buckets are aligned to the epoch and kept in parallel primitive arrays; points
+ * arrive in time order, so only the newest bucket is ever updated.
+ *
+ * Not thread-safe; {@link TimeSeries} serializes access.
+ */
+final class Rollup {
+
+    private final long resolutionMillis;
+    private long[] starts = new long[4];
+    private double[] min = new double[4];
+    private double[] max = new double[4];
+    private double[] sum = new double[4];
+    private long[] count = new long[4];
+    private double[] last = new double[4];
+    /** Index of the oldest retained bucket; expired buckets are compacted away lazily. */
+    private int first;
+    private int size;
+
+    Rollup(long resolutionMillis) {
+        this.resolutionMillis = resolutionMillis;
+    }
+
+    long resolutionMillis() {
+        return resolutionMillis;
+    }
+
+    /**
+     * Adds a point newer than all points added before.
+     */
+    void add(long timestamp, double value) {
+        long start = Math.floorDiv(timestamp, resolutionMillis) * resolutionMillis;
+        int i = size - 1;
+        if (size > first && starts[i] == start) {
+            min[i] = Math.min(min[i], value);
+            max[i] = Math.max(max[i], value);
+            sum[i] += value;
+            count[i]++;
+            last[i] = value;
+            return;
+        }
+        if (size == starts.length) {
+            grow();
+        }
+        starts[size] = start;
+        min[size] = value;
+        max[size] = value;
+        sum[size] = value;
+        count[size] = 1;
+        last[size] = value;
+        size++;
+    }
+
+    private void grow() {
+        int retained = size - first;
+        int capacity = Math.max(4, retained + retained / 2);
+        starts = Arrays.copyOfRange(starts, first, first + capacity);
+        min = Arrays.copyOfRange(min, first, first + capacity);
+        max = Arrays.copyOfRange(max, first, first + capacity);
+        sum = Arrays.copyOfRange(sum, first, first + capacity);
+        count = Arrays.copyOfRange(count, first, first + capacity);
+        last = Arrays.copyOfRange(last, first, first + capacity);
+        size = retained;
+        first = 0;
+    }
+
+    /**
+     * Drops the buckets that end before {@code before}.
+     */
+    void expire(long before) {
+        while (first < size && starts[first] + resolutionMillis <= before) {
+            first++;
+        }
+    }
+
+    /**
+     * Passes the buckets starting within [from, to] to {@code consumer} in time order.
+     *
+     * @return Number of buckets passed
+     */
+    int scan(long from, long to, BucketConsumer consumer) {
+        int i = Arrays.binarySearch(starts, first, size, from);
+        i = i < 0 ? -i - 1 : i;
+        int passed = 0;
+        for (; i < size && starts[i] <= to; i++) {
+            consumer.accept(starts[i], min[i], max[i], sum[i], count[i], last[i]);
+            passed++;
+        }
+        return passed;
+    }
+
+    int bucketCount() {
+        return size - first;
+    }
+
+    /**
+     * @return Bytes held by the bucket arrays
+     */
+    long bytes() {
+        return starts.length * 48L;
+    }
+}
@@ -0,0 +1,49 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Identity of a series: a metric name and its labels.
+ *
+ * @param name Metric name, e.g. "error_rate" or "latency_percentiles.p95"
+ * @param labels Labels such as service and source, sorted by name
+ */
+public record SeriesId(String name, SortedMap<String, String> labels) {
+
+    public SeriesId {
+        labels = Collections.unmodifiableSortedMap(new TreeMap<>(labels));
+    }
+
+    public static SeriesId of(String name, Map<String, String> labels) {
+        return new SeriesId(name, new TreeMap<>(labels));
+    }
+
+    /**
+     * @return True if every given label has the given value on this series
+     */
+    public boolean matches(Map<String, String> selectors) {
+        for (Map.Entry<String, String> selector : selectors.entrySet()) {
+            if (!selector.getValue().equals(labels.get(selector.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The series in Prometheus notation, e.g. {@code error_rate{service="payment-service"}}
+     */
+    @Override
+    public String toString() {
+        if (labels.isEmpty()) {
+            return name;
+        }
+        return labels.entrySet().stream()
+            .map(label -> label.getKey() + "=\"" + label.getValue() + "\"")
+            .collect(Collectors.joining(",", name + "{", "}"));
+    }
+}
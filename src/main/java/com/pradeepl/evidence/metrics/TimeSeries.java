@@ -0,0 +1,220 @@
+package com.pradeepl.evidence.metrics;
+
+import java.util.Arrays;
+
+/**
+ * The points of one series as a list of {@link GorillaChunk}s.
+ *
+ * Points go into a growing head chunk, which is sealed once it spans {@link #CHUNK_MILLIS}
+ * (aligned to the epoch) or holds {@link #MAX_CHUNK_POINTS} points. Scans skip chunks outside
+ * the requested range by their start and end times and decode the rest sequentially. Appends
+ * are serialized per series; scans only hold the lock long enough to snapshot the chunk list.
+ *
+ * Each append also updates {@link Rollup}s at the {@link #ROLLUP_MILLIS} resolutions, so long
+ * ranges can be read through {@link #scanBuckets} at a cost that depends on the number of
+ * buckets rather than the number of points.
+ */
+public final class TimeSeries {
+
+    /** Time span of a chunk. */
+    static final long CHUNK_MILLIS = 2 * 60 * 60 * 1000L;
+
+    /** Most points in a chunk, for series sampled faster than once per second. */
+    static final int MAX_CHUNK_POINTS = 8192;
+
+    /** Rollup resolutions, finest first: one minute, five minutes and one hour. */
+    public static final long[] ROLLUP_MILLIS = {60 * 1000L, 5 * 60 * 1000L, 60 * 60 * 1000L};
+
+    /** Sampling interval raw data is assumed to have when choosing a resolution. */
+    static final long RAW_INTERVAL_MILLIS = 1000L;
+
+    private static final GorillaChunk[] NO_CHUNKS = new GorillaChunk[0];
+
+    private final SeriesId id;
+    private final long retentionMillis;
+    /** Sealed chunks in time order; replaced, never modified, so scans can use a snapshot. */
+    private volatile GorillaChunk[] sealed = NO_CHUNKS;
+    private GorillaChunk head;
+    private long pointCount;
+    private final Rollup[] rollups = new Rollup[ROLLUP_MILLIS.length];
+
+    /**
+     * @param retentionMillis Chunks ending this long before the newest point are dropped
+     */
+    TimeSeries(SeriesId id, long retentionMillis) {
+        this.id = id;
+        this.retentionMillis = retentionMillis;
+        for (int i = 0; i < rollups.length; i++) {
+            rollups[i] = new Rollup(ROLLUP_MILLIS[i]);
+        }
+    }
+
+    /**
+     * Chooses the resolution to read a range at: the finest of raw points (assumed one per
+     * second) and the rollups that yields at most {@code maxPoints} points per series.
+     *
+     * @return 0 for raw points, else a value of {@link #ROLLUP_MILLIS}
+     */
+    public static long resolutionFor(long rangeMillis, int maxPoints) {
+        if (rangeMillis <= 0 || rangeMillis / RAW_INTERVAL_MILLIS <= maxPoints) {
+            return 0;
+        }
+        for (long resolution : ROLLUP_MILLIS) {
+            if (rangeMillis / resolution <= maxPoints) {
+                return resolution;
+            }
+        }
+        return ROLLUP_MILLIS[ROLLUP_MILLIS.length - 1];
+    }
+
+    /**
+     * @return The coarsest rollup resolution that evenly divides {@code stepMillis}, or 0 if none does
+     */
+    static long rollupFor(long stepMillis) {
+        for (int i = ROLLUP_MILLIS.length - 1; i >= 0; i--) {
+            if (stepMillis >= ROLLUP_MILLIS[i] && stepMillis % ROLLUP_MILLIS[i] == 0) {
+                return ROLLUP_MILLIS[i];
+            }
+        }
+        return 0;
+    }
+
+    public SeriesId id() {
+        return id;
+    }
+
+    /**
+     * Appends a point.
+     *
+     * @param timestamp Epoch milliseconds
+     * @return False if the point is not after the newest point, which it would have to replace
+     */
+    public synchronized boolean append(long timestamp, double value) {
+        if (head != null) {
+            if (timestamp <= head.end()) {
+                return false;
+            }
+            if (Math.floorDiv(timestamp, CHUNK_MILLIS) != Math.floorDiv(head.start(), CHUNK_MILLIS)
+                || head.count() >= MAX_CHUNK_POINTS) {
+                head.seal();
+                GorillaChunk[] chunks = Arrays.copyOf(sealed, sealed.length + 1);
+                chunks[chunks.length - 1] = head;
+                sealed = expire(chunks, timestamp);
+                head = null;
+            }
+        }
+        if (head == null) {
+            head = new GorillaChunk(timestamp, value, MAX_CHUNK_POINTS);
+        } else {
+            head.append(timestamp, value);
+        }
+        for (Rollup rollup : rollups) {
+            rollup.add(timestamp, value);
+        }
+        pointCount++;
+        return true;
+    }
+
+    private GorillaChunk[] expire(GorillaChunk[] chunks, long newest) {
+        int expired = 0;
+        while (expired < chunks.length && chunks[expired].end() < newest - retentionMillis) {
+            pointCount -= chunks[expired].count();
+            expired++;
+        }
+        for (Rollup rollup : rollups) {
+            rollup.expire(newest - retentionMillis);
+        }
+        return expired == 0 ? chunks : Arrays.copyOfRange(chunks, expired, chunks.length);
+    }
+
+    /**
+     * Passes the points with timestamps in [from, to] to {@code consumer} in time order.
+     *
+     * @return Number of points passed
+     */
+    public int scan(long from, long to, PointConsumer consumer) {
+        GorillaChunk[] chunks;
+        GorillaChunk growing;
+        long[] headWords = null;
+        int headPoints = 0;
+        synchronized (this) {
+            chunks = sealed;
+            growing = head;
+            if (growing != null) {
+                headWords = growing.words();
+                headPoints = growing.count();
+            }
+        }
+
+        int passed = 0;
+        for (GorillaChunk chunk : chunks) {
+            if (chunk.end() >= from && chunk.start() <= to) {
+                passed += GorillaChunk.scan(chunk.words(), chunk.count(), from, to, consumer);
+            }
+        }
+        if (growing != null && growing.start() <= to) {
+            passed += GorillaChunk.scan(headWords, headPoints, from, to, consumer);
+        }
+        return passed;
+    }
+
+    /**
+     * Passes the rollup buckets starting within [from, to] to {@code consumer} in time order. The
+     * series is locked meanwhile, so the consumer should only accumulate.
+     *
+     * @param resolutionMillis One of {@link #ROLLUP_MILLIS}
+     * @return Number of buckets passed
+     */
+    public synchronized int scanBuckets(long resolutionMillis, long from, long to, BucketConsumer consumer) {
+        for (Rollup rollup : rollups) {
+            if (rollup.resolutionMillis() == resolutionMillis) {
+                return rollup.scan(from, to, consumer);
+            }
+        }
+        throw new IllegalArgumentException("No rollup at resolution " + resolutionMillis + " ms");
+    }
+
+    /**
+     * @return Timestamp of the newest point, or {@link Long#MIN_VALUE} if there is none
+     */
+    public synchronized long newest() {
+        return head == null ? Long.MIN_VALUE : head.end();
+    }
+
+    /**
+     * @return Timestamp of the oldest retained point, or {@link Long#MIN_VALUE} if there is none
+     */
+    public synchronized long oldest() {
+        GorillaChunk[] chunks = sealed;
+        return chunks.length > 0 ? chunks[0].start() : head == null ? Long.MIN_VALUE : head.start();
+    }
+
+    /**
+     * @return Number of retained points
+     */
+    public synchronized long pointCount() {
+        return pointCount;
+    }
+
+    /**
+     * @return Bytes held by the rollup buckets
+     */
+    public synchronized long rollupBytes() {
+        long bytes = 0;
+        for (Rollup rollup : rollups) {
+            bytes += rollup.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Bytes held by the compressed points
+     */
+    public synchronized long bytes() {
+        long bytes = head == null ? 0 : head.bytes();
+        for (GorillaChunk chunk : sealed) {
+            bytes += chunk.bytes();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,98 @@
+package com.pradeepl.evidence.util;
+
+/**
+ * Count-Min sketch: approximate counts for an unbounded set of keys in fixed memory.
+ *
+ * Keys are given by their 32-bit hash. Each key is counted in one cell of each of
+ * {@code depth} rows and estimated as the minimum of its cells, so an estimate never
+ * undercounts and, with probability at least {@code 1 - delta}, overcounts by at most
+ * {@code epsilon} times the total of all counts added. Sketches with the same dimensions can
+ * be merged by adding their cells.
+ */
+public final class CountMinSketch {
+
+    private final double epsilon;
+    private final double delta;
+    private final int width;
+    private final int depth;
+    private final int[] cells;
+    private long total;
+
+    /**
+     * @param epsilon Relative error bound, as a fraction of the total count
+     * @param delta Probability that an estimate exceeds the error bound
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("epsilon and delta must be between 0 and 1");
+        }
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.cells = new int[width * depth];
+    }
+
+    /**
+     * Adds {@code count} occurrences of the key with hash {@code hash}.
+     */
+    public void add(int hash, int count) {
+        for (int row = 0; row < depth; row++) {
+            cells[row * width + column(hash, row)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * @return Estimated count of the key with hash {@code hash}; never below the true count
+     */
+    public int estimate(int hash) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells[row * width + column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds all counts of a sketch with the same epsilon and delta.
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] += other.cells[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * @return Upper bound, holding with probability {@code 1 - delta}, on how far any estimate
+     *         exceeds its true count
+     */
+    public int maxOvercount() {
+        return (int) Math.ceil(epsilon * total);
+    }
+
+    public double epsilon() {
+        return epsilon;
+    }
+
+    public double delta() {
+        return delta;
+    }
+
+    /**
+     * Column of a key in one row: an independent-looking hash per row derived from the key hash.
+     */
+    private int column(int hash, int row) {
+        int h = hash * 0x9e3779b9 + (row + 1) * 0x85ebca6b;
+        h ^= h >>> 16;
+        h *= 0x7feb352d;
+        h ^= h >>> 15;
+        h *= 0x846ca68b;
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % width;
+    }
+}
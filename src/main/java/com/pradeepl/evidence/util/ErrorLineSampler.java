@@ -0,0 +1,221 @@
+package com.pradeepl.evidence.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sample of error lines stratified by time bucket and error template.
+ *
+ * Each (template, bucket) pair is a stratum, represented by one line: a reservoir of size one
+ * whose random priorities are hashes of the line contents, so identical lines collapse into
+ * one and the choice does not depend on how the input was split. Of all strata, the
+ * {@link #MAX_STRATA} with the smallest stratum hashes are kept, which is a uniform sample of
+ * the strata in fixed memory however long the window. Samplers of adjacent chunks
+ * {@link #merge merge} into exactly the sampler of the whole input. {@link #sample} then
+ * picks lines of distinct templates spread evenly across the kept strata.
+ */
+public final class ErrorLineSampler {
+
+    /** Most strata kept. */
+    static final int MAX_STRATA = 64;
+
+    /** Width of a time stratum. */
+    static final long BUCKET_MILLIS = 60_000;
+
+    private final int[] stratumHashes = new int[MAX_STRATA];
+    private final int[] templates = new int[MAX_STRATA];
+    private final long[] buckets = new long[MAX_STRATA];
+    private final int[] priorities = new int[MAX_STRATA];
+    private final long[] lineNumbers = new long[MAX_STRATA];
+    private final String[] lines = new String[MAX_STRATA];
+    private int size;
+
+    /** Stratum found by the last {@link #wants} call, -1 for a new one. */
+    private int pending = -1;
+
+    /**
+     * Decides whether an error line would enter the sample, so the line is only copied when
+     * it does.
+     *
+     * @param template Hash of the line's template
+     * @param timestamp Epoch milliseconds of the line, or {@link com.pradeepl.evidence.logs.LogTimestamps#NONE}
+     * @param priority Hash of the line's contents
+     * @return True if {@link #add} must be called next with the line
+     */
+    public boolean wants(int template, long timestamp, int priority, long lineNumber) {
+        long bucket = bucket(timestamp);
+        int stratum = find(template, bucket);
+        pending = stratum;
+        if (stratum >= 0) {
+            return priority < priorities[stratum]
+                || (priority == priorities[stratum] && lineNumber < lineNumbers[stratum]);
+        }
+        return size < MAX_STRATA || compareStrata(stratumHash(template, bucket), template, bucket, largest()) < 0;
+    }
+
+    /**
+     * Adds the line after {@link #wants} returned true for it.
+     */
+    public void add(int template, long timestamp, int priority, long lineNumber, String line) {
+        long bucket = bucket(timestamp);
+        int stratum = pending >= 0 ? pending : insert(template, bucket);
+        priorities[stratum] = priority;
+        lineNumbers[stratum] = lineNumber;
+        lines[stratum] = line;
+        pending = -1;
+    }
+
+    /**
+     * Folds in the sample of the input that follows this sampler's input.
+     *
+     * @param lineOffset Number of lines before the other sampler's input
+     */
+    public void merge(ErrorLineSampler other, long lineOffset) {
+        for (int i = 0; i < other.size; i++) {
+            int template = other.templates[i];
+            long bucket = other.buckets[i];
+            long lineNumber = other.lineNumbers[i] + lineOffset;
+            int stratum = find(template, bucket);
+            if (stratum >= 0) {
+                if (other.priorities[i] < priorities[stratum]
+                    || (other.priorities[i] == priorities[stratum] && lineNumber < lineNumbers[stratum])) {
+                    priorities[stratum] = other.priorities[i];
+                    lineNumbers[stratum] = lineNumber;
+                    lines[stratum] = other.lines[i];
+                }
+            } else if (size < MAX_STRATA
+                || compareStrata(other.stratumHashes[i], template, bucket, largest()) < 0) {
+                stratum = insert(template, bucket);
+                priorities[stratum] = other.priorities[i];
+                lineNumbers[stratum] = lineNumber;
+                lines[stratum] = other.lines[i];
+            }
+        }
+    }
+
+    /**
+     * Clears the sample.
+     */
+    public void reset() {
+        Arrays.fill(lines, null);
+        size = 0;
+        pending = -1;
+    }
+
+    /**
+     * Picks up to {@code limit} lines of distinct templates: the kept strata are put in line
+     * order and, for evenly spaced positions, the nearest stratum of a template not yet picked
+     * is taken.
+     *
+     * @return The picked lines in line order
+     */
+    public List<String> sample(int limit) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(lineNumbers[a], lineNumbers[b]));
+
+        boolean[] picked = new boolean[size];
+        int pickedCount = 0;
+        for (int j = 0; j < limit && pickedCount < size; j++) {
+            int target = limit == 1 ? 0 : (int) Math.round(j * (size - 1) / (double) (limit - 1));
+            int choice = -1;
+            for (int distance = 0; distance < size && choice < 0; distance++) {
+                for (int side = 0; side < 2 && choice < 0; side++) {
+                    int position = side == 0 ? target + distance : target - distance;
+                    if (position >= 0 && position < size && !picked[position]
+                        && !templatePicked(order, picked, templates[order[position]])) {
+                        choice = position;
+                    }
+                }
+            }
+            if (choice < 0) {
+                break;
+            }
+            picked[choice] = true;
+            pickedCount++;
+        }
+
+        List<String> sample = new ArrayList<>(pickedCount);
+        for (int position = 0; position < size; position++) {
+            if (picked[position]) {
+                sample.add(lines[order[position]]);
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * @return Number of strata kept
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean templatePicked(Integer[] order, boolean[] picked, int template) {
+        for (int position = 0; position < size; position++) {
+            if (picked[position] && templates[order[position]] == template) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int find(int template, long bucket) {
+        for (int i = 0; i < size; i++) {
+            if (templates[i] == template && buckets[i] == bucket) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a new stratum, replacing the one with the largest hash when full.
+     */
+    private int insert(int template, long bucket) {
+        int stratum = size < MAX_STRATA ? size++ : largest();
+        stratumHashes[stratum] = stratumHash(template, bucket);
+        templates[stratum] = template;
+        buckets[stratum] = bucket;
+        return stratum;
+    }
+
+    private int largest() {
+        int largest = 0;
+        for (int i = 1; i < size; i++) {
+            if (compareStrata(stratumHashes[i], templates[i], buckets[i], largest) > 0) {
+                largest = i;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Orders strata by hash, then by template and bucket so ties break the same way in every
+     * chunk.
+     */
+    private int compareStrata(int hash, int template, long bucket, int stratum) {
+        int order = Integer.compare(hash, stratumHashes[stratum]);
+        if (order == 0) {
+            order = Integer.compare(template, templates[stratum]);
+        }
+        return order != 0 ? order : Long.compare(bucket, buckets[stratum]);
+    }
+
+    private static long bucket(long timestamp) {
+        return timestamp == Long.MIN_VALUE ? Long.MIN_VALUE : Math.floorDiv(timestamp, BUCKET_MILLIS);
+    }
+
+    private static int stratumHash(int template, long bucket) {
+        int h = template * 0x9e3779b9 ^ Long.hashCode(bucket * 0xc2b2ae3d27d4eb4fL);
+        h ^= h >>> 16;
+        h *= 0x7feb352d;
+        h ^= h >>> 15;
+        h *= 0x846ca68b;
+        h ^= h >>> 16;
+        return h;
+    }
+}
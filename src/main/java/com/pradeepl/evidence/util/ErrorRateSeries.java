@@ -0,0 +1,273 @@
+package com.pradeepl.evidence.util;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Line and error counts per time bucket (e.g. per second or per minute) in primitive ring
+ * arrays.
+ *
+ * The ring covers the buckets from the earliest to the latest timestamp seen, grows as needed
+ * up to {@code maxBuckets} and then keeps only the most recent {@code maxBuckets} buckets, so
+ * memory stays bounded for any window. Series of adjacent chunks can be {@link #merge merged}.
+ * Over a per-second series, {@link #detectBursts()} finds short stretches whose error rate
+ * stands out from the rest of the window, which a whole-window error rate cannot show.
+ */
+public final class ErrorRateSeries {
+
+    /** Lowest error rate, in errors per bucket, that can count as a burst. */
+    static final int MIN_BURST_RATE = 3;
+
+    /** Fewest errors a burst must contain. */
+    static final int MIN_BURST_ERRORS = 5;
+
+    /** Bursts separated by at most this many quiet buckets are reported as one. */
+    static final int MAX_BURST_GAP = 3;
+
+    /** Shortest series (in buckets) in which bursts are looked for. */
+    static final int MIN_BURST_SPAN = 10;
+
+    private static final int MAX_BURSTS = 10;
+    private static final int INITIAL_BUCKETS = 16;
+
+    /**
+     * A stretch of elevated error rate.
+     *
+     * @param start Start of the first bucket of the burst
+     * @param end End of the last bucket of the burst
+     * @param errors Errors within the burst
+     * @param peakRate Most errors in a single bucket of the burst
+     * @param baselineRate Typical (median) errors per bucket over the whole series
+     */
+    public record Burst(String start, String end, int errors, int peakRate, double baselineRate) {}
+
+    /**
+     * Series returned with a log analysis.
+     *
+     * @param resolution Bucket width, e.g. "1s" or "1m"
+     * @param start Start of the first bucket
+     * @param lines Lines per bucket
+     * @param errors Error lines per bucket
+     */
+    public record Series(String resolution, String start, List<Integer> lines, List<Integer> errors) {}
+
+    private final long bucketMillis;
+    private final int maxBuckets;
+    private int[] lines = new int[INITIAL_BUCKETS];
+    private int[] errors = new int[INITIAL_BUCKETS];
+    /** First and last bucket held, first > last when empty. */
+    private long first = 0;
+    private long last = -1;
+    private boolean dropped;
+
+    /**
+     * @param bucketMillis Bucket width in milliseconds
+     * @param maxBuckets Most buckets kept; older buckets are dropped
+     */
+    public ErrorRateSeries(long bucketMillis, int maxBuckets) {
+        this.bucketMillis = bucketMillis;
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Counts a line with timestamp {@code epochMillis}.
+     */
+    public void add(long epochMillis, boolean error) {
+        add(Math.floorDiv(epochMillis, bucketMillis), 1, error ? 1 : 0);
+    }
+
+    private void add(long bucket, int lineCount, int errorCount) {
+        if (isEmpty()) {
+            first = bucket;
+            last = bucket;
+        } else if (bucket < first) {
+            if (last - bucket >= maxBuckets) {
+                // Older than the retained window
+                dropped = true;
+                return;
+            }
+            resize(last - bucket + 1);
+            for (long b = bucket; b < first; b++) {
+                clear(b);
+            }
+            first = bucket;
+        } else if (bucket > last) {
+            resize(bucket - first + 1);
+            if (bucket - first >= maxBuckets) {
+                first = bucket - maxBuckets + 1;
+                dropped = true;
+            }
+            for (long b = Math.max(last + 1, first); b <= bucket; b++) {
+                clear(b);
+            }
+            last = bucket;
+        }
+        int slot = slot(bucket);
+        lines[slot] += lineCount;
+        errors[slot] += errorCount;
+    }
+
+    /**
+     * Adds the counts of a series with the same bucket width.
+     */
+    public void merge(ErrorRateSeries other) {
+        for (long b = other.first; b <= other.last; b++) {
+            int slot = other.slot(b);
+            if (other.lines[slot] > 0) {
+                add(b, other.lines[slot], other.errors[slot]);
+            }
+        }
+        dropped |= other.dropped;
+    }
+
+    /**
+     * Clears all counts.
+     */
+    public void reset() {
+        first = 0;
+        last = -1;
+        dropped = false;
+    }
+
+    public boolean isEmpty() {
+        return first > last;
+    }
+
+    /**
+     * @return True if buckets were dropped because the series spans more than the maximum
+     */
+    public boolean isTruncated() {
+        return dropped;
+    }
+
+    /**
+     * @return Number of buckets from the first to the last timestamp, 0 when empty
+     */
+    public int span() {
+        return isEmpty() ? 0 : (int) (last - first + 1);
+    }
+
+    /**
+     * @return Errors in the bucket holding {@code epochMillis}
+     */
+    public int errorsAt(long epochMillis) {
+        long bucket = Math.floorDiv(epochMillis, bucketMillis);
+        return bucket >= first && bucket <= last ? errors[slot(bucket)] : 0;
+    }
+
+    /**
+     * @return The series from the first to the last bucket
+     */
+    public Series toSeries(String resolution) {
+        int span = span();
+        List<Integer> lineCounts = new ArrayList<>(span);
+        List<Integer> errorCounts = new ArrayList<>(span);
+        for (long b = first; b <= last; b++) {
+            lineCounts.add(lines[slot(b)]);
+            errorCounts.add(errors[slot(b)]);
+        }
+        String start = isEmpty() ? null : Instant.ofEpochMilli(first * bucketMillis).toString();
+        return new Series(resolution, start, lineCounts, errorCounts);
+    }
+
+    /**
+     * Finds bursts: runs of buckets whose error count reaches
+     * {@code max(MIN_BURST_RATE, 3 * median + 3 * robust deviation)}, joined across gaps of up
+     * to {@link #MAX_BURST_GAP} buckets and holding at least {@link #MIN_BURST_ERRORS} errors.
+     * The median and the median absolute deviation are used so the bursts themselves do not
+     * raise the baseline they are measured against.
+     *
+     * @return At most 10 bursts in time order; none for series shorter than
+     *         {@link #MIN_BURST_SPAN} buckets
+     */
+    public List<Burst> detectBursts() {
+        int span = span();
+        List<Burst> bursts = new ArrayList<>();
+        if (span < MIN_BURST_SPAN) {
+            return bursts;
+        }
+
+        int[] sorted = new int[span];
+        for (int i = 0; i < span; i++) {
+            sorted[i] = errors[slot(first + i)];
+        }
+        Arrays.sort(sorted);
+        double median = median(sorted);
+        for (int i = 0; i < span; i++) {
+            sorted[i] = (int) Math.abs(sorted[i] - median);
+        }
+        Arrays.sort(sorted);
+        double deviation = 1.4826 * median(sorted);
+        double threshold = Math.max(MIN_BURST_RATE, 3 * median + 3 * deviation);
+
+        long burstStart = -1;
+        long burstEnd = -1;
+        for (long b = first; b <= last + MAX_BURST_GAP + 1 && bursts.size() < MAX_BURSTS; b++) {
+            boolean hot = b <= last && errors[slot(b)] >= threshold;
+            if (hot) {
+                if (burstStart < 0) {
+                    burstStart = b;
+                }
+                burstEnd = b;
+            } else if (burstStart >= 0 && b - burstEnd > MAX_BURST_GAP) {
+                addBurst(bursts, burstStart, burstEnd, median);
+                burstStart = -1;
+            }
+        }
+        return bursts;
+    }
+
+    private void addBurst(List<Burst> bursts, long start, long end, double baseline) {
+        int total = 0;
+        int peak = 0;
+        for (long b = start; b <= end; b++) {
+            int count = errors[slot(b)];
+            total += count;
+            peak = Math.max(peak, count);
+        }
+        if (total >= MIN_BURST_ERRORS) {
+            bursts.add(new Burst(
+                Instant.ofEpochMilli(start * bucketMillis).toString(),
+                Instant.ofEpochMilli((end + 1) * bucketMillis).toString(),
+                total, peak, baseline));
+        }
+    }
+
+    private static double median(int[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) lines.length);
+    }
+
+    private void clear(long bucket) {
+        int slot = slot(bucket);
+        lines[slot] = 0;
+        errors[slot] = 0;
+    }
+
+    /**
+     * Grows the ring to hold {@code span} buckets (up to the maximum), keeping its contents.
+     */
+    private void resize(long span) {
+        int needed = (int) Math.min(span, maxBuckets);
+        if (needed <= lines.length) {
+            return;
+        }
+        int capacity = Math.min(maxBuckets, Math.max(needed, lines.length * 2));
+        int[] newLines = new int[capacity];
+        int[] newErrors = new int[capacity];
+        for (long b = first; b <= last; b++) {
+            int from = slot(b);
+            int to = (int) Math.floorMod(b, (long) capacity);
+            newLines[to] = lines[from];
+            newErrors[to] = errors[from];
+        }
+        lines = newLines;
+        errors = newErrors;
+    }
+}
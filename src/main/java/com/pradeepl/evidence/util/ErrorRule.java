@@ -0,0 +1,16 @@
+package com.pradeepl.evidence.util;
+
+/**
+ * A team-defined error classification rule, as listed in the rules file.
+ *
+ * The match expression is case-insensitive ASCII text: {@code |} separates alternatives, and
+ * within an alternative {@code *} separates terms that must appear in that order on the line.
+ * For example {@code "connection*refused|deadlock"} matches "Connection to db refused" and
+ * "Deadlock detected", but not "refused before connection".
+ *
+ * @param name Name reported as an error pattern when the rule matches
+ * @param match Match expression
+ * @param category Grouping of the rule (e.g. database, payment)
+ * @param severity Severity of a match (e.g. critical, high, medium, low)
+ */
+public record ErrorRule(String name, String match, String category, String severity) {}
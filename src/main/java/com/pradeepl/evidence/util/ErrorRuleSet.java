@@ -0,0 +1,203 @@
+package com.pradeepl.evidence.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A set of {@link ErrorRule}s compiled into one matcher.
+ *
+ * The terms of all rules are added to the built-in analysis keywords of
+ * {@link LogAnalysisAccumulator} in a single {@link KeywordMatcher}, so a line is still
+ * scanned once however many rules there are; the per-character cost does not grow with the
+ * rule count. Only when a rule term ends at a character is the (short) list of rule clauses
+ * waiting for that term consulted. A compiled set is immutable and shared by all analyses.
+ */
+public final class ErrorRuleSet {
+
+    /** Most terms in one alternative of a match expression. */
+    static final int MAX_TERMS = 16;
+
+    /**
+     * Lines that matched a rule.
+     *
+     * @param lines Number of lines the rule matched
+     */
+    public record RuleMatch(String name, String category, String severity, int lines) {}
+
+    private final List<ErrorRule> rules;
+    private final KeywordMatcher matcher;
+    /** Bits of {@link KeywordMatcher#matches} that signal a rule term. */
+    private final int termBits;
+    /** termClauses[keyword] = clause * MAX_TERMS + position of each clause term it matches, or null. */
+    private final int[][] termClauses;
+    private final int[] clauseLengths;
+    private final int[] clauseRules;
+
+    private ErrorRuleSet(List<ErrorRule> rules, KeywordMatcher matcher, int termBits, int[][] termClauses,
+                         int[] clauseLengths, int[] clauseRules) {
+        this.rules = rules;
+        this.matcher = matcher;
+        this.termBits = termBits;
+        this.termClauses = termClauses;
+        this.clauseLengths = clauseLengths;
+        this.clauseRules = clauseRules;
+    }
+
+    /**
+     * Compiles rules together with the built-in analysis keywords.
+     *
+     * @throws IllegalArgumentException if a rule is incomplete or its match expression is invalid
+     */
+    public static ErrorRuleSet compile(List<ErrorRule> rules) {
+        List<String> keywords = new ArrayList<>(Arrays.asList(LogAnalysisAccumulator.KEYWORDS));
+        Map<String, Integer> keywordIds = new HashMap<>();
+        for (int k = 0; k < keywords.size(); k++) {
+            keywordIds.put(keywords.get(k), k);
+        }
+
+        List<int[]> clauses = new ArrayList<>();
+        List<Integer> clauseRules = new ArrayList<>();
+        for (int r = 0; r < rules.size(); r++) {
+            ErrorRule rule = rules.get(r);
+            if (rule.name() == null || rule.name().isBlank() || rule.match() == null || rule.match().isBlank()) {
+                throw new IllegalArgumentException("Rule " + (r + 1) + " needs a name and a match expression");
+            }
+            for (String alternative : rule.match().split("\\|")) {
+                String[] terms = alternative.split("\\*");
+                if (terms.length > MAX_TERMS) {
+                    throw new IllegalArgumentException("Too many terms in rule " + rule.name() + ": " + alternative);
+                }
+                int[] clause = new int[terms.length];
+                for (int t = 0; t < terms.length; t++) {
+                    String term = terms[t].trim().toLowerCase(Locale.ROOT);
+                    if (term.isEmpty() || !term.chars().allMatch(c -> c < 128)) {
+                        throw new IllegalArgumentException(
+                            "Invalid match expression in rule " + rule.name() + ": " + rule.match());
+                    }
+                    Integer id = keywordIds.get(term);
+                    if (id == null) {
+                        id = keywords.size();
+                        keywords.add(term);
+                        keywordIds.put(term, id);
+                    }
+                    clause[t] = id;
+                }
+                clauses.add(clause);
+                clauseRules.add(r);
+            }
+        }
+
+        KeywordMatcher matcher = new KeywordMatcher(keywords.toArray(new String[0]));
+        int[][] termClauses = new int[keywords.size()][];
+        int termBits = 0;
+        for (int c = 0; c < clauses.size(); c++) {
+            int[] clause = clauses.get(c);
+            for (int t = 0; t < clause.length; t++) {
+                int id = clause[t];
+                int[] waiting = termClauses[id] == null ? new int[0] : termClauses[id];
+                waiting = Arrays.copyOf(waiting, waiting.length + 1);
+                waiting[waiting.length - 1] = c * MAX_TERMS + t;
+                termClauses[id] = waiting;
+                termBits |= id < Integer.SIZE - 1 ? 1 << id : KeywordMatcher.MORE;
+            }
+        }
+        return new ErrorRuleSet(List.copyOf(rules), matcher, termBits, termClauses,
+            clauses.stream().mapToInt(clause -> clause.length).toArray(),
+            clauseRules.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public List<ErrorRule> rules() {
+        return rules;
+    }
+
+    /**
+     * @return Matcher for the built-in keywords (as indexed in {@link LogAnalysisAccumulator#KEYWORDS})
+     *         followed by the rule terms
+     */
+    KeywordMatcher matcher() {
+        return matcher;
+    }
+
+    /**
+     * @return Bits of {@link KeywordMatcher#matches} for which {@link Scan#accept} must be called
+     */
+    int termBits() {
+        return termBits;
+    }
+
+    /**
+     * Matching state for one line at a time. Not thread-safe; each analysis keeps its own.
+     */
+    final class Scan {
+        private final int[] progress = new int[clauseLengths.length];
+        private final int[] lastEnd = new int[clauseLengths.length];
+        private final int[] started = new int[clauseLengths.length];
+        private int startedCount;
+        private final boolean[] ruleMatched = new boolean[rules.size()];
+        private final int[] matched = new int[rules.size()];
+        private int matchedCount;
+
+        /**
+         * Clears the state of the previous line.
+         */
+        void beginLine() {
+            for (int i = 0; i < startedCount; i++) {
+                progress[started[i]] = 0;
+            }
+            startedCount = 0;
+            for (int i = 0; i < matchedCount; i++) {
+                ruleMatched[matched[i]] = false;
+            }
+            matchedCount = 0;
+        }
+
+        /**
+         * Advances the clauses waiting for a term that ends at position {@code i} of the line,
+         * in matcher state {@code state}.
+         */
+        void accept(int state, int i) {
+            for (int id : matcher.outputs(state)) {
+                int[] waiting = termClauses[id];
+                if (waiting == null) {
+                    continue;
+                }
+                int termStart = i + 1 - matcher.length(id);
+                for (int entry : waiting) {
+                    int clause = entry / MAX_TERMS;
+                    int position = entry % MAX_TERMS;
+                    if (progress[clause] != position || (position > 0 && lastEnd[clause] > termStart)) {
+                        continue;
+                    }
+                    if (position == 0) {
+                        started[startedCount++] = clause;
+                    }
+                    progress[clause] = position + 1;
+                    lastEnd[clause] = i + 1;
+                    int rule = clauseRules[clause];
+                    if (progress[clause] == clauseLengths[clause] && !ruleMatched[rule]) {
+                        ruleMatched[rule] = true;
+                        matched[matchedCount++] = rule;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return Number of rules the current line matched so far
+         */
+        int matchedCount() {
+            return matchedCount;
+        }
+
+        /**
+         * @return Index of the {@code i}-th rule the current line matched, in match order
+         */
+        int matchedRule(int i) {
+            return matched[i];
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.pradeepl.evidence.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Holds the {@link ErrorRuleSet} used by log analysis, configured under
+ * {@code evidence.analysis} in application.conf.
+ *
+ * Rules are read from a JSON array of {@link ErrorRule}s: the file named by
+ * {@code evidence.analysis.rules-file}, or the error-rules.json bundled on the classpath when
+ * none is set. A rules file is hot-reloaded: at most once per {@code rules-reload-interval},
+ * {@link #current()} checks its modification time and, when it changed, compiles the new rules
+ * and then swaps them in, so analyses always see one complete rule set. A file that fails to
+ * parse or compile is logged and the previous rules stay in use.
+ */
+public final class ErrorRules {
+
+    private static final Logger logger = LoggerFactory.getLogger(ErrorRules.class);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /** Rules bundled on the classpath. */
+    public static final String DEFAULT_RESOURCE = "error-rules.json";
+
+    private static volatile ErrorRules shared;
+
+    private final Path file;
+    private final long reloadIntervalNanos;
+    private volatile ErrorRuleSet current;
+    private volatile long lastModified;
+    private volatile long nextCheck;
+
+    /**
+     * @param file Rules file to load and watch, or null for the bundled rules
+     * @param reloadIntervalMillis Least time between checks of the file for changes
+     */
+    public ErrorRules(Path file, long reloadIntervalMillis) {
+        this.file = file;
+        this.reloadIntervalNanos = reloadIntervalMillis * 1_000_000L;
+        if (file == null) {
+            current = loadResource(DEFAULT_RESOURCE);
+        } else {
+            try {
+                lastModified = Files.getLastModifiedTime(file).toMillis();
+                current = ErrorRuleSet.compile(parse(Files.newInputStream(file)));
+                logger.info("📋 Loaded {} error rules from {}", current.rules().size(), file);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("📋 Cannot load error rules from {}, using bundled rules: {}", file, e.getMessage());
+                current = loadResource(DEFAULT_RESOURCE);
+            }
+        }
+        nextCheck = System.nanoTime() + reloadIntervalNanos;
+    }
+
+    /**
+     * @return The service-wide rules, created from configuration on first use
+     */
+    public static ErrorRules shared() {
+        ErrorRules rules = shared;
+        if (rules == null) {
+            synchronized (ErrorRules.class) {
+                rules = shared;
+                if (rules == null) {
+                    rules = fromConfig(ConfigFactory.load());
+                    shared = rules;
+                }
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Builds the rules from configuration. An empty {@code evidence.analysis.rules-file}
+     * selects the bundled rules.
+     */
+    public static ErrorRules fromConfig(Config config) {
+        String rulesFile = config.hasPath("evidence.analysis.rules-file")
+            ? config.getString("evidence.analysis.rules-file")
+            : "";
+        long reloadIntervalMillis = config.hasPath("evidence.analysis.rules-reload-interval")
+            ? config.getDuration("evidence.analysis.rules-reload-interval").toMillis()
+            : 5000L;
+        return new ErrorRules(rulesFile.isBlank() ? null : Path.of(rulesFile), reloadIntervalMillis);
+    }
+
+    /**
+     * @return The current rule set, reloading the rules file first if it changed
+     */
+    public ErrorRuleSet current() {
+        if (file != null && System.nanoTime() - nextCheck >= 0) {
+            reloadIfChanged();
+        }
+        return current;
+    }
+
+    private synchronized void reloadIfChanged() {
+        if (System.nanoTime() - nextCheck < 0) {
+            return;
+        }
+        nextCheck = System.nanoTime() + reloadIntervalNanos;
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (modified == lastModified) {
+                return;
+            }
+            lastModified = modified;
+            ErrorRuleSet reloaded = ErrorRuleSet.compile(parse(Files.newInputStream(file)));
+            current = reloaded;
+            logger.info("📋 Reloaded {} error rules from {}", reloaded.rules().size(), file);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("📋 Keeping previous error rules, cannot reload {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a JSON array of rules and closes the stream.
+     */
+    public static List<ErrorRule> parse(InputStream in) throws IOException {
+        try (in) {
+            List<ErrorRule> rules = mapper.readValue(in, new TypeReference<List<ErrorRule>>() {});
+            return rules == null ? List.of() : rules;
+        }
+    }
+
+    private static ErrorRuleSet loadResource(String resource) {
+        InputStream in = ErrorRules.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            logger.warn("📋 No {} on the classpath, analyzing without error rules", resource);
+            return ErrorRuleSet.compile(List.of());
+        }
+        try {
+            return ErrorRuleSet.compile(parse(in));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("📋 Cannot load bundled error rules: {}", e.getMessage());
+            return ErrorRuleSet.compile(List.of());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pradeepl.evidence.util;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Settings for the most frequent error templates reported by log analysis, configured under
+ * {@code evidence.analysis.error-templates} in application.conf.
+ *
+ * @param topK Number of templates reported
+ * @param epsilon Relative error bound of approximate counts, as a fraction of all error lines
+ * @param delta Probability that an approximate count exceeds the error bound
+ */
+public record HeavyHitterSettings(int topK, double epsilon, double delta) {
+
+    public static final HeavyHitterSettings DEFAULT = new HeavyHitterSettings(20, 0.001, 0.01);
+
+    private static volatile HeavyHitterSettings shared;
+
+    public HeavyHitterSettings {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be positive: " + topK);
+        }
+        if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("epsilon and delta must be between 0 and 1");
+        }
+    }
+
+    /**
+     * @return The service-wide settings, read from configuration on first use
+     */
+    public static HeavyHitterSettings shared() {
+        HeavyHitterSettings settings = shared;
+        if (settings == null) {
+            synchronized (HeavyHitterSettings.class) {
+                settings = shared;
+                if (settings == null) {
+                    settings = fromConfig(ConfigFactory.load());
+                    shared = settings;
+                }
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Reads the settings, using the defaults for missing values.
+     */
+    public static HeavyHitterSettings fromConfig(Config config) {
+        String path = "evidence.analysis.error-templates.";
+        return new HeavyHitterSettings(
+            config.hasPath(path + "top-k") ? config.getInt(path + "top-k") : DEFAULT.topK(),
+            config.hasPath(path + "epsilon") ? config.getDouble(path + "epsilon") : DEFAULT.epsilon(),
+            config.hasPath(path + "delta") ? config.getDouble(path + "delta") : DEFAULT.delta());
+    }
+}
@@ -0,0 +1,194 @@
+package com.pradeepl.evidence.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Aho-Corasick automaton that finds any number of ASCII keywords, case-insensitively, in a
+ * single left-to-right pass.
+ *
+ * The automaton is compiled into a dense transition table, so each input character costs one
+ * array lookup and callers can drive it character by character from any source (String,
+ * CharSequence or bytes) without allocating:
+ *
+ * <pre>
+ * int state = KeywordMatcher.START;
+ * for (int i = 0; i &lt; line.length(); i++) {
+ *     state = matcher.next(state, line.charAt(i));
+ *     int found = matcher.matches(state);  // bit i set: keyword i ends here
+ * }
+ * </pre>
+ *
+ * The first 31 keywords are reported as bits of {@link #matches}; later keywords all set the
+ * {@link #MORE} bit and are listed by {@link #outputs}.
+ */
+public final class KeywordMatcher {
+
+    /** State to start each scan from. */
+    public static final int START = 0;
+
+    /** Bit of {@link #matches} set when a keyword with index 31 or above ends in a state. */
+    public static final int MORE = 1 << 31;
+
+    private static final int ALPHABET = 128;
+    private static final int[] NONE = new int[0];
+
+    private final String[] keywords;
+    /** transitions[state * ALPHABET + c] = next state. */
+    private final int[] transitions;
+    /** Bitmask of the keywords ending in each state, including those ending in suffixes. */
+    private final int[] outputs;
+    /** Indexes of the keywords ending in each state, ascending. */
+    private final int[][] outputLists;
+
+    /**
+     * @param keywords Keywords to find; keyword {@code i} is reported as bit {@code i} (for
+     *        {@code i < 31}) and in {@link #outputs}
+     */
+    public KeywordMatcher(String... keywords) {
+        this.keywords = new String[keywords.length];
+
+        // Build the trie
+        int maxStates = 1;
+        for (String keyword : keywords) {
+            maxStates += keyword.length();
+        }
+        int[] trie = new int[maxStates * ALPHABET];
+        Arrays.fill(trie, -1);
+        int[] output = new int[maxStates];
+        int[][] outputList = new int[maxStates][];
+        Arrays.fill(outputList, NONE);
+        int states = 1;
+        for (int k = 0; k < keywords.length; k++) {
+            String keyword = keywords[k].toLowerCase(Locale.ROOT);
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords must not be empty");
+            }
+            this.keywords[k] = keyword;
+            int state = START;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException("Keywords must be ASCII: " + keywords[k]);
+                }
+                int slot = state * ALPHABET + c;
+                if (trie[slot] < 0) {
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            output[state] |= k < Integer.SIZE - 1 ? 1 << k : MORE;
+            outputList[state] = union(outputList[state], new int[] {k});
+        }
+
+        // Breadth-first pass: resolve failure links into direct transitions
+        int[] transitions = new int[states * ALPHABET];
+        int[] failure = new int[states];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int child = trie[c];
+            if (child > 0) {
+                transitions[c] = child;
+                failure[child] = START;
+                queue.add(child);
+            } else {
+                transitions[c] = START;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            output[state] |= output[failure[state]];
+            outputList[state] = union(outputList[state], outputList[failure[state]]);
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = trie[state * ALPHABET + c];
+                int fallback = transitions[failure[state] * ALPHABET + c];
+                if (child > 0) {
+                    transitions[state * ALPHABET + c] = child;
+                    failure[child] = fallback;
+                    queue.add(child);
+                } else {
+                    transitions[state * ALPHABET + c] = fallback;
+                }
+            }
+        }
+
+        // Upper-case letters behave like their lower-case forms
+        for (int state = 0; state < states; state++) {
+            for (int c = 'A'; c <= 'Z'; c++) {
+                transitions[state * ALPHABET + c] = transitions[state * ALPHABET + c + ('a' - 'A')];
+            }
+        }
+
+        this.transitions = transitions;
+        this.outputs = Arrays.copyOf(output, states);
+        this.outputLists = Arrays.copyOf(outputList, states);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        return IntStream.concat(Arrays.stream(a), Arrays.stream(b)).distinct().sorted().toArray();
+    }
+
+    /**
+     * Advances the automaton by one character. Characters outside ASCII never match.
+     */
+    public int next(int state, int c) {
+        return c < ALPHABET && c >= 0 ? transitions[state * ALPHABET + c] : START;
+    }
+
+    /**
+     * @return Bitmask of the keywords that end at the character that led to {@code state}
+     */
+    public int matches(int state) {
+        return outputs[state];
+    }
+
+    /**
+     * @return Indexes of all keywords that end at the character that led to {@code state},
+     *         ascending; the array must not be modified
+     */
+    public int[] outputs(int state) {
+        return outputLists[state];
+    }
+
+    /**
+     * @return Bitmask of the keywords occurring anywhere in {@code text}
+     */
+    public int find(CharSequence text) {
+        int state = START;
+        int found = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            found |= outputs[state];
+        }
+        return found;
+    }
+
+    /**
+     * @return Number of keywords
+     */
+    public int size() {
+        return keywords.length;
+    }
+
+    /**
+     * @return Length of keyword {@code index}
+     */
+    public int length(int index) {
+        return keywords[index].length();
+    }
+
+    /**
+     * @return Keyword {@code index}, in lower case
+     */
+    public String keyword(int index) {
+        return keywords[index];
+    }
+}
@@ -0,0 +1,658 @@
+package com.pradeepl.evidence.util;
+
+import com.pradeepl.evidence.logs.LogTimestamps;
+import com.pradeepl.evidence.util.EvidenceAnalyzer.LogAnalysis;
+import com.pradeepl.evidence.util.LogTemplateMiner.TemplateCount;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Accumulates {@link LogAnalysis} results line by line into primitive fields.
+ *
+ * Lines are scanned in place from a {@code byte[]}, {@link ByteBuffer} or {@link CharSequence}
+ * view: no line Strings, matchers or pattern names are created while scanning. The only
+ * allocations are copies of the error lines entering the sample, templates of error lines not
+ * seen before and the result objects built by {@link #toAnalysis()}. The garbage produced per
+ * analyzed MB is therefore bounded.
+ *
+ * {@link ErrorLineSampler} spreads the sampled error lines over templates and time, and
+ * {@link LogTemplateMiner} derives the templates. The most frequent templates are kept in
+ * bounded memory however many distinct ones occur; {@link HeavyHitterSettings} sets how many
+ * are reported and their error bounds. Lines are also classified by the team's
+ * {@link ErrorRules}, matched in the same pass as the built-in keywords. An accumulator can be
+ * {@link #reset()} and reused.
+ */
+public final class LogAnalysisAccumulator {
+
+    /** Most error lines returned as samples, each of a different template. */
+    public static final int MAX_SAMPLE_LINES = 5;
+
+    /**
+     * Keywords for log analysis and the words that introduce an HTTP status code. They are
+     * matched in one pass, together with the terms of the error rules, by the automaton of the
+     * {@link ErrorRuleSet}, where they keep these indexes.
+     */
+    static final String[] KEYWORDS = {
+        "error", "exception", "failed", "timeout", "refused",
+        "status", "code", "http", "returned", "returning", "responded", "upstream", "->", "=>"};
+    private static final int KW_HTTP = 1 << 7;
+    /** error, exception, failed, timeout, refused. */
+    private static final int ERROR_KEYWORDS = 0b11111;
+    /** Words and arrows after which a number is a status code; words must start a word. */
+    private static final int STATUS_CUES = 0b111111111 << 5;
+    private static final int STATUS_ARROWS = 0b11 << 12;
+
+    /** Per-second counts are kept for the most recent hour of the analyzed lines. */
+    static final int MAX_SECONDS = 3600;
+
+    /** Per-minute counts are kept for the most recent day of the analyzed lines. */
+    static final int MAX_MINUTES = 1440;
+
+    /** Windows up to this many seconds are returned as a per-second series, longer ones per minute. */
+    static final int MAX_SECOND_SERIES = 600;
+
+    private static final DateTimeFormatter BURST_TIME =
+        DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    /** Chunk size for {@link #analyzeParallel}; smaller inputs are not worth splitting. */
+    public static final int PARALLEL_CHUNK_CHARS = 256 * 1024;
+
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+    /** Statuses from here on are reported as error patterns. */
+    private static final int MIN_ERROR_STATUS = 400;
+    /** First slot of {@link #patternOrder} for the error rules. */
+    private static final int RULE_PATTERNS = MAX_STATUS + 1;
+
+    // Phases of status code extraction within a line
+    private static final int STATUS_NONE = 0;
+    private static final int STATUS_SEPARATOR = 1;
+    private static final int STATUS_VERSION = 2;
+    private static final int STATUS_DIGITS = 3;
+
+    /** Error rules, compiled with the keywords into one matcher. */
+    private final ErrorRuleSet rules;
+    private final KeywordMatcher matcher;
+    private final int ruleTerms;
+    private final ErrorRuleSet.Scan ruleScan;
+
+    private int lineCount;
+    /** Empty lines not yet counted; split("\n") drops them when nothing follows. */
+    private int pendingEmptyLines;
+    private int errorCount;
+    /** Histogram of status codes, indexed by code. */
+    private final int[] statusCounts = new int[MAX_STATUS + 1];
+    /** Lines matched by each error rule. */
+    private final int[] ruleCounts;
+    /** Order in which each pattern was first seen (0 = not seen), indexed by status code, then by rule. */
+    private final int[] patternOrder;
+    private int patternsSeen;
+    /** Error lines sampled across templates and time. */
+    private final ErrorLineSampler samples = new ErrorLineSampler();
+    /** Templates of the error lines, created with the first error line. */
+    private LogTemplateMiner errorTemplates;
+    private final HeavyHitterSettings heavyHitters = HeavyHitterSettings.shared();
+    /** Lines and errors over time, by the lines' leading timestamps. */
+    private final ErrorRateSeries perSecond = new ErrorRateSeries(1000, MAX_SECONDS);
+    private final ErrorRateSeries perMinute = new ErrorRateSeries(60_000, MAX_MINUTES);
+    /** Copy of the start of a char or direct buffer line, for timestamp parsing. */
+    private final byte[] timestampPrefix = new byte[32];
+
+    // Scan state of the line being analyzed
+    private int lineFound;
+    private int status;
+    private int statusPhase;
+    private boolean afterHttp;
+    private int statusValue;
+    private int statusDigits;
+    private int wordStart;
+    private int previous;
+
+    /**
+     * Creates an accumulator with the service-wide error rules.
+     */
+    public LogAnalysisAccumulator() {
+        this(ErrorRules.shared().current());
+    }
+
+    /**
+     * Creates an accumulator with the given error rules.
+     */
+    public LogAnalysisAccumulator(ErrorRuleSet rules) {
+        this.rules = rules;
+        this.matcher = rules.matcher();
+        this.ruleTerms = rules.termBits();
+        this.ruleScan = rules.new Scan();
+        this.ruleCounts = new int[rules.rules().size()];
+        this.patternOrder = new int[RULE_PATTERNS + ruleCounts.length];
+    }
+
+    /**
+     * @return The error rules this accumulator applies
+     */
+    public ErrorRuleSet rules() {
+        return rules;
+    }
+
+    /**
+     * Clears all counts so the accumulator can be reused.
+     */
+    public void reset() {
+        lineCount = 0;
+        pendingEmptyLines = 0;
+        errorCount = 0;
+        Arrays.fill(statusCounts, 0);
+        Arrays.fill(ruleCounts, 0);
+        Arrays.fill(patternOrder, 0);
+        patternsSeen = 0;
+        samples.reset();
+        if (errorTemplates != null) {
+            errorTemplates.reset();
+        }
+        perSecond.reset();
+        perMinute.reset();
+    }
+
+    /**
+     * Analyzes the newline-separated lines of {@code text}.
+     */
+    public LogAnalysisAccumulator accept(CharSequence text) {
+        return accept(text, 0, text.length());
+    }
+
+    /**
+     * Analyzes the newline-separated lines in text[from, to).
+     */
+    public LogAnalysisAccumulator accept(CharSequence text, int from, int to) {
+        int lineStart = from;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                acceptLine(text, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < to) {
+            acceptLine(text, lineStart, to);
+        }
+        return this;
+    }
+
+    /**
+     * Analyzes the newline-separated lines in buffer[from, to), read as UTF-8.
+     */
+    public LogAnalysisAccumulator accept(byte[] buffer, int from, int to) {
+        int lineStart = from;
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '\n') {
+                acceptLine(buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < to) {
+            acceptLine(buffer, lineStart, to);
+        }
+        return this;
+    }
+
+    /**
+     * Analyzes the remaining bytes of a buffer without changing its position.
+     */
+    public LogAnalysisAccumulator accept(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return accept(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+        }
+        int lineStart = buffer.position();
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                acceptLine(buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < buffer.limit()) {
+            acceptLine(buffer, lineStart, buffer.limit());
+        }
+        return this;
+    }
+
+    /**
+     * Analyzes one line, text[start, end), without its newline.
+     */
+    public void acceptLine(CharSequence text, int start, int end) {
+        if (!countLine(start, end)) {
+            return;
+        }
+        beginLine();
+        int state = KeywordMatcher.START;
+        for (int i = start; i < end; i++) {
+            state = step(state, text.charAt(i), i - start);
+        }
+        int prefix = Math.min(end - start, timestampPrefix.length);
+        for (int i = 0; i < prefix; i++) {
+            char c = text.charAt(start + i);
+            timestampPrefix[i] = c < 128 ? (byte) c : (byte) '?';
+        }
+        long timestamp = LogTimestamps.parse(timestampPrefix, 0, prefix);
+        if (countTime(timestamp, endLine())) {
+            int template = errorTemplates().add(text, start, end);
+            int priority = 0;
+            for (int i = start; i < end; i++) {
+                priority = hashStep(priority, text.charAt(i));
+            }
+            if (samples.wants(template, timestamp, priority, lineCount)) {
+                samples.add(template, timestamp, priority, lineCount, text.subSequence(start, end).toString().trim());
+            }
+        }
+    }
+
+    /**
+     * Analyzes one line, buffer[start, end), without its newline.
+     */
+    public void acceptLine(byte[] buffer, int start, int end) {
+        if (!countLine(start, end)) {
+            return;
+        }
+        beginLine();
+        int state = KeywordMatcher.START;
+        for (int i = start; i < end; i++) {
+            state = step(state, buffer[i], i - start);
+        }
+        long timestamp = LogTimestamps.parse(buffer, start, end);
+        if (countTime(timestamp, endLine())) {
+            int template = errorTemplates().add(buffer, start, end);
+            int priority = 0;
+            for (int i = start; i < end; i++) {
+                priority = hashStep(priority, buffer[i]);
+            }
+            if (samples.wants(template, timestamp, priority, lineCount)) {
+                samples.add(template, timestamp, priority, lineCount,
+                    new String(buffer, start, end - start, StandardCharsets.UTF_8).trim());
+            }
+        }
+    }
+
+    private void acceptLine(ByteBuffer buffer, int start, int end) {
+        if (!countLine(start, end)) {
+            return;
+        }
+        beginLine();
+        int state = KeywordMatcher.START;
+        for (int i = start; i < end; i++) {
+            state = step(state, buffer.get(i), i - start);
+        }
+        int prefix = Math.min(end - start, timestampPrefix.length);
+        buffer.get(start, timestampPrefix, 0, prefix);
+        long timestamp = LogTimestamps.parse(timestampPrefix, 0, prefix);
+        if (countTime(timestamp, endLine())) {
+            int template = errorTemplates().add(buffer, start, end);
+            int priority = 0;
+            for (int i = start; i < end; i++) {
+                priority = hashStep(priority, buffer.get(i));
+            }
+            if (samples.wants(template, timestamp, priority, lineCount)) {
+                byte[] line = new byte[end - start];
+                buffer.get(start, line);
+                samples.add(template, timestamp, priority, lineCount, new String(line, StandardCharsets.UTF_8).trim());
+            }
+        }
+    }
+
+    /**
+     * Counts a line the way {@code split("\n")} would.
+     *
+     * @return False for an empty line, which needs no further analysis
+     */
+    private boolean countLine(int start, int end) {
+        if (start == end) {
+            pendingEmptyLines++;
+            return false;
+        }
+        lineCount += pendingEmptyLines + 1;
+        pendingEmptyLines = 0;
+        return true;
+    }
+
+    private void beginLine() {
+        lineFound = 0;
+        ruleScan.beginLine();
+        status = -1;
+        statusPhase = STATUS_NONE;
+        wordStart = 0;
+        previous = -1;
+    }
+
+    /**
+     * Advances over one character (or byte) at position {@code i} of the current line.
+     */
+    private int step(int state, int c, int i) {
+        state = matcher.next(state, c);
+        int matches = matcher.matches(state);
+        if (matches != 0) {
+            lineFound |= matches;
+            if ((matches & ruleTerms) != 0) {
+                ruleScan.accept(state, i);
+            }
+        }
+        // First status code of the line, read only in a status position
+        if (status < 0) {
+            if (statusPhase != STATUS_NONE) {
+                scanStatus(c);
+            }
+            if ((matches & STATUS_CUES) != 0 && isStatusCue(matches & STATUS_CUES, i)) {
+                statusPhase = STATUS_SEPARATOR;
+                afterHttp = (matches & KW_HTTP) != 0;
+            }
+        }
+        if (isLetter(c) && (!isLetter(previous) || (c <= 'Z' && previous >= 'a'))) {
+            wordStart = i;
+        }
+        previous = c;
+        return state;
+    }
+
+    /**
+     * @return True if one of the status cues ending at {@code i} is an arrow or a whole word
+     *         start (so "decode 404" does not count as "code 404")
+     */
+    private boolean isStatusCue(int cues, int i) {
+        if ((cues & STATUS_ARROWS) != 0) {
+            return true;
+        }
+        for (int k = Integer.numberOfTrailingZeros(cues); k < Integer.SIZE; k++) {
+            if ((cues & (1 << k)) != 0 && wordStart == i + 1 - matcher.length(k)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advances status code extraction after a cue: separators ({@code = : "} and spaces), an
+     * optional HTTP version after "HTTP/", then exactly three digits ending the token.
+     */
+    private void scanStatus(int c) {
+        switch (statusPhase) {
+            case STATUS_SEPARATOR -> {
+                if (c == ' ' || c == '\t' || c == '=' || c == ':' || c == '"' || c == '\'') {
+                    return;
+                }
+                if (c == '/' && afterHttp) {
+                    statusPhase = STATUS_VERSION;
+                } else if (c >= '1' && c <= '5') {
+                    statusPhase = STATUS_DIGITS;
+                    statusValue = c - '0';
+                    statusDigits = 1;
+                } else {
+                    statusPhase = STATUS_NONE;
+                }
+            }
+            case STATUS_VERSION -> {
+                if (!isDigit(c) && c != '.') {
+                    statusPhase = c == ' ' ? STATUS_SEPARATOR : STATUS_NONE;
+                    afterHttp = false;
+                }
+            }
+            case STATUS_DIGITS -> {
+                if (isDigit(c) && statusDigits < 3) {
+                    statusValue = statusValue * 10 + (c - '0');
+                    statusDigits++;
+                    return;
+                }
+                if (statusDigits == 3 && !isDigit(c) && !isLetter(c) && c != '_') {
+                    status = statusValue;
+                }
+                statusPhase = STATUS_NONE;
+            }
+            default -> statusPhase = STATUS_NONE;
+        }
+    }
+
+    /**
+     * Records the current line's findings.
+     *
+     * @return True if the line counts as an error line
+     */
+    private boolean endLine() {
+        if (status < 0 && statusPhase == STATUS_DIGITS && statusDigits == 3) {
+            // Status code at the end of the line
+            status = statusValue;
+        }
+        if (status >= MIN_STATUS) {
+            statusCounts[status]++;
+            if (status >= MIN_ERROR_STATUS && patternOrder[status] == 0) {
+                patternOrder[status] = ++patternsSeen;
+            }
+        }
+        for (int m = 0; m < ruleScan.matchedCount(); m++) {
+            int rule = ruleScan.matchedRule(m);
+            ruleCounts[rule]++;
+            if (patternOrder[RULE_PATTERNS + rule] == 0) {
+                patternOrder[RULE_PATTERNS + rule] = ++patternsSeen;
+            }
+        }
+        if ((lineFound & ERROR_KEYWORDS) != 0) {
+            errorCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Counts the line in the time series if it has a timestamp.
+     *
+     * @return {@code error}, for chaining
+     */
+    private boolean countTime(long timestamp, boolean error) {
+        if (timestamp != LogTimestamps.NONE) {
+            perSecond.add(timestamp, error);
+            perMinute.add(timestamp, error);
+        }
+        return error;
+    }
+
+    private LogTemplateMiner errorTemplates() {
+        if (errorTemplates == null) {
+            errorTemplates = new LogTemplateMiner(Math.max(LogTemplateMiner.MAX_TEMPLATES, heavyHitters.topK()),
+                heavyHitters.epsilon(), heavyHitters.delta());
+        }
+        return errorTemplates;
+    }
+
+    /**
+     * Hashes the next character of a line for sampling. Non-ASCII characters are skipped so
+     * that String and UTF-8 input hash alike.
+     */
+    private static int hashStep(int hash, int c) {
+        return c >= 0 && c < 128 ? (hash ^ c) * 0x01000193 : hash;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * @return Number of lines analyzed, not counting trailing empty lines
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return Number of lines containing an error keyword
+     */
+    public int errorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return Number of lines whose first status code is {@code status}
+     */
+    public int statusCount(int status) {
+        return status >= MIN_STATUS && status <= MAX_STATUS ? statusCounts[status] : 0;
+    }
+
+    /**
+     * Folds in the results for input that directly follows this accumulator's input, as if
+     * both had been analyzed by one accumulator in order. Merging is associative, so partial
+     * results of adjacent chunks can be combined in any grouping.
+     *
+     * @param next Accumulator for the input after this one, with the same rules; left unchanged
+     * @return This accumulator
+     */
+    public LogAnalysisAccumulator merge(LogAnalysisAccumulator next) {
+        if (next.rules != rules) {
+            throw new IllegalArgumentException("Cannot merge analyses made with different error rules");
+        }
+        samples.merge(next.samples, lineCount + pendingEmptyLines);
+        if (next.lineCount > 0) {
+            lineCount += pendingEmptyLines + next.lineCount;
+            pendingEmptyLines = next.pendingEmptyLines;
+        } else {
+            pendingEmptyLines += next.pendingEmptyLines;
+        }
+        errorCount += next.errorCount;
+        for (int code = MIN_STATUS; code <= MAX_STATUS; code++) {
+            statusCounts[code] += next.statusCounts[code];
+        }
+        for (int rule = 0; rule < ruleCounts.length; rule++) {
+            ruleCounts[rule] += next.ruleCounts[rule];
+        }
+
+        // Patterns first seen in the later input come after all of ours, in their own order
+        int[] slotsByOrder = new int[next.patternsSeen];
+        for (int slot = MIN_ERROR_STATUS; slot < patternOrder.length; slot++) {
+            if (next.patternOrder[slot] != 0) {
+                slotsByOrder[next.patternOrder[slot] - 1] = slot;
+            }
+        }
+        for (int slot : slotsByOrder) {
+            if (patternOrder[slot] == 0) {
+                patternOrder[slot] = ++patternsSeen;
+            }
+        }
+
+        if (next.errorTemplates != null) {
+            errorTemplates().merge(next.errorTemplates);
+        }
+        perSecond.merge(next.perSecond);
+        perMinute.merge(next.perMinute);
+        return this;
+    }
+
+    /**
+     * Analyzes text[from, to) on the common {@link ForkJoinPool}: the input is cut into
+     * newline-aligned chunks of about {@link #PARALLEL_CHUNK_CHARS}, each analyzed into its own
+     * accumulator, and the partial results are merged in input order.
+     */
+    public static LogAnalysisAccumulator analyzeParallel(CharSequence text, int from, int to) {
+        return ForkJoinPool.commonPool().invoke(new ChunkTask(ErrorRules.shared().current(), text, from, to));
+    }
+
+    /**
+     * Recursively halves a range at a line boundary until chunks are small enough to analyze
+     * sequentially.
+     */
+    private static final class ChunkTask extends RecursiveTask<LogAnalysisAccumulator> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ErrorRuleSet rules;
+        private final transient CharSequence text;
+        private final int from;
+        private final int to;
+
+        ChunkTask(ErrorRuleSet rules, CharSequence text, int from, int to) {
+            this.rules = rules;
+            this.text = text;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LogAnalysisAccumulator compute() {
+            if (to - from <= PARALLEL_CHUNK_CHARS) {
+                return new LogAnalysisAccumulator(rules).accept(text, from, to);
+            }
+            int split = from + (to - from) / 2;
+            while (split < to && text.charAt(split - 1) != '\n') {
+                split++;
+            }
+            if (split >= to) {
+                return new LogAnalysisAccumulator(rules).accept(text, from, to);
+            }
+            ChunkTask later = new ChunkTask(rules, text, split, to);
+            later.fork();
+            LogAnalysisAccumulator earlier = new ChunkTask(rules, text, from, split).compute();
+            return earlier.merge(later.join());
+        }
+    }
+
+    /**
+     * Builds the analysis result, including anomaly detection over the accumulated counts.
+     */
+    public LogAnalysis toAnalysis() {
+        String[] patterns = new String[patternsSeen];
+        Map<String, Integer> statusCodeCounts = new HashMap<>();
+        for (int status = MIN_ERROR_STATUS; status <= MAX_STATUS; status++) {
+            if (patternOrder[status] != 0) {
+                String code = Integer.toString(status);
+                patterns[patternOrder[status] - 1] = "HTTP " + code + " errors";
+                statusCodeCounts.put(code, statusCounts[status]);
+            }
+        }
+        ErrorRuleSet.RuleMatch[] ruleMatches = new ErrorRuleSet.RuleMatch[patternsSeen];
+        for (int rule = 0; rule < ruleCounts.length; rule++) {
+            int order = patternOrder[RULE_PATTERNS + rule];
+            if (order != 0) {
+                ErrorRule errorRule = rules.rules().get(rule);
+                patterns[order - 1] = errorRule.name();
+                ruleMatches[order - 1] = new ErrorRuleSet.RuleMatch(
+                    errorRule.name(), errorRule.category(), errorRule.severity(), ruleCounts[rule]);
+            }
+        }
+        List<ErrorRuleSet.RuleMatch> matchedRules = new ArrayList<>();
+        for (ErrorRuleSet.RuleMatch match : ruleMatches) {
+            if (match != null) {
+                matchedRules.add(match);
+            }
+        }
+
+        List<String> anomalies = new ArrayList<>();
+        if (errorCount > lineCount * 0.1) {
+            anomalies.add(String.format("High error rate (%d errors in %d lines = %.1f%%)",
+                errorCount, lineCount, (errorCount * 100.0 / lineCount)));
+        }
+
+        // Bursts are found per second over the most recent hour
+        List<ErrorRateSeries.Burst> bursts = perSecond.detectBursts();
+        for (ErrorRateSeries.Burst burst : bursts) {
+            anomalies.add(String.format("Error burst at %s-%s (%d errors, peak %d/s vs baseline %.1f/s)",
+                BURST_TIME.format(Instant.parse(burst.start())), BURST_TIME.format(Instant.parse(burst.end())),
+                burst.errors(), burst.peakRate(), burst.baselineRate()));
+        }
+        ErrorRateSeries.Series series = perSecond.span() <= MAX_SECOND_SERIES && !perSecond.isTruncated()
+            ? perSecond.toSeries("1s")
+            : perMinute.toSeries("1m");
+
+        List<TemplateCount> templates = errorTemplates == null
+            ? new ArrayList<>()
+            : errorTemplates.top(heavyHitters.topK());
+        return new LogAnalysis(errorCount, new ArrayList<>(List.of(patterns)), statusCodeCounts, anomalies,
+            samples.sample(MAX_SAMPLE_LINES),
+            templates, series, bursts, matchedRules);
+    }
+}
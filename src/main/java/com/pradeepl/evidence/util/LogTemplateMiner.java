@@ -0,0 +1,502 @@
+package com.pradeepl.evidence.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Online log template mining: collapses log lines that differ only in variable tokens into
+ * templates with counts.
+ *
+ * Lines are split on whitespace and leading timestamp tokens are dropped. Tokens carrying
+ * variable data (anything containing a digit, such as IDs, numbers, durations, request IDs
+ * and IP addresses, and non-ASCII tokens) become {@code <*>}; for {@code key=value} tokens only
+ * the value is replaced. So "Payment gateway timeout after 30s" and "... after 45s" share
+ * the template "Payment gateway timeout after &lt;*&gt;".
+ *
+ * Unlike Drain's similarity clustering, a template depends only on its own line, never on the
+ * order lines arrive in. Miners for adjacent chunks can therefore be {@link #merge merged}
+ * into the result of mining both chunks in sequence.
+ *
+ * Memory is bounded by a fixed number of tracked templates. Counts are exact until more
+ * distinct templates than that are seen; from then on the miner keeps the heavy hitters in
+ * the manner of Space-Saving over a {@link CountMinSketch}: every line is counted in the
+ * sketch, and an untracked template replaces the least frequent tracked one once its
+ * estimated count exceeds that template's. Counts are then sketch estimates, reported with
+ * their error bound. Matching a line against a tracked template does not allocate.
+ */
+public final class LogTemplateMiner {
+
+    /** Default number of templates tracked. */
+    public static final int MAX_TEMPLATES = 128;
+
+    /** Placeholder for a variable token. */
+    public static final String WILDCARD = "<*>";
+
+    /** Tokens beyond this are not part of the template. */
+    private static final int MAX_TOKENS = 48;
+    private static final int MAX_LINE_CHARS = 4096;
+    private static final int WILDCARD_HASH = 0x5bd1e995;
+
+    /**
+     * A template and the number of lines it matched.
+     *
+     * @param maxOvercount How far {@code count} may exceed the true count (with probability
+     *        {@code 1 - delta}); 0 while counts are exact
+     */
+    public record TemplateCount(String template, int count, int maxOvercount) {
+        public TemplateCount(String template, int count) {
+            this(template, count, 0);
+        }
+    }
+
+    private final int capacity;
+    private final double epsilon;
+    private final double delta;
+    private final String[][] templates;
+    private final int[] counts;
+    private final int[] hashes;
+    private final long[] firstSeen;
+    private int size;
+    private long sequence;
+    /** Open-addressing table of template index + 1, 0 marks an empty slot. */
+    private final int[] table;
+    /** Counts of all templates, created once more templates are seen than can be tracked. */
+    private CountMinSketch sketch;
+
+    // Scratch space for the line being mined
+    private char[] line = new char[256];
+    private final int[] tokenStarts = new int[MAX_TOKENS];
+    private final int[] tokenEnds = new int[MAX_TOKENS];
+    /** -1 if the whole token is variable, 0 if it is literal, otherwise the length of its "key=" prefix. */
+    private final int[] tokenKinds = new int[MAX_TOKENS];
+    private int tokenCount;
+
+    /**
+     * Tracks up to {@link #MAX_TEMPLATES} templates with the default error bounds.
+     */
+    public LogTemplateMiner() {
+        this(MAX_TEMPLATES, HeavyHitterSettings.DEFAULT.epsilon(), HeavyHitterSettings.DEFAULT.delta());
+    }
+
+    /**
+     * @param capacity Number of templates tracked
+     * @param epsilon Error bound of approximate counts, as a fraction of all mined lines
+     * @param delta Probability that an approximate count exceeds the error bound
+     */
+    public LogTemplateMiner(int capacity, double epsilon, double delta) {
+        this.capacity = capacity;
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.templates = new String[capacity][];
+        this.counts = new int[capacity];
+        this.hashes = new int[capacity];
+        this.firstSeen = new long[capacity];
+        this.table = new int[Integer.highestOneBit(capacity * 4 - 1) << 1];
+    }
+
+    /**
+     * Mines one line, text[start, end).
+     *
+     * @return Hash identifying the line's template, 0 for a line without tokens
+     */
+    public int add(CharSequence text, int start, int end) {
+        int length = ensureLine(end - start);
+        for (int i = 0; i < length; i++) {
+            line[i] = text.charAt(start + i);
+        }
+        return addLine(length);
+    }
+
+    /**
+     * Mines one line, buffer[start, end), read as UTF-8.
+     *
+     * @return Hash identifying the line's template, 0 for a line without tokens
+     */
+    public int add(byte[] buffer, int start, int end) {
+        int length = ensureLine(end - start);
+        for (int i = 0; i < length; i++) {
+            line[i] = asChar(buffer[start + i]);
+        }
+        return addLine(length);
+    }
+
+    /**
+     * Mines one line, buffer[start, end) at absolute positions, read as UTF-8.
+     *
+     * @return Hash identifying the line's template, 0 for a line without tokens
+     */
+    public int add(ByteBuffer buffer, int start, int end) {
+        int length = ensureLine(end - start);
+        for (int i = 0; i < length; i++) {
+            line[i] = asChar(buffer.get(start + i));
+        }
+        return addLine(length);
+    }
+
+    private static char asChar(byte b) {
+        // Non-ASCII bytes only need to mark their token as variable
+        return b >= 0 ? (char) b : '\u0080';
+    }
+
+    /**
+     * Grows the scratch line for a line of {@code length} chars.
+     *
+     * @return Number of chars of the line that are mined
+     */
+    private int ensureLine(int length) {
+        length = Math.min(length, MAX_LINE_CHARS);
+        if (length > line.length) {
+            line = new char[Math.max(length, Math.min(MAX_LINE_CHARS, line.length * 2))];
+        }
+        return length;
+    }
+
+    /**
+     * Adds the templates of another miner with the same error bounds, as if its lines had
+     * been mined after this one's.
+     */
+    public void merge(LogTemplateMiner other) {
+        Integer[] order = other.indexesByFirstSeen();
+        if (other.sketch == null) {
+            for (int index : order) {
+                add(other.templates[index], other.hashes[index], other.counts[index]);
+            }
+            return;
+        }
+
+        // The other sketch holds all of its counts: fold it in, then offer its tracked templates
+        createSketch();
+        sketch.merge(other.sketch);
+        for (int i = 0; i < size; i++) {
+            counts[i] = sketch.estimate(hashes[i]);
+        }
+        for (int index : order) {
+            int hash = other.hashes[index];
+            int tracked = find(other.templates[index], hash);
+            if (tracked < 0) {
+                offer(other.templates[index], hash, sketch.estimate(hash));
+            }
+        }
+    }
+
+    /**
+     * @return Number of distinct templates currently tracked
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return True once counts are sketch estimates rather than exact counts
+     */
+    public boolean isApproximate() {
+        return sketch != null;
+    }
+
+    /**
+     * @return The {@code limit} most frequent templates, most frequent first; ties keep the
+     *         order in which the templates were first seen
+     */
+    public List<TemplateCount> top(int limit) {
+        Integer[] order = indexesByFirstSeen();
+        Arrays.sort(order, (a, b) -> Integer.compare(counts[b], counts[a]));
+        int maxOvercount = sketch != null ? sketch.maxOvercount() : 0;
+        List<TemplateCount> result = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < order.length && i < limit; i++) {
+            result.add(new TemplateCount(String.join(" ", templates[order[i]]), counts[order[i]], maxOvercount));
+        }
+        return result;
+    }
+
+    /**
+     * Clears all templates.
+     */
+    public void reset() {
+        Arrays.fill(templates, null);
+        Arrays.fill(table, 0);
+        size = 0;
+        sequence = 0;
+        sketch = null;
+    }
+
+    private Integer[] indexesByFirstSeen() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(firstSeen[a], firstSeen[b]));
+        return order;
+    }
+
+    private int addLine(int length) {
+        tokenize(length);
+        if (tokenCount == 0) {
+            return 0;
+        }
+
+        int hash = tokenCount;
+        for (int t = 0; t < tokenCount; t++) {
+            hash = 31 * hash + tokenHash(t);
+        }
+
+        int index = -1;
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int candidate = table[slot] - 1;
+            if (hashes[candidate] == hash && matches(templates[candidate])) {
+                index = candidate;
+                break;
+            }
+        }
+        if (sketch == null) {
+            if (index >= 0) {
+                counts[index]++;
+                return hash;
+            }
+            if (size < capacity) {
+                insert(buildTemplate(), hash, 1);
+                return hash;
+            }
+            createSketch();
+        }
+
+        sketch.add(hash, 1);
+        int estimate = sketch.estimate(hash);
+        if (index >= 0) {
+            counts[index] = estimate;
+        } else if (size < capacity || estimate > counts[minIndex()]) {
+            // Only a template that displaces a tracked one is built
+            offer(buildTemplate(), hash, estimate);
+        }
+        return hash;
+    }
+
+    private void add(String[] template, int hash, int count) {
+        int index = find(template, hash);
+        if (sketch == null) {
+            if (index >= 0) {
+                counts[index] += count;
+                return;
+            }
+            if (size < capacity) {
+                insert(template, hash, count);
+                return;
+            }
+            createSketch();
+        }
+
+        sketch.add(hash, count);
+        int estimate = sketch.estimate(hash);
+        if (index >= 0) {
+            counts[index] = estimate;
+        } else {
+            offer(template, hash, estimate);
+        }
+    }
+
+    private int find(String[] template, int hash) {
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (hashes[index] == hash && Arrays.equals(templates[index], template)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Switches to approximate counting, seeding the sketch with the exact counts so far.
+     */
+    private void createSketch() {
+        if (sketch == null) {
+            sketch = new CountMinSketch(epsilon, delta);
+            for (int i = 0; i < size; i++) {
+                sketch.add(hashes[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Tracks an untracked template if there is room, or in place of the least frequent tracked
+     * template if its estimated count is higher.
+     */
+    private void offer(String[] template, int hash, int estimate) {
+        if (size < capacity) {
+            insert(template, hash, estimate);
+            return;
+        }
+        int min = minIndex();
+        if (estimate > counts[min]) {
+            templates[min] = template;
+            hashes[min] = hash;
+            counts[min] = estimate;
+            firstSeen[min] = sequence++;
+            rebuildTable();
+        }
+    }
+
+    private int minIndex() {
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        return min;
+    }
+
+    private void insert(String[] template, int hash, int count) {
+        int index = size++;
+        templates[index] = template;
+        hashes[index] = hash;
+        counts[index] = count;
+        firstSeen[index] = sequence++;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    /**
+     * Rebuilds the lookup table after a template was replaced in place.
+     */
+    private void rebuildTable() {
+        int mask = table.length - 1;
+        Arrays.fill(table, 0);
+        for (int i = 0; i < size; i++) {
+            int slot = hashes[i] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Splits the scratch line into tokens, skipping a leading timestamp.
+     */
+    private void tokenize(int length) {
+        tokenCount = 0;
+        boolean leading = true;
+        int i = 0;
+        while (i < length && tokenCount < MAX_TOKENS) {
+            while (i < length && isSpace(line[i])) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            int start = i;
+            boolean digit = false;
+            boolean timestampChars = true;
+            boolean nonAscii = false;
+            int equals = -1;
+            for (; i < length && !isSpace(line[i]); i++) {
+                char c = line[i];
+                if (c >= '0' && c <= '9') {
+                    digit = true;
+                } else if (c != '-' && c != ':' && c != '.' && c != 'T' && c != 'Z' && c != '+' && c != ',') {
+                    timestampChars = false;
+                }
+                if (c >= 0x80) {
+                    nonAscii = true;
+                }
+                if (c == '=' && equals < 0) {
+                    equals = i;
+                }
+            }
+            if (leading && digit && timestampChars) {
+                continue;
+            }
+            leading = false;
+
+            int kind = 0;
+            if (digit || nonAscii) {
+                kind = -1;
+                if (equals > start && !hasDigitOrNonAscii(start, equals)) {
+                    kind = equals + 1 - start;
+                }
+            }
+            tokenStarts[tokenCount] = start;
+            tokenEnds[tokenCount] = i;
+            tokenKinds[tokenCount] = kind;
+            tokenCount++;
+        }
+    }
+
+    private boolean hasDigitOrNonAscii(int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = line[i];
+            if ((c >= '0' && c <= '9') || c >= 0x80) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int tokenHash(int t) {
+        int kind = tokenKinds[t];
+        if (kind < 0) {
+            return WILDCARD_HASH;
+        }
+        int end = kind > 0 ? tokenStarts[t] + kind : tokenEnds[t];
+        int hash = 0;
+        for (int i = tokenStarts[t]; i < end; i++) {
+            hash = 31 * hash + line[i];
+        }
+        return kind > 0 ? hash ^ WILDCARD_HASH : hash;
+    }
+
+    private boolean matches(String[] template) {
+        if (template.length != tokenCount) {
+            return false;
+        }
+        for (int t = 0; t < tokenCount; t++) {
+            String expected = template[t];
+            int kind = tokenKinds[t];
+            if (kind < 0) {
+                if (!WILDCARD.equals(expected)) {
+                    return false;
+                }
+                continue;
+            }
+            int start = tokenStarts[t];
+            int literal = kind > 0 ? kind : tokenEnds[t] - start;
+            int expectedLength = kind > 0 ? literal + WILDCARD.length() : literal;
+            if (expected.length() != expectedLength || (kind > 0 && !expected.endsWith(WILDCARD))) {
+                return false;
+            }
+            for (int i = 0; i < literal; i++) {
+                if (expected.charAt(i) != line[start + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String[] buildTemplate() {
+        String[] template = new String[tokenCount];
+        for (int t = 0; t < tokenCount; t++) {
+            int kind = tokenKinds[t];
+            int start = tokenStarts[t];
+            if (kind < 0) {
+                template[t] = WILDCARD;
+            } else if (kind > 0) {
+                template[t] = new String(line, start, kind) + WILDCARD;
+            } else {
+                template[t] = new String(line, start, tokenEnds[t] - start);
+            }
+        }
+        return template;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+}
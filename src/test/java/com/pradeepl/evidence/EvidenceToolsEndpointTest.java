@@ -2,6 +2,7 @@ package com.pradeepl.evidence;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pradeepl.evidence.logs.LogTimestamps;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -88,6 +89,176 @@ public class EvidenceToolsEndpointTest {
         assertThat(response.get("error").asText()).contains("No log file found for service: non-existent-service");
     }
 
+    @Test
+    @DisplayName("[LOGS] Should page backwards through logs with cursors")
+    public void testLogPagination() throws Exception {
+        JsonNode firstPage = mapper.readTree(endpoint.fetchLogs("payment-service", 10));
+
+        System.out.println("=== LOG PAGINATION ===");
+        System.out.println(firstPage);
+        System.out.println();
+
+        assertThat(firstPage.get("linesReturned").asInt()).isEqualTo(10);
+        assertThat(firstPage.get("olderCursor").isNull()).isFalse();
+        assertThat(firstPage.has("newerCursor")).isTrue();
+
+        JsonNode olderPage = mapper.readTree(
+            endpoint.fetchLogs("payment-service", 10, firstPage.get("olderCursor").asText(), null, null, null));
+        assertThat(olderPage.get("linesReturned").asInt()).isEqualTo(10);
+        assertThat(olderPage.get("logs").asText()).isNotEqualTo(firstPage.get("logs").asText());
+
+        // Nothing has been appended since the first page
+        JsonNode newerPage = mapper.readTree(
+            endpoint.fetchLogs("payment-service", 10, firstPage.get("newerCursor").asText(), null, null, null));
+        assertThat(newerPage.get("linesReturned").asInt()).isZero();
+    }
+
+    @Test
+    @DisplayName("[LOGS] Should reject malformed cursors")
+    public void testInvalidCursor() throws Exception {
+        JsonNode response = mapper.readTree(endpoint.fetchLogs("payment-service", 10, "not-a-cursor", null, null, null));
+
+        assertThat(response.has("error")).isTrue();
+        assertThat(response.get("error").asText()).contains("Invalid cursor");
+    }
+
+    @Test
+    @DisplayName("[LOGS] Should restrict logs to a since/until time window")
+    public void testTimeWindow() throws Exception {
+        String result = endpoint.fetchLogs("payment-service", 200, null, "14:29Z", "14:29:30Z", null);
+
+        System.out.println("=== LOG TIME WINDOW ===");
+        System.out.println(result);
+        System.out.println();
+
+        JsonNode response = mapper.readTree(result);
+        String logs = response.get("logs").asText();
+
+        assertThat(response.get("window").get("since").asText()).isEqualTo("2025-01-15T14:29:00Z");
+        assertThat(logs).startsWith("2025-01-15 14:29:01.123");
+        assertThat(logs).contains("2025-01-15 14:29:25.456");
+        assertThat(logs).doesNotContain("14:28:").doesNotContain("14:29:30.789");
+        assertThat(response.get("linesReturned").asInt()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("[LOGS] Should return only lines of the requested levels")
+    public void testLevelFilter() throws Exception {
+        String result = endpoint.fetchLogs("payment-service", 3, null, null, null, "ERROR");
+
+        System.out.println("=== LEVEL FILTER ===");
+        System.out.println(result);
+        System.out.println();
+
+        JsonNode response = mapper.readTree(result);
+        String[] lines = response.get("logs").asText().split("\n");
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines).allMatch(line -> line.contains(" ERROR "));
+        assertThat(lines[2]).startsWith("2025-01-15 14:29:25.456");
+        assertThat(response.get("levels").get(0).asText()).isEqualTo("ERROR");
+
+        JsonNode olderPage = mapper.readTree(endpoint.fetchLogs(
+            "payment-service", 200, response.get("olderCursor").asText(), null, null, "ERROR"));
+        assertThat(olderPage.get("linesReturned").asInt()).isEqualTo(5);
+        assertThat(olderPage.get("olderCursor").isNull()).isTrue();
+    }
+
+    @Test
+    @DisplayName("[LOGS] Should fetch all lines for a request ID in timestamp order")
+    public void testRequestTrace() throws Exception {
+        String result = endpoint.fetchRequestTrace("req-12345");
+
+        System.out.println("=== REQUEST TRACE ===");
+        System.out.println(result);
+        System.out.println();
+
+        JsonNode response = mapper.readTree(result);
+        assertThat(response.get("requestId").asText()).isEqualTo("req-12345");
+        assertThat(response.get("linesReturned").asInt()).isEqualTo(11);
+        assertThat(response.get("services").get("payment-service").asInt()).isEqualTo(11);
+        assertThat(response.get("logs").asText()).doesNotContain("req-12346");
+        assertThat(response.get("firstSeen").asText()).isEqualTo("2025-01-15T14:28:45.123Z");
+    }
+
+    @Test
+    @DisplayName("[LOGS] Should fetch several services in one call")
+    public void testBatchPerService() throws Exception {
+        String result = endpoint.fetchLogsBatch("payment-service,checkout-service,unknown-service", 5, null, null, null, false);
+
+        System.out.println("=== BATCH LOGS (PER SERVICE) ===");
+        System.out.println(result);
+        System.out.println();
+
+        JsonNode response = mapper.readTree(result);
+        assertThat(response.get("results").get("payment-service").get("linesReturned").asInt()).isEqualTo(5);
+        assertThat(response.get("results").get("checkout-service").get("linesReturned").asInt()).isEqualTo(5);
+        assertThat(response.get("results").get("payment-service").has("analysis")).isTrue();
+        assertThat(response.get("errors").get("unknown-service").asText()).contains("No log file found");
+    }
+
+    @Test
+    @DisplayName("[LOGS] Should merge several services into one timeline")
+    public void testBatchMerged() throws Exception {
+        String result = endpoint.fetchLogsBatch("payment-service,checkout-service", 5, null, null, "ERROR", true);
+
+        System.out.println("=== BATCH LOGS (MERGED) ===");
+        System.out.println(result);
+        System.out.println();
+
+        JsonNode response = mapper.readTree(result);
+        String[] lines = response.get("logs").asText().split("\n");
+        assertThat(lines).hasSize(response.get("linesReturned").asInt());
+        assertThat(response.get("linesPerService").get("payment-service").asInt()).isEqualTo(5);
+
+        long previous = Long.MIN_VALUE;
+        for (String line : lines) {
+            assertThat(line).contains(" ERROR ");
+            long timestamp = LogTimestamps.parse(line);
+            assertThat(timestamp).isGreaterThanOrEqualTo(previous);
+            previous = timestamp;
+        }
+    }
+
+    @Test
+    @DisplayName("[LOGS] Should follow a log from its current end")
+    public void testFollowLogs() throws Exception {
+        String result = endpoint.followLogs("payment-service", null, 50, 0, null);
+
+        System.out.println("=== FOLLOW LOGS ===");
+        System.out.println(result);
+        System.out.println();
+
+        JsonNode response = mapper.readTree(result);
+        assertThat(response.get("linesReturned").asInt()).isZero();
+        assertThat(response.has("followCursor")).isTrue();
+        assertThat(response.has("analysis")).isTrue();
+
+        // Nothing is appended to the bundled logs, so following again returns no lines
+        JsonNode next = mapper.readTree(endpoint.followLogs("payment-service",
+            response.get("followCursor").asText(), 50, 0, null));
+        assertThat(next.get("linesReturned").asInt()).isZero();
+        assertThat(next.get("followCursor").asText()).isEqualTo(response.get("followCursor").asText());
+    }
+
+    @Test
+    @DisplayName("[LOGS] Should mine log templates with counts")
+    public void testMineLogTemplates() throws Exception {
+        String result = endpoint.mineLogTemplates("payment-service", 200, null, null, "ERROR");
+
+        System.out.println("=== LOG TEMPLATES ===");
+        System.out.println(result);
+        System.out.println();
+
+        JsonNode response = mapper.readTree(result);
+        assertThat(response.get("linesAnalyzed").asInt()).isPositive();
+        assertThat(response.get("distinctTemplates").asInt()).isPositive();
+
+        JsonNode top = response.get("templates").get(0);
+        assertThat(top.get("template").asText()).startsWith("ERROR").contains("<*>");
+        assertThat(top.get("count").asInt()).isGreaterThan(1);
+    }
+
     // ==================== METRICS TOOLS TESTS ====================
 
     @Test
@@ -104,6 +275,8 @@ public class EvidenceToolsEndpointTest {
         assertThat(response.has("formatted")).isTrue();
         assertThat(response.has("insights")).isTrue();
         assertThat(response.get("expr").asText()).isEqualTo("error_rate");
+        assertThat(response.get("series")).isNotEmpty();
+        assertThat(response.get("series").get(0).get("name").asText()).isEqualTo("error_rate");
 
         String formatted = response.get("formatted").asText();
         assertThat(formatted).containsAnyOf("Error Rate", "Total Errors");
@@ -168,6 +341,40 @@ public class EvidenceToolsEndpointTest {
         assertThat(insights.size()).isGreaterThan(0);
     }
 
+    @Test
+    @DisplayName("[METRICS] Should evaluate PromQL-like queries and reject malformed ones")
+    public void testMetricsQuery() throws Exception {
+        JsonNode response = mapper.readTree(endpoint.queryMetrics("avg by (service) (error_rate{service=~\"auth.*\"})", "1h"));
+
+        assertThat(response.has("formatted")).isTrue();
+        assertThat(response.get("series")).hasSize(1);
+        assertThat(response.get("series").get(0).get("labels").get("service").asText()).isEqualTo("auth-service");
+
+        JsonNode invalid = mapper.readTree(endpoint.queryMetrics("max(error_rate", "1h"));
+        assertThat(invalid.get("error").asText()).contains("Invalid metrics query");
+    }
+
+    @Test
+    @DisplayName("[METRICS] Should restrict series to the requested range")
+    public void testMetricsRange() throws Exception {
+        String expr = "error_rate{service=\"auth-service\"}";
+
+        JsonNode recent = mapper.readTree(endpoint.queryMetrics(expr, "30m"));
+        assertThat(recent.get("series").get(0).get("points")).hasSize(1);
+
+        JsonNode longer = mapper.readTree(endpoint.queryMetrics(expr, "2d"));
+        assertThat(longer.get("resolution").asText()).isEqualTo("5m");
+        assertThat(longer.get("series").get(0).get("points")).hasSize(2);
+
+        // Without a range the resolution follows the span of the selected points
+        JsonNode all = mapper.readTree(endpoint.queryMetrics(expr, ""));
+        assertThat(all.get("resolution").asText()).isEqualTo("1m");
+        assertThat(all.get("series").get(0).get("points")).hasSize(2);
+
+        JsonNode invalid = mapper.readTree(endpoint.queryMetrics(expr, "yesterday"));
+        assertThat(invalid.get("error").asText()).contains("Invalid range");
+    }
+
     // ==================== KNOWLEDGE BASE TOOLS TESTS ====================
 
     @Test
@@ -0,0 +1,108 @@
+package com.pradeepl.evidence.logs;
+
+import com.pradeepl.evidence.util.EvidenceAnalyzer;
+import com.pradeepl.evidence.util.EvidenceAnalyzer.LogAnalysis;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AnalysisIndex - Cached block analysis")
+public class AnalysisIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("[ANALYSIS] Should match a full analysis of the range, before and after appends")
+    public void testMatchesFullAnalysis() throws Exception {
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            logs.append(String.format("2025-01-15 14:%02d:%02d.000 %s%n", (i / 60) % 60, i % 60,
+                i % 7 == 0 ? "ERROR Payment gateway returned 503" : "INFO Request processed"));
+        }
+        Path log = Files.writeString(tempDir.resolve("svc.log"), logs);
+
+        try (LogFile logFile = LogFile.open(log)) {
+            AnalysisIndex index = AnalysisIndex.of(logFile);
+            assertRangeMatches(index, logFile, 0, logFile.size());
+            assertRangeMatches(index, logFile, LogPageReader.tail(logFile, 9_000).startOffset(), logFile.size());
+
+            Files.writeString(log, "2025-01-15 15:00:00.000 ERROR Connection refused by database\n",
+                StandardOpenOption.APPEND);
+            assertRangeMatches(index, logFile, LogPageReader.tail(logFile, 9_000).startOffset(), logFile.size());
+        }
+    }
+
+    @Test
+    @DisplayName("[ANALYSIS] Should keep at most the configured number of blocks")
+    public void testBoundedCache() throws Exception {
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            logs.append(String.format("2025-01-15 14:%02d:%02d.000 %s%n", (i / 60) % 60, i % 60,
+                i % 5 == 0 ? "ERROR Connection refused by database" : "INFO Request processed"));
+        }
+        Path log = Files.writeString(tempDir.resolve("svc.log"), logs);
+
+        try (LogFile logFile = LogFile.open(log)) {
+            AnalysisIndex index = new AnalysisIndex(logFile, 2);
+            assertRangeMatches(index, logFile, 0, logFile.size());
+            assertThat(index.cachedBlocks()).isEqualTo(2);
+
+            // Evicted blocks are rescanned
+            assertRangeMatches(index, logFile, 0, logFile.size());
+            assertThat(index.cachedBlocks()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("[ANALYSIS] Should analyze uncached blocks in parallel and merge them in file order")
+    public void testParallelBlocks() throws Exception {
+        StringBuilder logs = new StringBuilder();
+        for (int i = 0; i < 60_000; i++) {
+            // Errors change over the file so a block merged out of order changes the result
+            logs.append(String.format("2025-01-15 %02d:%02d:%02d.000 %s%n", i / 3600, (i / 60) % 60, i % 60,
+                i % 11 == 0 ? "ERROR Payment gateway returned 50" + (i / 20_000) : "INFO Request processed"));
+        }
+        Path log = Files.writeString(tempDir.resolve("svc.log"), logs);
+
+        try (LogFile logFile = LogFile.open(log)) {
+            AnalysisIndex index = new AnalysisIndex(logFile, AnalysisIndex.DEFAULT_CACHED_BLOCKS);
+            long end = logFile.size();
+            String text = new String(logFile.readRange(0, end), StandardCharsets.UTF_8);
+            LogAnalysis expected = EvidenceAnalyzer.analyzeLogs(text);
+
+            // Concurrent cold analyses of the same range each scan and merge the blocks they miss
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<LogAnalysis>> analyses = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    analyses.add(executor.submit(() -> index.analyze(0, end).toAnalysis()));
+                }
+                for (Future<LogAnalysis> analysis : analyses) {
+                    assertThat(analysis.get()).isEqualTo(expected);
+                }
+            } finally {
+                executor.shutdown();
+            }
+            assertThat(index.cachedBlocks()).isEqualTo((int) (end / AnalysisIndex.BLOCK_SIZE));
+            assertThat(index.analyze(0, end).toAnalysis()).isEqualTo(expected);
+        }
+    }
+
+    private static void assertRangeMatches(AnalysisIndex index, LogFile logFile, long start, long end) throws Exception {
+        String text = new String(logFile.readRange(start, end), StandardCharsets.UTF_8);
+        assertThat(index.analyze(start, end).toAnalysis()).isEqualTo(EvidenceAnalyzer.analyzeLogs(text));
+    }
+}
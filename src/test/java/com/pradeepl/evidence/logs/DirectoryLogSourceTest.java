@@ -0,0 +1,190 @@
+package com.pradeepl.evidence.logs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("DirectoryLogSource - Filesystem log backend")
+public class DirectoryLogSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("[SOURCE] Should serve existing logs and reuse the open handle")
+    public void testOpenAndCache() throws Exception {
+        Files.writeString(tempDir.resolve("payment-service.log"), "line 1\nline 2\n");
+
+        try (DirectoryLogSource source = new DirectoryLogSource(tempDir, 0)) {
+            LogFile first = source.open("payment-service");
+
+            assertThat(first).isNotNull();
+            assertThat(source.open("payment-service")).isSameAs(first);
+            assertThat(LogPageReader.tail(first, 1).text()).isEqualTo("line 2\n");
+            assertThat(source.services()).containsExactly("payment-service");
+        }
+    }
+
+    @Test
+    @DisplayName("[SOURCE] Should discover log files created after startup")
+    public void testDiscoversNewFiles() throws Exception {
+        try (DirectoryLogSource source = new DirectoryLogSource(tempDir, 0)) {
+            Files.writeString(tempDir.resolve("checkout-service.log"), "started\n");
+
+            Instant deadline = Instant.now().plus(Duration.ofSeconds(15));
+            while (!source.services().contains("checkout-service") && Instant.now().isBefore(deadline)) {
+                Thread.sleep(50);
+            }
+
+            assertThat(source.services()).contains("checkout-service");
+            assertThat(source.open("checkout-service")).isNotNull();
+        }
+    }
+
+    @Test
+    @DisplayName("[SOURCE] Should keep a rotated log readable until its reader closes it")
+    public void testRotationWhileReading() throws Exception {
+        Path log = Files.writeString(tempDir.resolve("payment-service.log"), "old 1\nold 2\n");
+
+        try (DirectoryLogSource source = new DirectoryLogSource(tempDir, 0)) {
+            LogFile reading = source.open("payment-service");
+            Files.move(log, tempDir.resolve("payment-service.log.1"));
+            Files.writeString(log, "new 1\n");
+
+            Instant deadline = Instant.now().plus(Duration.ofSeconds(15));
+            LogFile current = reading;
+            while (current == reading && Instant.now().isBefore(deadline)) {
+                Thread.sleep(50);
+                try (LogFile reopened = source.open("payment-service")) {
+                    current = reopened;
+                }
+            }
+
+            // The evicted log is closed only once its last reader is done
+            assertThat(current).isNotSameAs(reading);
+            assertThat(LogPageReader.tail(reading, 1).text()).isEqualTo("old 2\n");
+            reading.close();
+            assertThat(reading.retain()).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("[SOURCE] Should rebuild a log's indexes after it is truncated in place")
+    public void testTruncatedInPlace() throws Exception {
+        Path log = Files.writeString(tempDir.resolve("payment-service.log"),
+            "2025-01-15 14:28:45 INFO  first request processed\n"
+                + "2025-01-15 14:28:46 ERROR first gateway timeout\n"
+                + "2025-01-15 14:28:47 INFO  second request processed\n");
+
+        try (DirectoryLogSource source = new DirectoryLogSource(tempDir, 0)) {
+            try (LogFile before = source.open("payment-service")) {
+                assertThat(LevelIndex.of(before).selectBefore(before.size(), 0, 10, LogLevel.ERROR.mask()).text())
+                    .isEqualTo("2025-01-15 14:28:46 ERROR first gateway timeout\n");
+            }
+
+            // copytruncate: same file, emptied and written again
+            Files.writeString(log, "2025-01-15 15:00:00 ERROR new\n");
+
+            try (LogFile after = source.open("payment-service")) {
+                assertThat(LevelIndex.of(after).selectBefore(after.size(), 0, 10, LogLevel.ERROR.mask()).text())
+                    .isEqualTo("2025-01-15 15:00:00 ERROR new\n");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("[SOURCE] Should reject service names that escape the log directory")
+    public void testRejectsPathTraversal() throws Exception {
+        try (DirectoryLogSource source = new DirectoryLogSource(tempDir, 0)) {
+            assertThat(source.open("../secrets")).isNull();
+            assertThat(source.open("missing-service")).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("[SOURCE] Should serve rotated and gzip segments as one continuous log")
+    public void testRotatedSegments() throws Exception {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempDir.resolve("order-service.log.2.gz")))) {
+            out.write("line 1\nline 2\n".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.writeString(tempDir.resolve("order-service.log.1"), "line 3\nline 4\n");
+        Files.writeString(tempDir.resolve("order-service.log"), "line 5\n");
+
+        try (DirectoryLogSource source = new DirectoryLogSource(tempDir, 0, tempDir.resolve("blocks"))) {
+            LogFile log = source.open("order-service");
+
+            assertThat(log.size()).isEqualTo(35);
+            assertThat(new String(log.readRange(0, log.size()), StandardCharsets.UTF_8))
+                .isEqualTo("line 1\nline 2\nline 3\nline 4\nline 5\n");
+            assertThat(LogPageReader.tail(log, 4).text()).isEqualTo("line 2\nline 3\nline 4\nline 5\n");
+            assertThat(source.services()).containsExactly("order-service");
+        }
+    }
+
+    @Test
+    @DisplayName("[SOURCE] Should end a rotated segment that lacks a final newline at its last line")
+    public void testUnterminatedSegment() throws Exception {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempDir.resolve("order-service.log.2.gz")))) {
+            out.write("line 1".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.writeString(tempDir.resolve("order-service.log.1"), "line 2");
+        Files.writeString(tempDir.resolve("order-service.log"), "line 3\n");
+
+        try (DirectoryLogSource source = new DirectoryLogSource(tempDir, 0, tempDir.resolve("blocks"));
+             LogFile log = source.open("order-service")) {
+            assertThat(new String(log.readRange(0, log.size()), StandardCharsets.UTF_8))
+                .isEqualTo("line 1\nline 2\nline 3\n");
+            assertThat(LogPageReader.tail(log, 2).text()).isEqualTo("line 2\nline 3\n");
+        }
+    }
+
+    @Test
+    @DisplayName("[SOURCE] Should remove the block cache of gzip segments that no longer exist")
+    public void testRemovesStaleBlockCache() throws Exception {
+        for (String segment : new String[] {"order-service.log.2.gz", "order-service.log.1.gz"}) {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempDir.resolve(segment)))) {
+                out.write((segment + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Files.writeString(tempDir.resolve("order-service.log"), "line 3\n");
+        Path blocks = tempDir.resolve("blocks");
+
+        try (DirectoryLogSource source = new DirectoryLogSource(tempDir, 0, blocks)) {
+            LogFile before = source.open("order-service");
+            before.close();
+            assertThat(cacheFiles(blocks)).hasSize(4);
+
+            // The oldest segment ages out
+            Files.delete(tempDir.resolve("order-service.log.2.gz"));
+            Instant deadline = Instant.now().plus(Duration.ofSeconds(15));
+            LogFile current = before;
+            while (current == before && Instant.now().isBefore(deadline)) {
+                Thread.sleep(50);
+                try (LogFile reopened = source.open("order-service")) {
+                    current = reopened;
+                }
+            }
+
+            assertThat(current).isNotSameAs(before);
+            assertThat(cacheFiles(blocks)).hasSize(2).allMatch(name -> name.contains("order-service.log.1.gz-"));
+        }
+    }
+
+    private static List<String> cacheFiles(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).toList();
+        }
+    }
+}
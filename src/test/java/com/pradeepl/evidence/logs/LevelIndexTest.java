@@ -0,0 +1,88 @@
+package com.pradeepl.evidence.logs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LevelIndex - Level-filtered page selection")
+public class LevelIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("[LEVEL] Should select matching lines after and before an offset")
+    public void testSelect() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("svc.log"),
+            "2025-01-15 14:28:45 INFO  one\n"
+                + "2025-01-15 14:28:46 ERROR two\n"
+                + "2025-01-15 14:28:47 INFO  three\n"
+                + "2025-01-15 14:28:48 ERROR four\n");
+
+        try (LogFile logFile = LogFile.open(file)) {
+            LevelIndex index = LevelIndex.of(logFile);
+            int errors = LogLevel.ERROR.mask();
+
+            LogPageReader.Page after = index.selectAfter(0, logFile.size(), 1, errors);
+            assertThat(after.text()).isEqualTo("2025-01-15 14:28:46 ERROR two\n");
+
+            LogPageReader.Page next = index.selectAfter(after.endOffset(), logFile.size(), 10, errors);
+            assertThat(next.text()).isEqualTo("2025-01-15 14:28:48 ERROR four\n");
+            assertThat(next.endOffset()).isEqualTo(logFile.size());
+
+            LogPageReader.Page before = index.selectBefore(logFile.size(), 0, 10, errors);
+            assertThat(before.lineCount()).isEqualTo(2);
+            assertThat(before.startOffset()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("[LEVEL] Should return an empty page at the offset when no lines are asked for")
+    public void testNoLines() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("svc.log"),
+            "2025-01-15 14:28:45 ERROR one\n2025-01-15 14:28:46 ERROR two\n");
+
+        try (LogFile logFile = LogFile.open(file)) {
+            LevelIndex index = LevelIndex.of(logFile);
+            long middle = "2025-01-15 14:28:45 ERROR one\n".length();
+
+            LogPageReader.Page after = index.selectAfter(middle, logFile.size(), 0, LogLevel.ERROR.mask());
+            assertThat(after.lineCount()).isZero();
+            assertThat(after.endOffset()).isEqualTo(middle);
+
+            LogPageReader.Page before = index.selectBefore(middle, 0, 0, LogLevel.ERROR.mask());
+            assertThat(before.lineCount()).isZero();
+            assertThat(before.startOffset()).isEqualTo(middle);
+        }
+    }
+
+    @Test
+    @DisplayName("[LEVEL] Should cap pages of multi-byte lines by encoded bytes")
+    public void testByteCap() throws Exception {
+        // 1000 chars but 3000 bytes per message: under the cap in chars, over it in bytes
+        String line = "2025-01-15 14:28:45 ERROR " + "\u20ac".repeat(1000) + "\n";
+        Path file = Files.writeString(tempDir.resolve("svc.log"), line.repeat(500));
+
+        try (LogFile logFile = LogFile.open(file)) {
+            LevelIndex index = LevelIndex.of(logFile);
+            int errors = LogLevel.ERROR.mask();
+
+            LogPageReader.Page before = index.selectBefore(logFile.size(), 0, 500, errors);
+            assertThat(before.truncated()).isTrue();
+            assertThat(before.text().getBytes(StandardCharsets.UTF_8).length)
+                .isLessThanOrEqualTo(LogPageReader.MAX_PAGE_BYTES);
+            assertThat(before.endOffset() - before.startOffset())
+                .isEqualTo(before.text().getBytes(StandardCharsets.UTF_8).length);
+
+            LogPageReader.Page after = index.selectAfter(0, logFile.size(), 500, errors);
+            assertThat(after.truncated()).isTrue();
+            assertThat(after.endOffset()).isEqualTo(after.text().getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+}
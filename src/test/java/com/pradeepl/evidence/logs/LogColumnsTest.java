@@ -0,0 +1,69 @@
+package com.pradeepl.evidence.logs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LogColumns - Columnar log parsing")
+public class LogColumnsTest {
+
+    private static final String LOGS =
+        "2025-01-15 14:28:45.123 INFO  [payment-service] [req-1] Processing payment\n"
+            + "2025-01-15 14:28:45.234 ERROR [payment-service] [req-1] Gateway timeout\n"
+            + "    at com.example.Gateway.call(Gateway.java:42)\n"
+            + "2025-01-15 14:28:46.000 WARN  [req-2] Retrying\n"
+            + "2025-01-15T14:28:47Z ERROR [auth-service] Token expired";
+
+    @Test
+    @DisplayName("[COLUMNS] Should parse fields into primitive columns")
+    public void testParse() {
+        LogColumns columns = parse(LOGS);
+
+        assertThat(columns.size()).isEqualTo(5);
+        assertThat(columns.timestamp(0)).isEqualTo(LogTimestamps.parse("2025-01-15 14:28:45.123"));
+        assertThat(columns.level(1)).isEqualTo(LogLevel.ERROR.ordinal());
+        assertThat(columns.level(3)).isEqualTo(LogLevel.WARN.ordinal());
+        assertThat(columns.timestamp(4)).isEqualTo(LogTimestamps.parse("2025-01-15T14:28:47Z"));
+        assertThat(columns.line(1)).isEqualTo("2025-01-15 14:28:45.234 ERROR [payment-service] [req-1] Gateway timeout");
+        assertThat(columns.line(4)).isEqualTo("2025-01-15T14:28:47Z ERROR [auth-service] Token expired");
+        assertThat(columns.serviceName(columns.service(0))).isEqualTo("payment-service");
+        assertThat(columns.service(1)).isEqualTo(columns.service(0));
+        assertThat(columns.serviceName(columns.service(4))).isEqualTo("auth-service");
+
+        // Lines without a [service] or [req-id] token
+        assertThat(columns.service(3)).isEqualTo(LogColumns.NO_CODE);
+        assertThat(columns.requestId(3)).isEqualTo(columns.requestIdCode("req-2"));
+        assertThat(columns.requestId(4)).isEqualTo(LogColumns.NO_CODE);
+    }
+
+    @Test
+    @DisplayName("[COLUMNS] Should attribute continuation lines to the entry before them")
+    public void testContinuation() {
+        LogColumns columns = parse(LOGS);
+
+        assertThat(columns.level(2)).isEqualTo(LogLevel.ERROR.ordinal());
+        assertThat(columns.timestamp(2)).isEqualTo(columns.timestamp(1));
+        assertThat(columns.line(2)).isEqualTo("    at com.example.Gateway.call(Gateway.java:42)");
+        assertThat(columns.service(2)).isEqualTo(columns.service(1));
+        assertThat(columns.requestId(2)).isEqualTo(columns.requestId(1));
+    }
+
+    @Test
+    @DisplayName("[COLUMNS] Should filter by level, time window and request ID")
+    public void testSelect() {
+        LogColumns columns = parse(LOGS);
+
+        assertThat(columns.select(LogLevel.ERROR.mask(), Long.MIN_VALUE, Long.MAX_VALUE)).containsExactly(1, 2, 4);
+        assertThat(columns.select(0, LogTimestamps.parse("2025-01-15 14:28:46"), Long.MAX_VALUE)).containsExactly(3, 4);
+        assertThat(columns.rowsForRequest(columns.requestIdCode("1"))).containsExactly(0, 1, 2);
+        assertThat(columns.requestIdCode("req-404")).isEqualTo(LogColumns.NO_CODE);
+    }
+
+    private static LogColumns parse(String text) {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        return LogColumns.parse(data, 0, data.length);
+    }
+}
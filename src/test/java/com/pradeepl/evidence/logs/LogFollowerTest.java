@@ -0,0 +1,83 @@
+package com.pradeepl.evidence.logs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LogFollower - Shared live log follower")
+public class LogFollowerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("[FOLLOW] Should deliver only lines appended after the watcher's offset")
+    public void testFollowAppends() throws Exception {
+        Path log = Files.writeString(tempDir.resolve("svc.log"), "old 1\nold 2\n");
+
+        try (LogFile logFile = LogFile.open(log)) {
+            LogFollower follower = LogFollower.of(logFile);
+            long start = follower.position();
+            assertThat(start).isEqualTo(Files.size(log));
+
+            Files.writeString(log, "new 1\nnew 2\nnew 3", StandardOpenOption.APPEND);
+            LogPageReader.Page update = follower.await(start, 10, 5000);
+            assertThat(update.text()).isEqualTo("new 1\nnew 2\n");
+
+            // The unterminated line is delivered once it is complete
+            Files.writeString(log, " done\n", StandardOpenOption.APPEND);
+            update = follower.await(update.endOffset(), 10, 5000);
+            assertThat(update.text()).isEqualTo("new 3 done\n");
+            assertThat(update.endOffset()).isEqualTo(Files.size(log));
+
+            // Caught up: waits and returns nothing
+            assertThat(follower.await(update.endOffset(), 10, 200).lineCount()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("[FOLLOW] Should share one follower between watchers of the same file")
+    public void testSharedFollower() throws Exception {
+        Path log = Files.writeString(tempDir.resolve("svc.log"), "");
+
+        try (LogFile logFile = LogFile.open(log)) {
+            assertThat(LogFollower.of(logFile)).isSameAs(LogFollower.of(logFile));
+
+            long start = LogFollower.of(logFile).position();
+            Files.writeString(log, "a\nb\nc\n", StandardOpenOption.APPEND);
+
+            LogPageReader.Page first = LogFollower.of(logFile).await(start, 2, 5000);
+            LogPageReader.Page second = LogFollower.of(logFile).await(start, 3, 5000);
+            assertThat(first.text()).isEqualTo("a\nb\n");
+            assertThat(second.text()).isEqualTo("a\nb\nc\n");
+        }
+    }
+
+    @Test
+    @DisplayName("[FOLLOW] Should filter new lines by level and keep continuation lines")
+    public void testFollowLevelFilter() throws Exception {
+        Path log = Files.writeString(tempDir.resolve("svc.log"), "");
+
+        try (LogFile logFile = LogFile.open(log)) {
+            LogFollower follower = LogFollower.of(logFile);
+            long start = follower.position();
+            Files.writeString(log,
+                "2025-01-15 14:28:45 INFO  [svc] ok\n"
+                    + "2025-01-15 14:28:46 ERROR [svc] failed\n"
+                    + "    at Gateway.call\n"
+                    + "2025-01-15 14:28:47 INFO  [svc] ok again\n",
+                StandardOpenOption.APPEND);
+
+            LogFollower.Update update = follower.await(start, 10, 5000, LogLevel.ERROR.mask());
+            assertThat(update.page().text()).isEqualTo("2025-01-15 14:28:46 ERROR [svc] failed\n    at Gateway.call\n");
+            assertThat(update.page().endOffset()).isEqualTo(Files.size(log));
+            assertThat(update.moreAvailable()).isFalse();
+        }
+    }
+}
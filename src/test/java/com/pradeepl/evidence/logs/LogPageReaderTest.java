@@ -0,0 +1,40 @@
+package com.pradeepl.evidence.logs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LogPageReader - Cursor page reads")
+public class LogPageReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("[PAGE] Should leave a line still being written to the next page")
+    public void testUnterminatedLastLine() throws Exception {
+        Path log = Files.writeString(tempDir.resolve("svc.log"), "a\nb\nc par");
+
+        try (LogFile logFile = LogFile.open(log)) {
+            LogPageReader.Page page = LogPageReader.after(logFile, 0, 10);
+            assertThat(page.text()).isEqualTo("a\nb\n");
+            assertThat(page.endOffset()).isEqualTo(4);
+            assertThat(LogPageReader.after(logFile, 4, 10).lineCount()).isZero();
+
+            // A tail still shows the partial line, but newer reads resume at its start
+            LogPageReader.Page tail = LogPageReader.before(logFile, logFile.size(), 10, 0);
+            assertThat(tail.text()).endsWith("c par\n");
+            assertThat(LogPageReader.resumeOffset(logFile, tail.endOffset())).isEqualTo(4);
+
+            Files.writeString(log, "tial\nd\n", StandardOpenOption.APPEND);
+            assertThat(LogPageReader.after(logFile, 4, 10).text()).isEqualTo("c partial\nd\n");
+            assertThat(LogPageReader.resumeOffset(logFile, logFile.size())).isEqualTo(logFile.size());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.pradeepl.evidence.logs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LogTailReader - Reverse block tail reads")
+public class LogTailReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("[TAIL] Should return the last N lines of a file spanning many blocks")
+    public void testTailAcrossBlocks() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            content.append("2025-01-15 14:28:45.123 INFO  [svc] [req-").append(i).append("] line ").append(i).append("\n");
+        }
+        Path file = Files.writeString(tempDir.resolve("svc.log"), content);
+
+        try (LogFile logFile = LogFile.open(file)) {
+            LogPageReader.Page tail = LogPageReader.tail(logFile, 3);
+
+            assertThat(tail.lineCount()).isEqualTo(3);
+            assertThat(tail.text()).startsWith("2025-01-15 14:28:45.123 INFO  [svc] [req-19997]");
+            assertThat(tail.text()).endsWith("line 19999\n");
+            assertThat(tail.startOffset()).isEqualTo(Files.size(file) - tail.text().length());
+            assertThat(tail.endOffset()).isEqualTo(Files.size(file));
+        }
+    }
+
+    @Test
+    @DisplayName("[TAIL] Should ignore trailing blank lines and handle a missing final newline")
+    public void testTrailingNewlines() throws Exception {
+        Path withBlanks = Files.writeString(tempDir.resolve("blanks.log"), "a\nb\nc\n\n\n");
+        Path noNewline = Files.writeString(tempDir.resolve("plain.log"), "a\nb\nc");
+
+        try (LogFile blanks = LogFile.open(withBlanks); LogFile plain = LogFile.open(noNewline)) {
+            assertThat(LogPageReader.tail(blanks, 2).text()).isEqualTo("b\nc\n");
+            assertThat(LogPageReader.tail(plain, 2).text()).isEqualTo("b\nc\n");
+            assertThat(LogPageReader.tail(plain, 10).lineCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @DisplayName("[TAIL] Should return nothing for an empty file")
+    public void testEmptyFile() throws Exception {
+        Path empty = Files.writeString(tempDir.resolve("empty.log"), "");
+
+        try (LogFile logFile = LogFile.open(empty)) {
+            LogPageReader.Page tail = LogPageReader.tail(logFile, 200);
+            assertThat(tail.text()).isEmpty();
+            assertThat(tail.lineCount()).isZero();
+        }
+    }
+}
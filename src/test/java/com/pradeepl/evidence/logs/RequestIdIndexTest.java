@@ -0,0 +1,53 @@
+package com.pradeepl.evidence.logs;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RequestIdIndex - Incremental request ID lookups")
+public class RequestIdIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("[INDEX] Should index appended lines without rescanning")
+    public void testIncrementalAppend() throws Exception {
+        Path log = Files.writeString(tempDir.resolve("svc.log"),
+            "2025-01-15 14:28:45.123 INFO  [svc] [req-1] first\n"
+                + "2025-01-15 14:28:45.124 INFO  [svc] [req-2] other\n");
+
+        try (LogFile logFile = LogFile.open(log)) {
+            RequestIdIndex index = RequestIdIndex.of(logFile);
+            assertThat(index.lookup("req-1")).hasSize(1);
+            long indexed = index.indexedUpTo();
+
+            Files.writeString(log, "2025-01-15 14:28:46.000 ERROR [svc] [req-1] second", StandardOpenOption.APPEND);
+            assertThat(index.lookup("req-1")).containsExactly(
+                "2025-01-15 14:28:45.123 INFO  [svc] [req-1] first",
+                "2025-01-15 14:28:46.000 ERROR [svc] [req-1] second");
+            assertThat(index.indexedUpTo()).isEqualTo(indexed);
+
+            // Completing the provisional last line must not duplicate it
+            Files.writeString(log, " done\n", StandardOpenOption.APPEND);
+            String[] lines = index.lookup("req-1");
+            assertThat(lines).hasSize(2);
+            assertThat(lines[1]).endsWith("second done");
+            assertThat(index.indexedUpTo()).isEqualTo(Files.size(log));
+        }
+    }
+
+    @Test
+    @DisplayName("[INDEX] Should normalize request IDs")
+    public void testNormalize() {
+        assertThat(RequestIdIndex.normalize("12345")).isEqualTo("req-12345");
+        assertThat(RequestIdIndex.normalize("[req-12345]")).isEqualTo("req-12345");
+        assertThat(RequestIdIndex.normalize(" req-a1 ")).isEqualTo("req-a1");
+    }
+}
@@ -0,0 +1,66 @@
+package com.pradeepl.evidence.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MetricsIndex - inverted index of metric names, paths and labels")
+public class MetricsIndexTest {
+
+    private static final long START = 1_736_900_000_000L;
+
+    private static MetricsStore store() {
+        MetricsStore store = new MetricsStore(MetricsStore.DEFAULT_RETENTION_MILLIS);
+        for (String service : new String[] {"payment-service", "checkout-service"}) {
+            Map<String, String> labels = Map.of("service", service, "source", service + "-latency");
+            store.append(SeriesId.of("latency_percentiles.p95", labels), START, 250);
+            store.append(SeriesId.of("latency_percentiles.p99", labels), START, 900);
+            store.append(SeriesId.of("cpu_utilization.current", labels), START, 40);
+        }
+        return store;
+    }
+
+    @Test
+    @DisplayName("[INDEX] Should post series under their name, dotted paths, labels and words")
+    public void testPostings() {
+        MetricsIndex index = store().index();
+
+        assertThat(index.named("latency_percentiles.p95")).hasSize(2);
+        assertThat(index.underPath("latency_percentiles")).hasSize(4);
+        assertThat(index.underPath("latency_percentiles.p95")).isEmpty();
+        assertThat(index.labelled("service", "checkout-service")).hasSize(3);
+        assertThat(index.withWord("p99")).hasSize(2);
+        assertThat(index.withWord("checkout")).hasSize(3);
+        assertThat(index.wordMatches(MetricsIndex.words("checkout p95")).values()).containsOnly(1, 2);
+        assertThat(MetricsIndex.words("Latency_Percentiles.p99.9")).containsExactly("latency", "percentiles", "p99", "9");
+    }
+
+    @Test
+    @DisplayName("[INDEX] Should resolve names, paths, labels and words through the index")
+    public void testResolve() {
+        MetricsStore store = store();
+
+        assertThat(MetricsQuery.compile("latency_percentiles{service=\"payment-service\"}").resolve(store))
+            .extracting(series -> series.id().name())
+            .containsExactly("latency_percentiles.p95", "latency_percentiles.p99");
+        assertThat(MetricsQuery.compile("{source=\"checkout-service-latency\"}").resolve(store)).hasSize(3);
+        assertThat(MetricsQuery.compile("cpu_usage").resolve(store))
+            .extracting(series -> series.id().name())
+            .containsExactly("cpu_utilization.current", "cpu_utilization.current");
+        // Only bare names fall back to word matches
+        assertThat(MetricsQuery.compile("cpu_usage{service!=\"payment-service\"}").resolve(store)).isEmpty();
+        assertThat(MetricsQuery.compile("rate(cpu_usage[5m])").resolve(store)).isEmpty();
+        assertThat(MetricsQuery.compile("checkout p95").resolve(store))
+            .extracting(TimeSeries::id)
+            .containsExactly(SeriesId.of("latency_percentiles.p95",
+                Map.of("service", "checkout-service", "source", "checkout-service-latency")));
+
+        // A series added later is found without rebuilding anything
+        store.append(SeriesId.of("queue_depth.current", Map.of("service", "order-service")), START, 7);
+        assertThat(MetricsQuery.compile("queue_depth").resolve(store)).hasSize(1);
+        assertThat(store.select(null, Map.of("service", "order-service"))).hasSize(1);
+    }
+}
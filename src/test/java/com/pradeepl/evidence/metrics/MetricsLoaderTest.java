@@ -0,0 +1,124 @@
+package com.pradeepl.evidence.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MetricsLoader - Loading snapshots and series into the store")
+public class MetricsLoaderTest {
+
+    private final MetricsStore store = new MetricsStore(MetricsStore.DEFAULT_RETENTION_MILLIS);
+    private final MetricsLoader loader = new MetricsLoader(store, MetricsLoaderTest.class.getClassLoader());
+
+    @Test
+    @DisplayName("[TSDB] Should turn snapshot values into labelled series with earlier values in the past")
+    public void testSnapshot() throws Exception {
+        loader.loadSnapshot("payment-service-errors", new ObjectMapper().readTree("""
+            {"timestamp": "2025-01-15T14:30:00Z", "time_range": "1h",
+             "metrics": {"error_rate": {"current": 15.3, "previous_hour": 2.1, "unit": "percent"},
+                         "latency": {"p95": 890}}}"""));
+
+        TimeSeries errorRate = store.select("error_rate", Map.of("service", "payment-service")).get(0);
+        assertThat(errorRate.id().labels())
+            .containsEntry("source", "payment-service-errors")
+            .containsEntry("unit", "percent");
+        assertThat(points(errorRate)).containsExactly("2025-01-15T13:30:00Z=2.1", "2025-01-15T14:30:00Z=15.3");
+        assertThat(store.select("latency.p95", Map.of())).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("[TSDB] Should load Prometheus text samples and skip malformed ones")
+    public void testExposition() throws Exception {
+        int added = loader.loadExposition(new StringReader("""
+            # HELP http_errors_total Errors
+            http_errors_total{service="payment-service",code="503"} 17 1736951400000
+            http_errors_total{service="payment-service",code="503"} 19 1736951401000
+            up 1
+            broken{ 1 2
+            """));
+
+        assertThat(added).isEqualTo(2);
+        TimeSeries errors = store.select("http_errors_total", Map.of("code", "503")).get(0);
+        assertThat(errors.id().toString()).isEqualTo("http_errors_total{code=\"503\",service=\"payment-service\"}");
+        assertThat(points(errors)).containsExactly("2025-01-15T14:30:00Z=17.0", "2025-01-15T14:30:01Z=19.0");
+    }
+
+    @Test
+    @DisplayName("[TSDB] Should load the bundled metrics snapshots")
+    public void testBundledSnapshots() {
+        loader.loadResources("metrics");
+
+        assertThat(store.select("error_rate", Map.of())).hasSizeGreaterThanOrEqualTo(3);
+        assertThat(store.select(null, Map.of("source", "checkout-service-latency"))).isNotEmpty();
+    }
+
+    @Test
+    @DisplayName("[TSDB] Should reload changed, new and removed files of a metrics directory")
+    public void testReloadDirectory(@TempDir Path directory) throws Exception {
+        Path payment = Files.writeString(directory.resolve("payment-service-errors.json"), snapshot(15.3));
+        assertThat(loader.loadDirectory(directory)).isEqualTo(1);
+        assertThat(loader.loadDirectory(directory)).isZero();
+
+        Files.writeString(payment, snapshot(20.0));
+        Files.setLastModifiedTime(payment, FileTime.fromMillis(Files.getLastModifiedTime(payment).toMillis() + 1000));
+        Path auth = Files.writeString(directory.resolve("auth-service-errors.json"), snapshot(6.8));
+        Path prom = Files.writeString(directory.resolve("extra.prom"), "queue_depth 7 1736951400000\n");
+        assertThat(loader.loadDirectory(directory)).isEqualTo(3);
+
+        // A changed snapshot replaces the series of its source
+        TimeSeries errorRate = store.select("error_rate", Map.of("source", "payment-service-errors")).get(0);
+        assertThat(points(errorRate)).containsExactly("2025-01-15T14:30:00Z=20.0");
+        assertThat(MetricsQuery.compile("error_rate{source=\"auth-service-errors\"}").resolve(store)).hasSize(1);
+
+        // Only the appended samples of a grown .prom file are read
+        Files.writeString(prom, "queue_depth 9 1736951460000\n", StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(prom, FileTime.fromMillis(Files.getLastModifiedTime(prom).toMillis() + 1000));
+        assertThat(loader.loadDirectory(directory)).isEqualTo(1);
+        assertThat(points(store.select("queue_depth", Map.of()).get(0)))
+            .containsExactly("2025-01-15T14:30:00Z=7.0", "2025-01-15T14:31:00Z=9.0");
+
+        Files.delete(auth);
+        loader.loadDirectory(directory);
+        assertThat(store.select(null, Map.of("source", "auth-service-errors"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("[TSDB] Should read a half-written .prom line only once it is complete")
+    public void testPartialLine(@TempDir Path directory) throws Exception {
+        Path prom = Files.writeString(directory.resolve("extra.prom"), "queue_depth 7 1736951400000
+queue_depth 9");
+        assertThat(loader.loadDirectory(directory)).isEqualTo(1);
+        assertThat(points(store.select("queue_depth", Map.of()).get(0)))
+            .containsExactly("2025-01-15T14:30:00Z=7.0");
+
+        Files.writeString(prom, " 1736951460000\n", StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(prom, FileTime.fromMillis(Files.getLastModifiedTime(prom).toMillis() + 1000));
+        assertThat(loader.loadDirectory(directory)).isEqualTo(1);
+        assertThat(points(store.select("queue_depth", Map.of()).get(0)))
+            .containsExactly("2025-01-15T14:30:00Z=7.0", "2025-01-15T14:31:00Z=9.0");
+    }
+
+    private static String snapshot(double errorRate) {
+        return "{\"timestamp\": \"2025-01-15T14:30:00Z\", \"metrics\": {\"error_rate\": {\"current\": " + errorRate + "}}}";
+    }
+
+    private static List<String> points(TimeSeries series) {
+        List<String> points = new ArrayList<>();
+        series.scan(Long.MIN_VALUE, Long.MAX_VALUE, (t, v) -> points.add(Instant.ofEpochMilli(t) + "=" + v));
+        return points;
+    }
+}
@@ -0,0 +1,165 @@
+package com.pradeepl.evidence.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("MetricsQuery - PromQL-like query compilation")
+public class MetricsQueryTest {
+
+    private static final long START = 1_736_900_000_000L;
+
+    private static MetricsStore store() {
+        MetricsStore store = new MetricsStore(MetricsStore.DEFAULT_RETENTION_MILLIS);
+        for (int i = 0; i < 10; i++) {
+            long timestamp = START + i * 60_000L;
+            store.append(SeriesId.of("http_errors_total", Map.of("service", "payment-service", "code", "500")), timestamp,
+                i < 6 ? i * 60 : (i - 5) * 60);
+            store.append(SeriesId.of("http_errors_total", Map.of("service", "payment-service", "code", "404")), timestamp, 0);
+            store.append(SeriesId.of("latency_p95", Map.of("service", "payment-service", "source", "payment")), timestamp, 100);
+            store.append(SeriesId.of("latency_p95", Map.of("service", "auth-service", "source", "auth")), timestamp, 200);
+            store.append(SeriesId.of("latency_p95", Map.of("service", "auth-service", "source", "auth", "zone", "b")),
+                timestamp, 400);
+        }
+        return store;
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should parse selectors, functions and by-clauses into plans")
+    public void testParse() {
+        QueryPlan plan = MetricsQuery.parse("avg by (service) (rate(http_errors_total{code=~\"5..\", service!=\"x\"}[5m]))");
+
+        assertThat(plan).isInstanceOf(QueryPlan.Aggregate.class);
+        QueryPlan.Aggregate aggregate = (QueryPlan.Aggregate) plan;
+        assertThat(aggregate.operator()).isEqualTo("avg");
+        assertThat(aggregate.by()).containsExactly("service");
+        QueryPlan.Select select = ((QueryPlan.Rate) aggregate.input()).input();
+        assertThat(select.name()).isEqualTo("http_errors_total");
+        assertThat(select.rangeMillis()).isEqualTo(5 * 60_000L);
+        assertThat(select.matchers()).extracting(LabelMatcher::operator).containsExactly("=~", "!=");
+
+        assertThat(MetricsQuery.parse("max(latency_p95) by (service)"))
+            .isEqualTo(MetricsQuery.parse("max by (service) (latency_p95)"));
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should reuse the compiled plan of an identical expression")
+    public void testPlanCache() {
+        QueryPlan first = MetricsQuery.compile("quantile(0.9, latency_p95{service=\"auth-service\"})");
+
+        assertThat(MetricsQuery.compile(" quantile(0.9, latency_p95{service=\"auth-service\"}) ")).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should reject malformed queries with the position of the error")
+    public void testSyntaxError() {
+        assertThatThrownBy(() -> MetricsQuery.compile("max(latency_p95"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("position 15");
+        assertThatThrownBy(() -> MetricsQuery.compile("rate(http_errors_total)"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("range");
+        assertThatThrownBy(() -> MetricsQuery.compile("x{code=~\"(\"}"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should compute per-second rates across counter resets")
+    public void testRate() {
+        List<ResultSeries> results = MetricsQuery.compile("rate(http_errors_total{code=\"500\"}[2m])")
+            .execute(store(), Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertThat(results).hasSize(1);
+        ResultSeries rates = results.get(0);
+        assertThat(rates.name()).isNull();
+        assertThat(rates.labels()).containsEntry("code", "500");
+        // One per second throughout: the counter adds 60 per minute and restarts after minute 5
+        assertThat(rates.values()).hasSize(9).containsOnly(1.0);
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should aggregate by labels and compute quantiles at each timestamp")
+    public void testAggregate() {
+        MetricsStore store = store();
+
+        List<ResultSeries> averages = MetricsQuery.compile("avg by (service) (latency_p95)")
+            .execute(store, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(averages).extracting(series -> series.labels().get("service"))
+            .containsExactlyInAnyOrder("payment-service", "auth-service");
+        for (ResultSeries series : averages) {
+            assertThat(series.size()).isEqualTo(10);
+            assertThat(series.values()[0]).isEqualTo(series.labels().get("service").equals("auth-service") ? 300.0 : 100.0);
+        }
+
+        List<ResultSeries> median = MetricsQuery.compile("quantile(0.5, latency_p95)")
+            .execute(store, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(median).hasSize(1);
+        assertThat(median.get(0).labels()).isEmpty();
+        assertThat(median.get(0).values()).containsOnly(200.0);
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should select by label regex and restrict to the selector range")
+    public void testSelector() {
+        List<ResultSeries> results = MetricsQuery.compile("latency_p95{service=~\"auth.*\", zone!=\"b\"}[3m]")
+            .execute(store(), Long.MIN_VALUE, Long.MAX_VALUE);
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).labels()).containsEntry("service", "auth-service").doesNotContainKey("zone");
+        assertThat(results.get(0).timestamps()).containsExactly(START + 6 * 60_000L, START + 7 * 60_000L,
+            START + 8 * 60_000L, START + 9 * 60_000L);
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should resolve plain words to the best matching series and their source")
+    public void testSearch() {
+        MetricsStore store = store();
+
+        QueryPlan plan = MetricsQuery.compile("auth latency");
+        assertThat(plan).isInstanceOf(QueryPlan.Search.class);
+        assertThat(plan.resolve(store)).extracting(series -> series.id().labels().get("service"))
+            .containsOnly("auth-service");
+        assertThat(plan.primarySource(store)).isEqualTo("auth");
+
+        // Not a stored name: matched by words, so latency_p95 series of both services
+        assertThat(MetricsQuery.compile("p95").resolve(store)).hasSize(3);
+        assertThat(MetricsQuery.compile("disk_io").primarySource(store)).isNull();
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should route names shared evenly by several sources to the default source")
+    public void testAmbiguousSource() {
+        MetricsStore store = new MetricsStore(MetricsStore.DEFAULT_RETENTION_MILLIS);
+        for (String source : new String[] {"api-gateway-errors", "auth-service-errors", "payment-service-errors"}) {
+            store.append(SeriesId.of("error_rate", Map.of("source", source)), START, 5);
+        }
+        store.append(SeriesId.of("error_rate.total", Map.of("source", "api-gateway-errors")), START, 9);
+
+        assertThat(MetricsQuery.compile("error_rate").primarySource(store)).isEqualTo("payment-service-errors");
+        assertThat(MetricsQuery.compile("error_rate{source=~\"a.*\"}").primarySource(store)).isEqualTo("api-gateway-errors");
+    }
+
+    @Test
+    @DisplayName("[QUERY] Should downsample to aligned steps from rollups")
+    public void testDownsampling() {
+        MetricsStore store = store();
+
+        List<ResultSeries> steps = MetricsQuery.compile("avg(latency_p95{service=\"auth-service\"})")
+            .execute(store, Long.MIN_VALUE, Long.MAX_VALUE, 5 * 60_000L);
+        assertThat(steps).hasSize(1);
+        for (long timestamp : steps.get(0).timestamps()) {
+            assertThat(timestamp % (5 * 60_000L)).isZero();
+        }
+        assertThat(steps.get(0).values()).containsOnly(300.0);
+
+        // Counter steps take their last value, so the rate is unchanged at one per second
+        List<ResultSeries> rates = MetricsQuery.compile("rate(http_errors_total{code=\"500\"}[1m])")
+            .execute(store, Long.MIN_VALUE, Long.MAX_VALUE, 60_000L);
+        assertThat(rates.get(0).values()).hasSize(9).containsOnly(1.0);
+    }
+}
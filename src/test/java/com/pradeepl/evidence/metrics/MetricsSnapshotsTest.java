@@ -0,0 +1,79 @@
+package com.pradeepl.evidence.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("MetricsSnapshots - parse-once metrics snapshot cache")
+public class MetricsSnapshotsTest {
+
+    private static String snapshot(double errorRate) {
+        return "{\"timestamp\": \"2025-01-15T14:30:00Z\", \"metrics\": {\"error_rate\": {\"current\": " + errorRate
+            + ", \"status\": \"elevated\"}, \"alerts\": [\"ALERT ErrorRateHigh\"]}}";
+    }
+
+    @Test
+    @DisplayName("[SNAPSHOT] Should parse a bundled snapshot into typed sections")
+    public void testParse() {
+        MetricsSnapshots snapshots = new MetricsSnapshots(getClass().getClassLoader(), null, 5000);
+
+        MetricsSnapshot payment = snapshots.get("payment-service-errors");
+
+        assertThat(payment.origin()).isEqualTo("classpath");
+        assertThat(payment.errorRate().current()).isEqualTo(15.3);
+        assertThat(payment.errorRate().previous()).isEqualTo(2.1);
+        assertThat(payment.errorRate().totalErrors()).isEqualTo(342);
+        assertThat(payment.errorRate().spike().primaryCause()).isEqualTo("database connectivity issues");
+        assertThat(payment.latency()).isNull();
+        assertThat(payment.alerts()).isEmpty();
+
+        MetricsSnapshot resources = snapshots.get("user-service-resources");
+        assertThat(resources.resources().cpu()).isEqualTo(78.5);
+        assertThat(resources.resources().memory()).isNotNull();
+        assertThat(resources.alerts()).hasSize(3);
+
+        assertThat(snapshots.get("payment-service-errors")).isSameAs(payment);
+        assertThat(snapshots.get("no-such-snapshot")).isNull();
+        assertThat(snapshots.get("../metrics/payment-service-errors")).isNull();
+    }
+
+    @Test
+    @DisplayName("[SNAPSHOT] Should reject documents without a metrics object")
+    public void testInvalid() {
+        assertThatThrownBy(() -> MetricsSnapshot.parse("x", "directory", "{\"query\": \"up\"}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Invalid metrics file format");
+    }
+
+    @Test
+    @DisplayName("[SNAPSHOT] Should reparse a changed snapshot file and keep the previous one if it breaks")
+    public void testReload(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("payment-service-errors.json");
+        Files.writeString(file, snapshot(3.5));
+        MetricsSnapshots snapshots = new MetricsSnapshots(getClass().getClassLoader(), directory, 0);
+
+        MetricsSnapshot first = snapshots.get("payment-service-errors");
+        assertThat(first.origin()).isEqualTo("directory");
+        assertThat(first.errorRate().current()).isEqualTo(3.5);
+        assertThat(snapshots.get("payment-service-errors")).isSameAs(first);
+
+        Files.writeString(file, snapshot(7.25));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        assertThat(snapshots.get("payment-service-errors").errorRate().current()).isEqualTo(7.25);
+
+        Files.writeString(file, "{ not json");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        assertThat(snapshots.get("payment-service-errors").errorRate().current()).isEqualTo(7.25);
+
+        // Without the override the bundled snapshot is served again
+        Files.delete(file);
+        assertThat(snapshots.get("payment-service-errors").origin()).isEqualTo("classpath");
+    }
+}
@@ -0,0 +1,116 @@
+package com.pradeepl.evidence.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TimeSeries - Gorilla-compressed series storage")
+public class TimeSeriesTest {
+
+    private static final long START = 1_736_900_000_000L;
+
+    @Test
+    @DisplayName("[TSDB] Should return exactly the points appended, including irregular gaps and NaN")
+    public void testRoundTrip() {
+        Random random = new Random(7);
+        TimeSeries series = new TimeSeries(SeriesId.of("x", Map.of()), Long.MAX_VALUE / 4);
+        List<Long> timestamps = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        long timestamp = START;
+        for (int i = 0; i < 20_000; i++) {
+            timestamp += random.nextInt(5) == 0 ? 1 + random.nextInt(100_000) : 1000;
+            double value = switch (i % 4) {
+                case 0 -> random.nextDouble();
+                case 1 -> Math.round(random.nextGaussian() * 100);
+                case 2 -> Double.NaN;
+                default -> -1e300 * random.nextDouble();
+            };
+            assertThat(series.append(timestamp, value)).isTrue();
+            timestamps.add(timestamp);
+            values.add(value);
+        }
+
+        List<Long> scannedTimestamps = new ArrayList<>();
+        List<Double> scannedValues = new ArrayList<>();
+        series.scan(Long.MIN_VALUE, Long.MAX_VALUE, (t, v) -> {
+            scannedTimestamps.add(t);
+            scannedValues.add(v);
+        });
+
+        assertThat(scannedTimestamps).isEqualTo(timestamps);
+        assertThat(scannedValues).isEqualTo(values);
+        assertThat(series.scan(timestamps.get(1000), timestamps.get(2000), (t, v) -> { })).isEqualTo(1001);
+    }
+
+    @Test
+    @DisplayName("[TSDB] Should store regular per-second data in under two bytes per point")
+    public void testCompression() {
+        TimeSeries series = new TimeSeries(SeriesId.of("cpu", Map.of()), MetricsStore.DEFAULT_RETENTION_MILLIS);
+        Random random = new Random(7);
+        double value = 50;
+        for (int second = 0; second < 86_400; second++) {
+            if (second % 7 == 0) {
+                value = Math.round((value + random.nextGaussian()) * 10) / 10.0;
+            }
+            series.append(START + second * 1000L, value);
+        }
+
+        assertThat(series.pointCount()).isEqualTo(86_400);
+        assertThat(series.bytes()).isLessThan(2 * 86_400);
+    }
+
+    @Test
+    @DisplayName("[TSDB] Should reject points that are not newer and drop chunks past retention")
+    public void testOrderingAndRetention() {
+        TimeSeries series = new TimeSeries(SeriesId.of("y", Map.of()), 6 * 60 * 60 * 1000L);
+        assertThat(series.append(START, 1)).isTrue();
+        assertThat(series.append(START, 2)).isFalse();
+        assertThat(series.append(START - 1000, 2)).isFalse();
+
+        for (int second = 10; second < 86_400; second += 10) {
+            series.append(START + second * 1000L, second);
+        }
+
+        assertThat(series.newest() - series.oldest())
+            .isLessThanOrEqualTo(6 * 60 * 60 * 1000L + TimeSeries.CHUNK_MILLIS);
+        assertThat(series.scan(Long.MIN_VALUE, Long.MAX_VALUE, (t, v) -> { })).isEqualTo(series.pointCount());
+    }
+
+    @Test
+    @DisplayName("[TSDB] Should keep min, max, sum, count and last per rollup bucket")
+    public void testRollups() {
+        TimeSeries series = new TimeSeries(SeriesId.of("z", Map.of()), MetricsStore.DEFAULT_RETENTION_MILLIS);
+        long hour = 60 * 60 * 1000L;
+        long start = START / hour * hour;
+        for (int second = 0; second < 2 * 3600; second++) {
+            series.append(start + second * 1000L, second % 60);
+        }
+
+        List<double[]> minutes = new ArrayList<>();
+        series.scanBuckets(TimeSeries.ROLLUP_MILLIS[0], start, start + hour - 1,
+            (bucketStart, min, max, sum, count, last) -> minutes.add(new double[] {min, max, sum, count, last}));
+        assertThat(minutes).hasSize(60);
+        assertThat(minutes.get(7)).containsExactly(0, 59, 1770, 60, 59);
+
+        long[] hourCounts = new long[2];
+        series.scanBuckets(TimeSeries.ROLLUP_MILLIS[2], Long.MIN_VALUE, Long.MAX_VALUE,
+            (bucketStart, min, max, sum, count, last) -> hourCounts[(int) ((bucketStart - start) / hour)] = count);
+        assertThat(hourCounts).containsExactly(3600, 3600);
+    }
+
+    @Test
+    @DisplayName("[TSDB] Should choose the finest resolution that keeps a range under the point limit")
+    public void testResolutionFor() {
+        assertThat(TimeSeries.resolutionFor(0, 1000)).isZero();
+        assertThat(TimeSeries.resolutionFor(15 * 60 * 1000L, 1000)).isZero();
+        assertThat(TimeSeries.resolutionFor(60 * 60 * 1000L, 1000)).isEqualTo(60 * 1000L);
+        assertThat(TimeSeries.resolutionFor(3 * 24 * 60 * 60 * 1000L, 1000)).isEqualTo(5 * 60 * 1000L);
+        assertThat(TimeSeries.resolutionFor(30 * 24 * 60 * 60 * 1000L, 1000)).isEqualTo(60 * 60 * 1000L);
+    }
+}
@@ -0,0 +1,53 @@
+package com.pradeepl.evidence.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CountMinSketch - Approximate counting in fixed memory")
+public class CountMinSketchTest {
+
+    @Test
+    @DisplayName("[SKETCH] Should never undercount and stay within the error bound")
+    public void testErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        int[] exact = new int[5000];
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            int key = (int) (Math.pow(random.nextDouble(), 2) * exact.length);
+            exact[key]++;
+            sketch.add(key, 1);
+        }
+
+        assertThat(sketch.maxOvercount()).isEqualTo(1000);
+        int outsideBound = 0;
+        for (int key = 0; key < exact.length; key++) {
+            assertThat(sketch.estimate(key)).isGreaterThanOrEqualTo(exact[key]);
+            if (sketch.estimate(key) > exact[key] + sketch.maxOvercount()) {
+                outsideBound++;
+            }
+        }
+        assertThat(outsideBound).isLessThanOrEqualTo(exact.length / 100);
+    }
+
+    @Test
+    @DisplayName("[SKETCH] Should merge sketches into the sketch of all counts")
+    public void testMerge() {
+        CountMinSketch first = new CountMinSketch(0.001, 0.01);
+        CountMinSketch second = new CountMinSketch(0.001, 0.01);
+        CountMinSketch all = new CountMinSketch(0.001, 0.01);
+        for (int key = 0; key < 1000; key++) {
+            (key % 2 == 0 ? first : second).add(key, key);
+            all.add(key, key);
+        }
+        first.merge(second);
+
+        for (int key = 0; key < 1000; key++) {
+            assertThat(first.estimate(key)).isEqualTo(all.estimate(key));
+        }
+        assertThat(first.maxOvercount()).isEqualTo(all.maxOvercount());
+    }
+}
@@ -0,0 +1,74 @@
+package com.pradeepl.evidence.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ErrorLineSampler - Stratified error line samples")
+public class ErrorLineSamplerTest {
+
+    /** An hour of the same timeout every few seconds, with two rare errors in between. */
+    private static String window() {
+        StringBuilder logs = new StringBuilder();
+        for (int minute = 0; minute < 60; minute++) {
+            for (int second = 0; second < 60; second += 3) {
+                logs.append(String.format("2025-01-15T10:%02d:%02dZ ERROR Payment gateway timeout after %dms%n",
+                    minute, second, 3000 + second));
+            }
+            if (minute == 30) {
+                logs.append("2025-01-15T10:30:59Z ERROR Database deadlock on orders\n");
+            }
+        }
+        logs.append("2025-01-15T11:00:00Z ERROR NullPointerException in CartService\n");
+        return logs.toString();
+    }
+
+    @Test
+    @DisplayName("[SAMPLING] Should sample one line per template instead of the first lines")
+    public void testDistinctTemplates() {
+        List<String> samples = EvidenceAnalyzer.analyzeLogs(window()).sampleErrorLines();
+
+        assertThat(samples).hasSize(3);
+        assertThat(samples.get(0)).contains("Payment gateway timeout");
+        assertThat(samples.get(1)).contains("deadlock");
+        assertThat(samples.get(2)).contains("NullPointerException");
+    }
+
+    @Test
+    @DisplayName("[SAMPLING] Should give the same sample however the input is split")
+    public void testMerge() {
+        String logs = window().repeat(20);
+
+        EvidenceAnalyzer.LogAnalysis parallel =
+            LogAnalysisAccumulator.analyzeParallel(logs, 0, logs.length()).toAnalysis();
+        int split = logs.indexOf('\n', logs.length() / 3) + 1;
+        LogAnalysisAccumulator merged = new LogAnalysisAccumulator().accept(logs, 0, split)
+            .merge(new LogAnalysisAccumulator().accept(logs, split, logs.length()));
+
+        List<String> sequential = EvidenceAnalyzer.analyzeLogs(logs).sampleErrorLines();
+        assertThat(parallel.sampleErrorLines()).isEqualTo(sequential);
+        assertThat(merged.toAnalysis().sampleErrorLines()).isEqualTo(sequential);
+    }
+
+    @Test
+    @DisplayName("[SAMPLING] Should keep a bounded number of strata spread across the window")
+    public void testBoundedStrata() {
+        ErrorLineSampler sampler = new ErrorLineSampler();
+        for (int line = 0; line < 10_000; line++) {
+            int template = line % 7;
+            long timestamp = line * 1000L;
+            int priority = line * 0x9e3779b9;
+            if (sampler.wants(template, timestamp, priority, line)) {
+                sampler.add(template, timestamp, priority, line, "template " + template + " line " + line);
+            }
+        }
+
+        assertThat(sampler.size()).isEqualTo(ErrorLineSampler.MAX_STRATA);
+        List<String> samples = sampler.sample(5);
+        assertThat(samples).hasSize(5);
+        assertThat(samples.stream().map(sample -> sample.substring(0, 10)).distinct()).hasSize(5);
+    }
+}
@@ -0,0 +1,77 @@
+package com.pradeepl.evidence.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ErrorRateSeries - Per-interval error counts and burst detection")
+public class ErrorRateSeriesTest {
+
+    private static final long START = Instant.parse("2025-01-15T14:00:00Z").toEpochMilli();
+
+    @Test
+    @DisplayName("[SERIES] Should find a short burst in a steady trickle of errors")
+    public void testBurst() {
+        ErrorRateSeries series = new ErrorRateSeries(1000, 3600);
+        for (int second = 0; second < 600; second++) {
+            for (int line = 0; line < 10; line++) {
+                boolean burst = second >= 300 && second < 330;
+                boolean error = burst ? line < 8 : (second + line) % 10 == 0;
+                series.add(START + second * 1000L + line * 50L, error);
+            }
+        }
+
+        assertThat(series.detectBursts()).containsExactly(new ErrorRateSeries.Burst(
+            "2025-01-15T14:05:00Z", "2025-01-15T14:05:30Z", 240, 8, 1.0));
+    }
+
+    @Test
+    @DisplayName("[SERIES] Should not report a steady error rate as a burst")
+    public void testSteadyRate() {
+        ErrorRateSeries series = new ErrorRateSeries(1000, 3600);
+        for (int second = 0; second < 600; second++) {
+            for (int line = 0; line < 10; line++) {
+                series.add(START + second * 1000L + line * 50L, line < 5);
+            }
+        }
+
+        assertThat(series.detectBursts()).isEmpty();
+        assertThat(series.toSeries("1s").errors()).hasSize(600).containsOnly(5);
+    }
+
+    @Test
+    @DisplayName("[SERIES] Should keep only the most recent buckets")
+    public void testBoundedRing() {
+        ErrorRateSeries series = new ErrorRateSeries(60_000, 60);
+        for (int minute = 0; minute < 180; minute++) {
+            series.add(START + minute * 60_000L, minute % 2 == 0);
+        }
+        series.add(START, true);
+
+        assertThat(series.span()).isEqualTo(60);
+        assertThat(series.isTruncated()).isTrue();
+        assertThat(series.toSeries("1m").start()).isEqualTo("2025-01-15T16:00:00Z");
+        assertThat(series.errorsAt(START + 179 * 60_000L)).isZero();
+        assertThat(series.errorsAt(START + 178 * 60_000L)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[SERIES] Should merge series of adjacent and overlapping chunks")
+    public void testMerge() {
+        ErrorRateSeries all = new ErrorRateSeries(1000, 3600);
+        ErrorRateSeries earlier = new ErrorRateSeries(1000, 3600);
+        ErrorRateSeries later = new ErrorRateSeries(1000, 3600);
+        for (int i = 0; i < 1000; i++) {
+            long timestamp = START + i * 370L;
+            all.add(timestamp, i % 3 == 0);
+            (i < 500 ? earlier : later).add(timestamp, i % 3 == 0);
+        }
+        // Merging the later chunk first also grows the ring backwards
+        later.merge(earlier);
+
+        assertThat(later.toSeries("1s")).isEqualTo(all.toSeries("1s"));
+    }
+}
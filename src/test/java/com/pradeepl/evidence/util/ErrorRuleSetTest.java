@@ -0,0 +1,105 @@
+package com.pradeepl.evidence.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ErrorRuleSet - Config-driven error classification")
+public class ErrorRuleSetTest {
+
+    private final ErrorRuleSet rules = ErrorRuleSet.compile(List.of(
+        new ErrorRule("Database connectivity issues", "connection*refused|deadlock", "database", "high"),
+        new ErrorRule("Card declined", "payment * declined", "payment", "medium")));
+
+    @Test
+    @DisplayName("[RULES] Should match terms in order and report rules in first-seen order")
+    public void testMatching() {
+        EvidenceAnalyzer.LogAnalysis analysis = new LogAnalysisAccumulator(rules).accept(
+            "WARN Payment was DECLINED\n"
+                + "ERROR connection to db refused\n"
+                + "WARN refused before connection\n"
+                + "ERROR Deadlock found; connection refused\n").toAnalysis();
+
+        assertThat(analysis.errorPatterns()).containsExactly("Card declined", "Database connectivity issues");
+        assertThat(analysis.matchedRules()).containsExactly(
+            new ErrorRuleSet.RuleMatch("Card declined", "payment", "medium", 1),
+            new ErrorRuleSet.RuleMatch("Database connectivity issues", "database", "high", 2));
+    }
+
+    @Test
+    @DisplayName("[RULES] Should merge rule counts of chunks analyzed with the same rules")
+    public void testMerge() {
+        String logs = "deadlock\nconnection refused\nok\npayment declined\ndeadlock again\n";
+        int split = logs.indexOf("ok");
+
+        LogAnalysisAccumulator merged = new LogAnalysisAccumulator(rules).accept(logs, 0, split)
+            .merge(new LogAnalysisAccumulator(rules).accept(logs, split, logs.length()));
+
+        assertThat(merged.toAnalysis()).isEqualTo(new LogAnalysisAccumulator(rules).accept(logs).toAnalysis());
+        assertThatThrownBy(() -> merged.merge(new LogAnalysisAccumulator(ErrorRuleSet.compile(List.of()))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("[RULES] Should match hundreds of rules in a single pass")
+    public void testManyRules() {
+        List<ErrorRule> many = new ArrayList<>();
+        for (int r = 0; r < 200; r++) {
+            many.add(new ErrorRule("rule " + r, "svc-" + r + "-x*failed", "service", "low"));
+        }
+        StringBuilder logs = new StringBuilder();
+        for (int line = 0; line < 1000; line++) {
+            logs.append("ERROR svc-").append(line % 250).append("-x request failed\n");
+        }
+
+        EvidenceAnalyzer.LogAnalysis analysis = new LogAnalysisAccumulator(ErrorRuleSet.compile(many))
+            .accept(logs).toAnalysis();
+
+        assertThat(analysis.matchedRules()).hasSize(200)
+            .allSatisfy(match -> assertThat(match.lines()).isEqualTo(4));
+        assertThat(analysis.errorPatterns()).startsWith("rule 0", "rule 1");
+    }
+
+    @Test
+    @DisplayName("[RULES] Should reject invalid match expressions")
+    public void testInvalidRules() {
+        assertThatThrownBy(() -> ErrorRuleSet.compile(List.of(new ErrorRule("x", "a**b", "c", "low"))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ErrorRuleSet.compile(List.of(new ErrorRule("x", null, "c", "low"))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("[RULES] Should reload a changed rules file and keep the old rules on errors")
+    public void testReload(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("rules.json");
+        Files.writeString(file, "[{\"name\": \"A\", \"match\": \"alpha\", \"category\": \"c\", \"severity\": \"low\"}]");
+        ErrorRules errorRules = new ErrorRules(file, 0);
+        assertThat(errorRules.current().rules()).extracting(ErrorRule::name).containsExactly("A");
+
+        Files.writeString(file, "[{\"name\": \"B\", \"match\": \"beta\", \"category\": \"c\", \"severity\": \"low\"}]");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        ErrorRuleSet reloaded = errorRules.current();
+        assertThat(reloaded.rules()).extracting(ErrorRule::name).containsExactly("B");
+
+        Files.writeString(file, "[{not json");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+        assertThat(errorRules.current()).isSameAs(reloaded);
+    }
+
+    @Test
+    @DisplayName("[RULES] Should load the bundled rules by default")
+    public void testBundledRules() {
+        assertThat(new ErrorRules(null, 0).current().rules())
+            .extracting(ErrorRule::name).contains("Database connectivity issues");
+    }
+}
@@ -0,0 +1,71 @@
+package com.pradeepl.evidence.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("KeywordMatcher - Single-pass multi-keyword matching")
+public class KeywordMatcherTest {
+
+    private final KeywordMatcher matcher = new KeywordMatcher("error", "timeout", "out", "refused");
+
+    @Test
+    @DisplayName("[MATCHER] Should find every keyword case-insensitively in one pass")
+    public void testFind() {
+        assertThat(matcher.find("Gateway TIMEOUT, connection Refused")).isEqualTo(0b1110);
+        assertThat(matcher.find("NullPointerError")).isEqualTo(0b0001);
+        assertThat(matcher.find("all good")).isZero();
+    }
+
+    @Test
+    @DisplayName("[MATCHER] Should report overlapping keywords at their end positions")
+    public void testOverlappingMatches() {
+        String text = "xtimeout";
+        int state = KeywordMatcher.START;
+        int[] found = new int[text.length()];
+        for (int i = 0; i < text.length(); i++) {
+            state = matcher.next(state, text.charAt(i));
+            found[i] = matcher.matches(state);
+        }
+
+        // "out" is a suffix of "timeout", so both end at the last character
+        assertThat(found[text.length() - 1]).isEqualTo(0b0110);
+        assertThat(found[text.length() - 2]).isZero();
+    }
+
+    @Test
+    @DisplayName("[MATCHER] Should list keywords beyond the 31 reported as bits")
+    public void testManyKeywords() {
+        String[] keywords = new String[40];
+        for (int k = 0; k < keywords.length; k++) {
+            keywords[k] = "kw" + (char) ('a' + k / 26) + (char) ('a' + k % 26);
+        }
+        KeywordMatcher many = new KeywordMatcher(keywords);
+
+        int state = KeywordMatcher.START;
+        for (char c : "KWBN".toCharArray()) {
+            state = many.next(state, c);
+        }
+
+        // kwbn is keyword 39
+        assertThat(many.matches(state)).isEqualTo(KeywordMatcher.MORE);
+        assertThat(many.outputs(state)).containsExactly(39);
+        assertThat(many.find("kwaa kwbn")).isEqualTo(1 | KeywordMatcher.MORE);
+        assertThat(many.size()).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("[MATCHER] Should keep EvidenceAnalyzer results for mixed log lines")
+    public void testAnalyzerCategories() {
+        EvidenceAnalyzer.LogAnalysis analysis = EvidenceAnalyzer.analyzeLogs(
+            "2025-01-15 14:29:15 ERROR Connection to db refused\n"
+                + "2025-01-15 14:29:16 WARN refused before connection\n"
+                + "2025-01-15 14:29:17 INFO upstream returned 503\n"
+                + "2025-01-15 14:29:18 INFO all good\n");
+
+        assertThat(analysis.errorCount()).isEqualTo(2);
+        assertThat(analysis.errorPatterns()).contains("Database connectivity issues", "HTTP 503 errors");
+        assertThat(analysis.statusCodeCounts()).containsEntry("503", 1);
+    }
+}
@@ -0,0 +1,156 @@
+package com.pradeepl.evidence.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisplayName("LogAnalysisAccumulator - In-place log analysis")
+public class LogAnalysisAccumulatorTest {
+
+    @Test
+    @DisplayName("[ANALYSIS] Should give the same results for String, byte[] and ByteBuffer input")
+    public void testInputViews() throws Exception {
+        String logs = sampleLogs();
+        byte[] bytes = logs.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        EvidenceAnalyzer.LogAnalysis fromString = EvidenceAnalyzer.analyzeLogs(logs);
+        assertThat(EvidenceAnalyzer.analyzeLogs(bytes, 0, bytes.length)).isEqualTo(fromString);
+        assertThat(new LogAnalysisAccumulator().accept(direct).toAnalysis()).isEqualTo(fromString);
+        assertThat(fromString.errorCount()).isPositive();
+    }
+
+    @Test
+    @DisplayName("[ANALYSIS] Should count lines like split and ignore trailing empty lines")
+    public void testLineCounting() {
+        LogAnalysisAccumulator accumulator = new LogAnalysisAccumulator().accept("a\n\nERROR b\n\n\n");
+
+        assertThat(accumulator.lineCount()).isEqualTo(3);
+        assertThat(accumulator.errorCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("[ANALYSIS] Should merge chunk results into the sequential result")
+    public void testMergeChunks() {
+        String logs = "a status=503\nERROR first\n\n"
+            + "deadlock detected\nFailed HTTP 404\n"
+            + "\nERROR -> 503 again\nTimeout reading database\nexception 1\nexception 2\nexception 3\n";
+        int second = logs.indexOf("deadlock");
+        int third = logs.indexOf("\nERROR -> 503") + 1;
+
+        LogAnalysisAccumulator merged = new LogAnalysisAccumulator().accept(logs, 0, second)
+            .merge(new LogAnalysisAccumulator().accept(logs, second, third)
+                .merge(new LogAnalysisAccumulator().accept(logs, third, logs.length())));
+        LogAnalysisAccumulator sequential = new LogAnalysisAccumulator().accept(logs);
+
+        assertThat(merged.toAnalysis()).isEqualTo(sequential.toAnalysis());
+        assertThat(merged.lineCount()).isEqualTo(sequential.lineCount());
+        assertThat(merged.toAnalysis().errorPatterns())
+            .containsExactly("HTTP 503 errors", "Database connectivity issues", "HTTP 404 errors");
+        assertThat(merged.toAnalysis().sampleErrorLines()).hasSize(LogAnalysisAccumulator.MAX_SAMPLE_LINES)
+            .startsWith("ERROR first");
+    }
+
+    @Test
+    @DisplayName("[ANALYSIS] Should read status codes only in status positions")
+    public void testStatusExtraction() {
+        LogAnalysisAccumulator accumulator = new LogAnalysisAccumulator().accept(
+            "2025-01-15T14:29:17.503Z INFO Processing order ORD-45012 amount=499.99 took 503ms\n"
+            + "ERROR request failed status=503\n"
+            + "WARN upstream call -> 503\n"
+            + "ERROR HTTP/1.1 502 Bad Gateway\n"
+            + "ERROR payment-service returned 504 Gateway Timeout\n"
+            + "INFO HTTP 200 OK\n"
+            + "INFO decode 404 bytes, status=5030, error_rate=1.2% 401=0.8%\n");
+
+        assertThat(accumulator.statusCount(503)).isEqualTo(2);
+        assertThat(accumulator.statusCount(502)).isEqualTo(1);
+        assertThat(accumulator.statusCount(504)).isEqualTo(1);
+        assertThat(accumulator.statusCount(200)).isEqualTo(1);
+        assertThat(accumulator.statusCount(404)).isZero();
+        assertThat(accumulator.statusCount(401)).isZero();
+        assertThat(accumulator.toAnalysis().statusCodeCounts())
+            .containsOnlyKeys("503", "502", "504");
+    }
+
+    @Test
+    @DisplayName("[ANALYSIS] Should report error bursts and the per-second error series")
+    public void testErrorBursts() {
+        StringBuilder logs = new StringBuilder();
+        for (int second = 0; second < 60; second++) {
+            for (int line = 0; line < 4; line++) {
+                boolean error = second >= 20 && second < 25;
+                logs.append(String.format("2025-01-15 14:28:%02d.%03d %s [payment-service] request %d\n",
+                    second, line * 100, error ? "ERROR" : "INFO ", line));
+            }
+        }
+
+        EvidenceAnalyzer.LogAnalysis analysis = EvidenceAnalyzer.analyzeLogs(logs.toString());
+
+        assertThat(analysis.errorSeries().resolution()).isEqualTo("1s");
+        assertThat(analysis.errorSeries().start()).isEqualTo("2025-01-15T14:28:00Z");
+        assertThat(analysis.errorSeries().errors()).hasSize(60);
+        assertThat(analysis.errorBursts()).hasSize(1);
+        assertThat(analysis.anomalies())
+            .contains("Error burst at 14:28:20-14:28:25 (20 errors, peak 4/s vs baseline 0.0/s)");
+    }
+
+    @Test
+    @DisplayName("[ANALYSIS] Should give the same result when analyzing in parallel")
+    public void testParallelAnalysis() throws Exception {
+        String logs = (sampleLogs() + "\n").repeat(300);
+
+        LogAnalysisAccumulator parallel = LogAnalysisAccumulator.analyzeParallel(logs, 0, logs.length());
+        LogAnalysisAccumulator sequential = new LogAnalysisAccumulator().accept(logs);
+
+        assertThat(logs.length()).isGreaterThan(2 * LogAnalysisAccumulator.PARALLEL_CHUNK_CHARS);
+        assertThat(parallel.toAnalysis()).isEqualTo(sequential.toAnalysis());
+        assertThat(parallel.lineCount()).isEqualTo(sequential.lineCount());
+    }
+
+    @Test
+    @DisplayName("[ANALYSIS] Should allocate a bounded number of bytes per analyzed MB")
+    public void testAllocationPerMegabyte() throws Exception {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        String sample = sampleLogs() + "\n";
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 8 * 1024 * 1024) {
+            builder.append(sample);
+        }
+        byte[] logs = builder.toString().getBytes(StandardCharsets.UTF_8);
+        double megabytes = logs.length / (1024.0 * 1024.0);
+
+        LogAnalysisAccumulator accumulator = new LogAnalysisAccumulator();
+        for (int i = 0; i < 5; i++) {
+            accumulator.reset();
+            accumulator.accept(logs, 0, logs.length);
+        }
+
+        long thread = Thread.currentThread().threadId();
+        accumulator.reset();
+        long before = threads.getThreadAllocatedBytes(thread);
+        accumulator.accept(logs, 0, logs.length);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        // A MB holds about 10,000 lines, so allocating even one String per line would exceed
+        // 400 KB per MB; the bound leaves room for JIT and TLAB noise.
+        assertThat(allocated / megabytes).isLessThan(64 * 1024);
+        assertThat(accumulator.errorCount()).isPositive();
+    }
+
+    private static String sampleLogs() throws Exception {
+        try (InputStream in = LogAnalysisAccumulatorTest.class.getClassLoader()
+                .getResourceAsStream("logs/payment-service.log")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
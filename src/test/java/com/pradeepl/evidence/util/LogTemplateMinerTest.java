@@ -0,0 +1,136 @@
+package com.pradeepl.evidence.util;
+
+import com.pradeepl.evidence.util.LogTemplateMiner.TemplateCount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LogTemplateMiner - Streaming log template mining")
+public class LogTemplateMinerTest {
+
+    private static void addAll(LogTemplateMiner miner, String... lines) {
+        for (String line : lines) {
+            miner.add(line, 0, line.length());
+        }
+    }
+
+    /**
+     * @return A distinct digit-free word for each value
+     */
+    private static String letters(int value) {
+        StringBuilder word = new StringBuilder();
+        do {
+            word.append((char) ('a' + value % 26));
+            value /= 26;
+        } while (value > 0);
+        return word.toString();
+    }
+
+    @Test
+    @DisplayName("[TEMPLATES] Should collapse lines that differ only in variable tokens")
+    public void testMasking() {
+        LogTemplateMiner miner = new LogTemplateMiner();
+        addAll(miner,
+            "2025-01-15T14:30:00.123Z ERROR [payment-service] [req-1] Gateway timeout after 30s status=503",
+            "2025-01-15T14:30:05.456Z ERROR [payment-service] [req-2] Gateway timeout after 45s status=504",
+            "2025-01-15T14:30:06.000Z INFO [payment-service] [req-3] Payment processed");
+
+        assertThat(miner.size()).isEqualTo(2);
+        assertThat(miner.top(1)).containsExactly(new TemplateCount(
+            "ERROR [payment-service] <*> Gateway timeout after <*> status=<*>", 2));
+    }
+
+    @Test
+    @DisplayName("[TEMPLATES] Should mine byte and char views of a line to the same template")
+    public void testByteView() {
+        String line = "ERROR [auth-service] Login failed for user café from 10.0.0.7";
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        LogTemplateMiner fromChars = new LogTemplateMiner();
+        LogTemplateMiner fromBytes = new LogTemplateMiner();
+
+        fromChars.add(line, 0, line.length());
+        fromBytes.add(bytes, 0, bytes.length);
+
+        assertThat(fromBytes.top(1)).isEqualTo(fromChars.top(1));
+        assertThat(fromChars.top(1).get(0).template())
+            .isEqualTo("ERROR [auth-service] Login failed for user <*> from <*>");
+    }
+
+    @Test
+    @DisplayName("[TEMPLATES] Should merge chunk miners into the sequential result")
+    public void testMerge() {
+        String[] first = {"retry 1 of 3", "connection reset", "retry 2 of 3"};
+        String[] second = {"connection reset", "disk full on /dev/sda1", "retry 3 of 3"};
+        LogTemplateMiner sequential = new LogTemplateMiner();
+        addAll(sequential, first);
+        addAll(sequential, second);
+
+        LogTemplateMiner merged = new LogTemplateMiner();
+        addAll(merged, first);
+        LogTemplateMiner later = new LogTemplateMiner();
+        addAll(later, second);
+        merged.merge(later);
+
+        assertThat(merged.top(10)).isEqualTo(sequential.top(10));
+        assertThat(merged.top(1)).containsExactly(new TemplateCount("retry <*> of <*>", 3));
+    }
+
+    @Test
+    @DisplayName("[TEMPLATES] Should keep the table bounded and the frequent templates")
+    public void testBoundedTable() {
+        LogTemplateMiner miner = new LogTemplateMiner();
+        for (int i = 0; i < 10 * LogTemplateMiner.MAX_TEMPLATES; i++) {
+            addAll(miner, "unique" + letters(i) + " event", "common event");
+        }
+
+        assertThat(miner.size()).isEqualTo(LogTemplateMiner.MAX_TEMPLATES);
+        assertThat(miner.isApproximate()).isTrue();
+        TemplateCount top = miner.top(1).get(0);
+        assertThat(top.template()).isEqualTo("common event");
+        assertThat(top.count()).isBetween(10 * LogTemplateMiner.MAX_TEMPLATES,
+            10 * LogTemplateMiner.MAX_TEMPLATES + top.maxOvercount());
+    }
+
+    @Test
+    @DisplayName("[TEMPLATES] Should find the heavy hitters among more templates than it tracks")
+    public void testHeavyHitters() {
+        LogTemplateMiner miner = new LogTemplateMiner(16, 0.01, 0.01);
+        LogTemplateMiner first = new LogTemplateMiner(16, 0.01, 0.01);
+        LogTemplateMiner second = new LogTemplateMiner(16, 0.01, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            // Every tenth line is one of three frequent templates, the rest are all distinct
+            String line = i % 10 == 0
+                ? "ERROR frequent kind " + "abc".charAt(i / 10 % 3) + " after " + i + "ms"
+                : "ERROR rare kind " + letters(i);
+            miner.add(line, 0, line.length());
+            (i < 10_000 ? first : second).add(line, 0, line.length());
+        }
+        first.merge(second);
+
+        for (LogTemplateMiner result : new LogTemplateMiner[] {miner, first}) {
+            assertThat(result.isApproximate()).isTrue();
+            assertThat(result.size()).isEqualTo(16);
+            assertThat(result.top(3)).extracting(TemplateCount::template).containsExactlyInAnyOrder(
+                "ERROR frequent kind a after <*>", "ERROR frequent kind b after <*>", "ERROR frequent kind c after <*>");
+            for (TemplateCount count : result.top(3)) {
+                // 666 or 667 true occurrences each
+                assertThat(count.count()).isBetween(666, 667 + count.maxOvercount());
+                assertThat(count.maxOvercount()).isEqualTo(200);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("[TEMPLATES] Should report error line templates in the log analysis")
+    public void testAnalysisTemplates() {
+        EvidenceAnalyzer.LogAnalysis analysis = EvidenceAnalyzer.analyzeLogs(
+            "INFO request 1 ok\nERROR payment 7 failed\nERROR payment 8 failed\nWARN timeout after 3s\n");
+
+        assertThat(analysis.errorTemplates()).containsExactly(
+            new TemplateCount("ERROR payment <*> failed", 2),
+            new TemplateCount("WARN timeout after <*>", 1));
+    }
+}